@@ -30,14 +30,16 @@ public class DataInitializer implements CommandLineRunner {
         createRuleIfNotExists(
             "未知进程检测",
             "PROCESS",
+            "anomaly == 'NEW'",
             "检测不在基线中的新进程",
-            "MEDIUM",
+            "HIGH",
             true
         );
 
         createRuleIfNotExists(
             "异常端口检测",
             "PORT",
+            "anomaly == 'NEW'",
             "检测不在基线中的新端口",
             "HIGH",
             true
@@ -46,6 +48,7 @@ public class DataInitializer implements CommandLineRunner {
         createRuleIfNotExists(
             "USB设备接入检测",
             "USB",
+            "anomaly == 'NEW'",
             "检测新接入的USB设备",
             "MEDIUM",
             true
@@ -54,6 +57,7 @@ public class DataInitializer implements CommandLineRunner {
         createRuleIfNotExists(
             "异常登录检测",
             "LOGIN",
+            "anomaly == 'NEW'",
             "检测异常登录行为",
             "HIGH",
             true
@@ -62,6 +66,7 @@ public class DataInitializer implements CommandLineRunner {
         createRuleIfNotExists(
             "软件变更检测",
             "SOFTWARE",
+            "anomaly == 'NEW'",
             "检测新安装的软件",
             "LOW",
             false
@@ -70,15 +75,25 @@ public class DataInitializer implements CommandLineRunner {
         logger.info("Default alert rules initialized");
     }
 
-    private void createRuleIfNotExists(String ruleName, String ruleType, 
-                                        String ruleCondition, String alertLevel, 
-                                        boolean enabled) {
+    private void createRuleIfNotExists(String ruleName, String ruleType,
+                                        String ruleCondition, String description,
+                                        String alertLevel, boolean enabled) {
         Optional<AlertRule> existing = alertRuleRepository.findByRuleName(ruleName);
-        if (existing.isEmpty()) {
+        if (existing.isPresent() && description.equals(existing.get().getRuleCondition())) {
+            // Older versions stored the description as the condition; move it aside for the rule engine.
+            // Their level was never applied, so it takes the seeded one, which matches the built-in default.
+            AlertRule rule = existing.get();
+            rule.setRuleCondition(ruleCondition);
+            rule.setDescription(description);
+            rule.setAlertLevel(alertLevel);
+            alertRuleRepository.save(rule);
+            logger.info("Migrated default rule condition: {}", ruleName);
+        } else if (existing.isEmpty()) {
             AlertRule rule = new AlertRule();
             rule.setRuleName(ruleName);
             rule.setRuleType(ruleType);
             rule.setRuleCondition(ruleCondition);
+            rule.setDescription(description);
             rule.setAlertLevel(alertLevel);
             rule.setActionType("ALERT");
             rule.setEnabled(enabled);
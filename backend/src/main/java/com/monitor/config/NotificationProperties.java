@@ -0,0 +1,110 @@
+package com.monitor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Notification targets are a list of structured entries, which @Value cannot bind
+@Component
+@ConfigurationProperties(prefix = "monitor.notify")
+public class NotificationProperties {
+
+    private boolean enabled = true;
+    private String spillDir = "data/notify-spill";
+    private long spillRetryIntervalMs = 60000;
+    private int deliveryThreads = 4;
+    private List<Target> targets = new ArrayList<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getSpillDir() { return spillDir; }
+    public void setSpillDir(String spillDir) { this.spillDir = spillDir; }
+
+    public long getSpillRetryIntervalMs() { return spillRetryIntervalMs; }
+    public void setSpillRetryIntervalMs(long spillRetryIntervalMs) { this.spillRetryIntervalMs = spillRetryIntervalMs; }
+
+    public int getDeliveryThreads() { return deliveryThreads; }
+    public void setDeliveryThreads(int deliveryThreads) { this.deliveryThreads = deliveryThreads; }
+
+    public List<Target> getTargets() { return targets; }
+    public void setTargets(List<Target> targets) { this.targets = targets; }
+
+    public static class Target {
+        private String name;
+        // webhook, syslog or email-relay
+        private String type = "webhook";
+        private boolean enabled = true;
+        // webhook and email-relay endpoint
+        private String url;
+        // syslog receiver (UDP)
+        private String host;
+        private int port = 514;
+        // email-relay recipients
+        private List<String> recipients = new ArrayList<>();
+        private String minLevel = "HIGH";
+        // alert types to send; empty means all
+        private List<String> types = new ArrayList<>();
+        private int batchSize = 100;
+        private long lingerMs = 2000;
+        private int queueCapacity = 10000;
+        private int maxConcurrency = 2;
+        private long timeoutMs = 5000;
+        private int maxAttempts = 5;
+        private long initialBackoffMs = 1000;
+        private long maxBackoffMs = 60000;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getHost() { return host; }
+        public void setHost(String host) { this.host = host; }
+
+        public int getPort() { return port; }
+        public void setPort(int port) { this.port = port; }
+
+        public List<String> getRecipients() { return recipients; }
+        public void setRecipients(List<String> recipients) { this.recipients = recipients; }
+
+        public String getMinLevel() { return minLevel; }
+        public void setMinLevel(String minLevel) { this.minLevel = minLevel; }
+
+        public List<String> getTypes() { return types; }
+        public void setTypes(List<String> types) { this.types = types; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public long getLingerMs() { return lingerMs; }
+        public void setLingerMs(long lingerMs) { this.lingerMs = lingerMs; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public int getMaxConcurrency() { return maxConcurrency; }
+        public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
+        public long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public long getInitialBackoffMs() { return initialBackoffMs; }
+        public void setInitialBackoffMs(long initialBackoffMs) { this.initialBackoffMs = initialBackoffMs; }
+
+        public long getMaxBackoffMs() { return maxBackoffMs; }
+        public void setMaxBackoffMs(long maxBackoffMs) { this.maxBackoffMs = maxBackoffMs; }
+    }
+}
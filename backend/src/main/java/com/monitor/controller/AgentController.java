@@ -1,31 +1,38 @@
 package com.monitor.controller;
 
 import com.monitor.entity.Agent;
-import com.monitor.entity.HostInfo;
 import com.monitor.entity.PortInfo;
 import com.monitor.entity.ProcessInfo;
-import com.monitor.entity.CurrentPortInfo;
-import com.monitor.entity.CurrentProcessInfo;
 import com.monitor.entity.ProcessHistory;
 import com.monitor.entity.PortHistory;
-import com.monitor.entity.InstalledSoftware;
-import com.monitor.entity.UsbDevice;
 import com.monitor.entity.LoginLog;
+import com.monitor.entity.dto.AgentOverviewDTO;
+import com.monitor.entity.dto.AgentSearchRequest;
 import com.monitor.repository.ProcessHistoryRepository;
 import com.monitor.repository.PortHistoryRepository;
+import com.monitor.service.AgentOverviewService;
+import com.monitor.service.AgentPurgeService;
+import com.monitor.service.AgentQueryService;
+import com.monitor.service.AgentRegistry;
 import com.monitor.service.AgentService;
-import com.monitor.service.HostInfoService;
-import com.monitor.service.InstalledSoftwareService;
-import com.monitor.service.UsbDeviceService;
+import com.monitor.service.AgentStateStore;
+import com.monitor.service.EtagService;
 import com.monitor.service.LoginLogService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/agents")
@@ -35,27 +42,30 @@ public class AgentController {
     private static final Logger logger = LoggerFactory.getLogger(AgentController.class);
 
     private final AgentService agentService;
-    private final HostInfoService hostInfoService;
-    private final InstalledSoftwareService installedSoftwareService;
-    private final UsbDeviceService usbDeviceService;
     private final LoginLogService loginLogService;
     private final ProcessHistoryRepository processHistoryRepository;
     private final PortHistoryRepository portHistoryRepository;
+    private final AgentOverviewService agentOverviewService;
+    private final EtagService etagService;
+    private final AgentQueryService agentQueryService;
+    private final AgentRegistry agentRegistry;
 
     public AgentController(AgentService agentService,
-                          HostInfoService hostInfoService,
-                          InstalledSoftwareService installedSoftwareService,
-                          UsbDeviceService usbDeviceService,
                           LoginLogService loginLogService,
                           ProcessHistoryRepository processHistoryRepository,
-                          PortHistoryRepository portHistoryRepository) {
+                          PortHistoryRepository portHistoryRepository,
+                          AgentOverviewService agentOverviewService,
+                          EtagService etagService,
+                          AgentQueryService agentQueryService,
+                          AgentRegistry agentRegistry) {
         this.agentService = agentService;
-        this.hostInfoService = hostInfoService;
-        this.installedSoftwareService = installedSoftwareService;
-        this.usbDeviceService = usbDeviceService;
         this.loginLogService = loginLogService;
         this.processHistoryRepository = processHistoryRepository;
         this.portHistoryRepository = portHistoryRepository;
+        this.agentOverviewService = agentOverviewService;
+        this.etagService = etagService;
+        this.agentQueryService = agentQueryService;
+        this.agentRegistry = agentRegistry;
     }
 
     @PostMapping("/register")
@@ -68,6 +78,10 @@ public class AgentController {
             response.put("agentId", agent.getId());
             response.put("message", "Agent registered successfully");
             return ResponseEntity.ok(response);
+        } catch (AgentService.AgentDeletedException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.GONE).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Registration failed: " + e.getMessage());
@@ -103,6 +117,11 @@ public class AgentController {
             response.put("success", true);
             response.put("message", "Data received successfully");
             return ResponseEntity.ok(response);
+        } catch (AgentService.AgentDeletedException e) {
+            logger.warn("Rejected upload from deleted agent {}", agentId);
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.GONE).body(response);
         } catch (Exception e) {
             logger.error("Data processing failed for agentId: {}", agentId, e);
             response.put("success", false);
@@ -111,6 +130,7 @@ public class AgentController {
         }
     }
 
+    // Unpaged; kept for API clients. The UI lists agents through /search.
     @GetMapping
     public ResponseEntity<?> getAllAgents() {
         try {
@@ -124,6 +144,38 @@ public class AgentController {
         }
     }
 
+    // Keyset-paged list rows; sort is name, lastSeen or createdAt and ip may be an address or an IPv4 CIDR block
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAgents(
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> platform,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String ip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastSeenFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastSeenTo,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        AgentSearchRequest request = new AgentSearchRequest();
+        request.setStatuses(status);
+        request.setPlatforms(platform);
+        request.setNamePrefix(name);
+        request.setIp(ip);
+        request.setLastSeenFrom(lastSeenFrom);
+        request.setLastSeenTo(lastSeenTo);
+        request.setSort(sort);
+        request.setOrder(order);
+        request.setCursor(cursor);
+        request.setLimit(limit);
+        logger.debug("Searching agents: status={}, name={}, ip={}, sort={} {}", status, name, ip, sort, order);
+        try {
+            return ResponseEntity.ok(agentQueryService.search(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{agentId}")
     public ResponseEntity<Agent> getAgent(@PathVariable String agentId) {
         return agentService.getAgent(agentId)
@@ -154,7 +206,7 @@ public class AgentController {
         try {
             boolean success = agentService.deleteAgent(agentId);
             response.put("success", success);
-            response.put("message", success ? "Agent deleted successfully" : "Agent not found");
+            response.put("message", success ? "Agent deleted, data purge scheduled" : "Agent not found");
             return success ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -163,66 +215,76 @@ public class AgentController {
         }
     }
 
-    @GetMapping("/{agentId}/processes")
-    public ResponseEntity<?> getProcesses(@PathVariable String agentId) {
+    @GetMapping("/{agentId}/purge-status")
+    public ResponseEntity<AgentPurgeService.PurgeProgress> getPurgeStatus(@PathVariable String agentId) {
+        return agentService.getPurgeProgress(agentId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Everything the detail page shows in one round-trip; fields= selects sections, e.g. fields=agent,ports
+    @GetMapping("/{agentId}/overview")
+    public ResponseEntity<?> getOverview(@PathVariable String agentId,
+                                         @RequestParam(required = false) List<String> fields) {
+        logger.debug("Getting overview for agent {} (fields={})", agentId, fields);
         try {
-            List<CurrentProcessInfo> processes = agentService.getProcesses(agentId);
-            return ResponseEntity.ok(processes);
-        } catch (Exception e) {
-            e.printStackTrace();
-            Map<String, Object> errorMap = new HashMap<>();
-            errorMap.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(errorMap);
+            Optional<AgentOverviewDTO> overview = agentOverviewService.getOverview(agentId, fields);
+            if (overview.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(overview.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    @GetMapping("/{agentId}/processes")
+    public ResponseEntity<?> getProcesses(@PathVariable String agentId,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return readSection(agentId, AgentStateStore.Section.PROCESSES, ifNoneMatch);
+    }
+
     @GetMapping("/{agentId}/ports")
-    public ResponseEntity<?> getPorts(@PathVariable String agentId) {
-        try {
-            List<CurrentPortInfo> ports = agentService.getPorts(agentId);
-            return ResponseEntity.ok(ports);
-        } catch (Exception e) {
-            e.printStackTrace();
-            Map<String, Object> errorMap = new HashMap<>();
-            errorMap.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(errorMap);
-        }
+    public ResponseEntity<?> getPorts(@PathVariable String agentId,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return readSection(agentId, AgentStateStore.Section.PORTS, ifNoneMatch);
     }
 
     @GetMapping("/{agentId}/host-info")
-    public ResponseEntity<?> getHostInfo(@PathVariable String agentId) {
-        try {
-            return hostInfoService.getLatestHostInfo(agentId)
-                    .map(ResponseEntity::ok)
-                    .orElse(ResponseEntity.ok(null));
-        } catch (Exception e) {
-            e.printStackTrace();
-            Map<String, Object> errorMap = new HashMap<>();
-            errorMap.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(errorMap);
-        }
+    public ResponseEntity<?> getHostInfo(@PathVariable String agentId,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return readSection(agentId, AgentStateStore.Section.HOST_INFO, ifNoneMatch);
     }
 
     @GetMapping("/{agentId}/installed-software")
-    public ResponseEntity<?> getInstalledSoftware(@PathVariable String agentId) {
-        try {
-            List<InstalledSoftware> installedSoftware = installedSoftwareService.getInstalledSoftwareHistory(agentId);
-            return ResponseEntity.ok(installedSoftware);
-        } catch (Exception e) {
-            e.printStackTrace();
-            Map<String, Object> errorMap = new HashMap<>();
-            errorMap.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(errorMap);
-        }
+    public ResponseEntity<?> getInstalledSoftware(@PathVariable String agentId,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return readSection(agentId, AgentStateStore.Section.INSTALLED_SOFTWARE, ifNoneMatch);
     }
 
     @GetMapping("/{agentId}/usb-devices")
-    public ResponseEntity<?> getUsbDevices(@PathVariable String agentId) {
+    public ResponseEntity<?> getUsbDevices(@PathVariable String agentId,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return readSection(agentId, AgentStateStore.Section.USB_DEVICES, ifNoneMatch);
+    }
+
+    // no-cache makes the browser revalidate every poll, which is then answered with 304 while the section is unchanged
+    private ResponseEntity<?> readSection(String agentId, AgentStateStore.Section section, String ifNoneMatch) {
         try {
-            List<UsbDevice> usbDevices = usbDeviceService.getUsbDevicesHistory(agentId);
-            return ResponseEntity.ok(usbDevices);
+            EtagService.SectionRead read = etagService.readSection(agentId, section, ifNoneMatch);
+            if (read.isNotModified()) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(read.getEtag())
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(read.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(read.getBody());
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Failed to read {} for agent {}", section, agentId, e);
             Map<String, Object> errorMap = new HashMap<>();
             errorMap.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(errorMap);
@@ -271,13 +333,21 @@ public class AgentController {
     @GetMapping("/status")
     public ResponseEntity<?> getStatus() {
         try {
-            List<Agent> onlineAgents = agentService.getAgentsByStatus("online");
-            List<Agent> offlineAgents = agentService.getAgentsByStatus("offline");
+            long online;
+            long offline;
+            if (agentRegistry.isLoaded()) {
+                Map<String, Long> counts = agentRegistry.countByStatus();
+                online = counts.getOrDefault("online", 0L);
+                offline = counts.getOrDefault("offline", 0L);
+            } else {
+                online = agentService.countOnlineAgents();
+                offline = agentService.countOfflineAgents();
+            }
 
             Map<String, Object> response = new HashMap<>();
-            response.put("online", onlineAgents.size());
-            response.put("offline", offlineAgents.size());
-            response.put("total", onlineAgents.size() + offlineAgents.size());
+            response.put("online", online);
+            response.put("offline", offline);
+            response.put("total", online + offline);
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -2,12 +2,19 @@ package com.monitor.controller;
 
 import com.monitor.entity.AlertRule;
 import com.monitor.entity.SecurityAlert;
+import com.monitor.entity.dto.AlertSearchRequest;
+import com.monitor.service.AlertBulkService;
+import com.monitor.service.AlertQueryService;
 import com.monitor.service.AlertService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,9 +26,14 @@ public class AlertController {
     private static final Logger logger = LoggerFactory.getLogger(AlertController.class);
 
     private final AlertService alertService;
+    private final AlertQueryService alertQueryService;
+    private final AlertBulkService alertBulkService;
 
-    public AlertController(AlertService alertService) {
+    public AlertController(AlertService alertService, AlertQueryService alertQueryService,
+                           AlertBulkService alertBulkService) {
         this.alertService = alertService;
+        this.alertQueryService = alertQueryService;
+        this.alertBulkService = alertBulkService;
     }
 
     @GetMapping
@@ -52,6 +64,33 @@ public class AlertController {
         return ResponseEntity.ok(alerts);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAlerts(
+            @RequestParam(required = false) List<String> agentId,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> level,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        AlertSearchRequest request = new AlertSearchRequest();
+        request.setAgentIds(agentId);
+        request.setStatuses(status);
+        request.setLevels(level);
+        request.setTypes(type);
+        request.setFrom(from);
+        request.setTo(to);
+        request.setCursor(cursor);
+        request.setLimit(limit);
+        logger.debug("Searching alerts: status={}, level={}, cursor={}", status, level, cursor);
+        try {
+            return ResponseEntity.ok(alertQueryService.search(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<SecurityAlert> getAlertById(@PathVariable Long id) {
         logger.debug("Getting alert by id: {}", id);
@@ -116,6 +155,66 @@ public class AlertController {
         }
     }
 
+    // action is acknowledge, resolve or ignore; the body carries either "ids" or a search "filter"
+    @PostMapping("/bulk/{action}")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<?> bulkTransition(@PathVariable String action, @RequestBody Map<String, Object> body) {
+        String actor = (String) body.getOrDefault("actor", "admin");
+        String note = (String) body.get("note");
+        try {
+            AlertBulkService.BulkResult result;
+            if (body.get("ids") instanceof List) {
+                List<Long> ids = new ArrayList<>();
+                for (Object id : (List<Object>) body.get("ids")) {
+                    ids.add(((Number) id).longValue());
+                }
+                result = alertBulkService.transitionByIds(action, ids, actor, note);
+            } else if (body.get("filter") instanceof Map) {
+                AlertSearchRequest filter = toSearchRequest((Map<String, Object>) body.get("filter"));
+                result = alertBulkService.transitionByFilter(action, filter, actor, note);
+            } else {
+                return ResponseEntity.badRequest().body(Map.of("error", "Either ids or filter is required"));
+            }
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            logger.warn("Bulk {} rejected: {}", action, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private static AlertSearchRequest toSearchRequest(Map<String, Object> filter) {
+        AlertSearchRequest request = new AlertSearchRequest();
+        request.setAgentIds(toList(filter.get("agentId")));
+        request.setStatuses(toList(filter.get("status")));
+        request.setLevels(toList(filter.get("level")));
+        request.setTypes(toList(filter.get("type")));
+        if (filter.get("from") != null) {
+            request.setFrom(LocalDateTime.parse((String) filter.get("from")));
+        }
+        if (filter.get("to") != null) {
+            request.setTo(LocalDateTime.parse((String) filter.get("to")));
+        }
+        // an empty filter would transition every alert in the table
+        if (request.getAgentIds() == null && request.getStatuses() == null && request.getLevels() == null
+                && request.getTypes() == null && request.getFrom() == null && request.getTo() == null) {
+            throw new RuntimeException("Bulk filter must narrow the selection");
+        }
+        return request;
+    }
+
+    private static List<String> toList(Object value) {
+        if (value == null || "".equals(value)) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        if (value instanceof List) {
+            ((List<?>) value).forEach(v -> values.add(String.valueOf(v)));
+        } else {
+            values.add(String.valueOf(value));
+        }
+        return values.isEmpty() ? null : values;
+    }
+
     @GetMapping("/rules")
     public ResponseEntity<List<AlertRule>> getAllRules() {
         logger.debug("Getting all alert rules");
@@ -138,7 +237,7 @@ public class AlertController {
     }
 
     @PostMapping("/rules")
-    public ResponseEntity<AlertRule> createRule(@RequestBody Map<String, Object> body) {
+    public ResponseEntity<?> createRule(@RequestBody Map<String, Object> body) {
         String ruleType = (String) body.get("ruleType");
         String ruleName = (String) body.get("ruleName");
         String ruleCondition = (String) body.get("ruleCondition");
@@ -147,8 +246,25 @@ public class AlertController {
         Boolean enabled = (Boolean) body.getOrDefault("enabled", true);
 
         logger.info("Creating alert rule: {}", ruleName);
-        AlertRule rule = alertService.createRule(ruleType, ruleName, ruleCondition, alertLevel, actionType, enabled);
-        return ResponseEntity.ok(rule);
+        try {
+            AlertRule rule = alertService.createRule(ruleType, ruleName, ruleCondition, alertLevel, actionType, enabled);
+            return ResponseEntity.ok(rule);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/rules/validate")
+    public ResponseEntity<Map<String, Object>> validateRule(@RequestBody Map<String, String> body) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            alertService.validateRuleCondition(body.get("ruleCondition"));
+            response.put("valid", true);
+        } catch (RuntimeException e) {
+            response.put("valid", false);
+            response.put("error", e.getMessage());
+        }
+        return ResponseEntity.ok(response);
     }
 
     @PutMapping("/rules/{id}/toggle")
@@ -0,0 +1,75 @@
+package com.monitor.controller;
+
+import com.monitor.entity.dto.BulkBaselineRequest;
+import com.monitor.service.BaselineBulkService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/baselines/bulk")
+@CrossOrigin(origins = "*")
+public class BaselineBulkController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaselineBulkController.class);
+
+    private final BaselineBulkService bulkService;
+
+    public BaselineBulkController(BaselineBulkService bulkService) {
+        this.bulkService = bulkService;
+    }
+
+    @PostMapping("/{type}/import")
+    public ResponseEntity<?> importFromCurrent(@PathVariable String type,
+                                               @RequestBody BulkBaselineRequest request) {
+        logger.info("Bulk import of current data as {} baseline", type);
+        return accepted(() -> bulkService.importFromCurrent(type, request));
+    }
+
+    @PostMapping("/{type}/copy")
+    public ResponseEntity<?> copyFromAgent(@PathVariable String type,
+                                           @RequestBody BulkBaselineRequest request) {
+        logger.info("Bulk copy of {} baseline from agent {}", type, request.getSourceAgentId());
+        return accepted(() -> bulkService.copyFromAgent(type, request));
+    }
+
+    @PostMapping("/{type}/learn")
+    public ResponseEntity<?> startLearning(@PathVariable String type,
+                                           @RequestBody BulkBaselineRequest request) {
+        logger.info("Bulk {} learning for {} baseline", request.getMode(), type);
+        return accepted(() -> bulkService.startLearning(type, request));
+    }
+
+    @PostMapping("/{type}/delete")
+    public ResponseEntity<?> deleteBaselines(@PathVariable String type,
+                                             @RequestBody BulkBaselineRequest request) {
+        logger.info("Bulk delete of {} baseline", type);
+        return accepted(() -> bulkService.deleteBaselines(type, request));
+    }
+
+    // Bad targets or a missing source are the caller's mistake, reported before any job starts
+    private ResponseEntity<?> accepted(Supplier<BaselineBulkService.BulkJob> start) {
+        try {
+            return ResponseEntity.accepted().body(start.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<BaselineBulkService.BulkJob>> getJobs() {
+        return ResponseEntity.ok(bulkService.getJobs());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<BaselineBulkService.BulkJob> getJob(@PathVariable String jobId) {
+        return bulkService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
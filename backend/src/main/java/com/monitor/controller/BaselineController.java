@@ -6,8 +6,12 @@ import com.monitor.entity.BaselineSnapshot;
 import com.monitor.entity.dto.BaselineCompareResult;
 import com.monitor.entity.dto.BaselineItemDTO;
 import com.monitor.service.BaselineService;
+import com.monitor.service.EtagService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,9 +26,11 @@ public class BaselineController {
     private static final Logger logger = LoggerFactory.getLogger(BaselineController.class);
 
     private final BaselineService baselineService;
+    private final EtagService etagService;
 
-    public BaselineController(BaselineService baselineService) {
+    public BaselineController(BaselineService baselineService, EtagService etagService) {
         this.baselineService = baselineService;
+        this.etagService = etagService;
     }
 
     @GetMapping("/{agentId}")
@@ -101,18 +107,51 @@ public class BaselineController {
 
     @GetMapping("/{agentId}/{type}/snapshots")
     public ResponseEntity<List<BaselineSnapshot>> getSnapshots(@PathVariable String agentId,
-                                                                @PathVariable String type) {
+                                                                @PathVariable String type,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("Getting snapshots for agent {} type {}", agentId, type);
+        String etag = etagService.baselineEtag(agentId, type);
+        if (EtagService.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         List<BaselineSnapshot> snapshots = baselineService.getSnapshots(agentId, type);
-        return ResponseEntity.ok(snapshots);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(snapshots);
+    }
+
+    // Both snapshots are immutable, so their ids alone identify the diff once they are known to
+    // belong to this agent and type
+    @GetMapping("/{agentId}/{type}/snapshots/diff")
+    public ResponseEntity<BaselineCompareResult> diffSnapshots(@PathVariable String agentId,
+                                                               @PathVariable String type,
+                                                               @RequestParam Long from,
+                                                               @RequestParam Long to,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        baselineService.checkSnapshotsOwned(agentId, type, from, to);
+        String etag = "\"diff-" + from + "-" + to + "\"";
+        if (EtagService.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        logger.debug("Diffing snapshots {} -> {} for agent {} type {}", from, to, agentId, type);
+        BaselineCompareResult result = baselineService.diffSnapshots(agentId, type, from, to);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(result);
     }
 
     @GetMapping("/{agentId}/{type}/items")
     public ResponseEntity<List<BaselineItem>> getBaselineItems(@PathVariable String agentId,
-                                                                @PathVariable String type) {
+                                                                @PathVariable String type,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("Getting baseline items for agent {} type {}", agentId, type);
+        // Read before the items: if a snapshot lands in between, the next poll sees a new tag and reloads
+        String etag = etagService.baselineEtag(agentId, type);
+        if (EtagService.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         List<BaselineItem> items = baselineService.getBaselineItems(agentId, type);
-        return ResponseEntity.ok(items);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(items);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
     }
 
     @GetMapping("/{agentId}/{type}/compare")
@@ -0,0 +1,37 @@
+package com.monitor.controller;
+
+import com.monitor.service.DashboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = "*")
+public class DashboardController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary() {
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(dashboardService.getTtlMs(), TimeUnit.MILLISECONDS))
+                    .body(dashboardService.getSummary());
+        } catch (RuntimeException e) {
+            logger.error("Failed to build dashboard summary", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.monitor.controller;
+
+import com.monitor.service.EventBroadcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventController.class);
+
+    private final EventBroadcaster eventBroadcaster;
+
+    public EventController(EventBroadcaster eventBroadcaster) {
+        this.eventBroadcaster = eventBroadcaster;
+    }
+
+    // EventSource sends Last-Event-ID itself when it reconnects; lastEventId covers the first connect
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) List<String> agentId,
+                             @RequestParam(required = false) List<String> level,
+                             @RequestParam(required = false) List<String> type,
+                             @RequestParam(required = false) List<String> events,
+                             @RequestParam(required = false) Long lastEventId,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader) {
+        Long resumeFrom = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        logger.debug("Event stream opened (agents={}, levels={}, types={}, resumeFrom={})", agentId, level, type, resumeFrom);
+        return eventBroadcaster.subscribe(new EventBroadcaster.Filter(agentId, level, type, events), resumeFrom);
+    }
+}
@@ -0,0 +1,93 @@
+package com.monitor.controller;
+
+import com.monitor.entity.Agent;
+import com.monitor.repository.AgentRepository;
+import com.monitor.service.FleetIndexService;
+import com.monitor.service.FleetRarityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/fleet")
+@CrossOrigin(origins = "*")
+public class FleetController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetController.class);
+
+    private final FleetIndexService fleetIndexService;
+    private final FleetRarityService fleetRarityService;
+    private final AgentRepository agentRepository;
+
+    public FleetController(FleetIndexService fleetIndexService,
+                           FleetRarityService fleetRarityService,
+                           AgentRepository agentRepository) {
+        this.fleetIndexService = fleetIndexService;
+        this.fleetRarityService = fleetRarityService;
+        this.agentRepository = agentRepository;
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(@RequestParam(required = false) String process,
+                                                      @RequestParam(required = false) String port,
+                                                      @RequestParam(required = false) String protocol,
+                                                      @RequestParam(required = false) String software,
+                                                      @RequestParam(required = false) String version,
+                                                      @RequestParam(required = false) String usb,
+                                                      @RequestParam(defaultValue = "200") int limit) {
+        Map<String, String> criteria = new LinkedHashMap<>();
+        criteria.put(FleetIndexService.PROCESS, process);
+        if (port != null) {
+            criteria.put(FleetIndexService.PORT, protocol != null && !protocol.isBlank() ? port + "/" + protocol : port);
+        }
+        if (software != null) {
+            criteria.put(FleetIndexService.SOFTWARE, version != null && !version.isBlank() ? software + "@" + version : software);
+        }
+        criteria.put(FleetIndexService.USB, usb);
+
+        Map<String, Object> response = new HashMap<>();
+        if (criteria.values().stream().allMatch(v -> v == null || v.isBlank())) {
+            response.put("error", "At least one of process, port, software or usb is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        long start = System.nanoTime();
+        List<String> agentIds = fleetIndexService.search(criteria);
+        long tookMicros = (System.nanoTime() - start) / 1000;
+        logger.debug("Fleet search {} matched {} agents in {} us", criteria, agentIds.size(), tookMicros);
+
+        List<String> page = agentIds.subList(0, Math.min(Math.max(limit, 0), agentIds.size()));
+        List<Agent> agents = agentRepository.findAllById(page);
+
+        response.put("total", agentIds.size());
+        response.put("agentIds", page);
+        response.put("agents", agents);
+        response.put("searchMicros", tookMicros);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/index-stats")
+    public ResponseEntity<Map<String, Object>> indexStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("agents", fleetIndexService.getAgentCount());
+        response.put("terms", fleetIndexService.getTermCount());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/rare")
+    public ResponseEntity<List<FleetRarityService.RareItem>> rarest(@RequestParam(required = false) String kind,
+                                                                    @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(fleetRarityService.getRarestItems(kind, limit));
+    }
+
+    @GetMapping("/rarity-stats")
+    public ResponseEntity<Map<String, Object>> rarityStats() {
+        return ResponseEntity.ok(fleetRarityService.getStats());
+    }
+}
@@ -0,0 +1,94 @@
+package com.monitor.controller;
+
+import com.monitor.entity.SecurityIncident;
+import com.monitor.entity.dto.AlertSearchRequest;
+import com.monitor.repository.SecurityIncidentRepository;
+import com.monitor.service.AlertQueryService;
+import com.monitor.service.IncidentCorrelationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/incidents")
+@CrossOrigin(origins = "*")
+public class IncidentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncidentController.class);
+
+    private final SecurityIncidentRepository incidentRepository;
+    private final IncidentCorrelationService incidentCorrelationService;
+    private final AlertQueryService alertQueryService;
+
+    public IncidentController(SecurityIncidentRepository incidentRepository,
+                              IncidentCorrelationService incidentCorrelationService,
+                              AlertQueryService alertQueryService) {
+        this.incidentRepository = incidentRepository;
+        this.incidentCorrelationService = incidentCorrelationService;
+        this.alertQueryService = alertQueryService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<SecurityIncident>> getIncidents(@RequestParam(required = false) String status,
+                                                               @RequestParam(defaultValue = "50") int limit) {
+        logger.debug("Getting incidents with status: {}", status);
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 500)));
+        List<SecurityIncident> incidents = status != null && !status.isBlank()
+                ? incidentRepository.findByIncidentStatusOrderByLastSeenAtDesc(status.toUpperCase(), page)
+                : incidentRepository.findAllByOrderByLastSeenAtDesc(page);
+        return ResponseEntity.ok(incidents);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SecurityIncident> getIncident(@PathVariable Long id) {
+        return incidentRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Member alerts, paged the same way as /api/alerts/search
+    @GetMapping("/{id}/alerts")
+    public ResponseEntity<?> getIncidentAlerts(@PathVariable Long id,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int limit) {
+        SecurityIncident incident = incidentRepository.findById(id).orElse(null);
+        if (incident == null) {
+            return ResponseEntity.notFound().build();
+        }
+        AlertSearchRequest request = new AlertSearchRequest();
+        request.setCorrelationKey(incident.getCorrelationKey());
+        request.setFrom(incident.getFirstSeenAt());
+        if (incident.getClosedAt() != null) {
+            request.setTo(incident.getClosedAt());
+        }
+        request.setCursor(cursor);
+        request.setLimit(limit);
+        try {
+            return ResponseEntity.ok(alertQueryService.search(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/close")
+    public ResponseEntity<?> closeIncident(@PathVariable Long id) {
+        logger.info("Closing incident {}", id);
+        try {
+            return ResponseEntity.ok(incidentCorrelationService.closeIncident(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getCorrelationStats() {
+        return ResponseEntity.ok(Map.of(
+                "openIncidents", incidentCorrelationService.getOpenCount(),
+                "trackedKeys", incidentCorrelationService.getTrackedKeyCount()));
+    }
+}
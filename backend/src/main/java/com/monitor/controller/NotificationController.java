@@ -0,0 +1,42 @@
+package com.monitor.controller;
+
+import com.monitor.service.NotificationDispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@CrossOrigin(origins = "*")
+public class NotificationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationController.class);
+
+    private final NotificationDispatcher notificationDispatcher;
+
+    public NotificationController(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getStats() {
+        return ResponseEntity.ok(notificationDispatcher.getStats());
+    }
+
+    // Delivers one synthetic notification synchronously, e.g. to check a webhook against a local stub
+    @PostMapping("/test/{target}")
+    public ResponseEntity<Map<String, Object>> sendTest(@PathVariable String target) {
+        logger.info("Sending test notification to target '{}'", target);
+        try {
+            notificationDispatcher.sendTest(target);
+            return ResponseEntity.ok(Map.of("target", target, "success", true));
+        } catch (Exception e) {
+            logger.warn("Test notification to '{}' failed: {}", target, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("target", target, "success", false,
+                    "error", String.valueOf(e.getMessage())));
+        }
+    }
+}
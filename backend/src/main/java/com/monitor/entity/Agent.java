@@ -1,10 +1,20 @@
 package com.monitor.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "agents")
+// Backing the keyset agent list: one index per sort key, plus the filtered orderings it is used with
+@Table(name = "agents", indexes = {
+        @Index(name = "idx_agents_name", columnList = "name, id"),
+        @Index(name = "idx_agents_updated", columnList = "updated_at, id"),
+        @Index(name = "idx_agents_created", columnList = "created_at, id"),
+        @Index(name = "idx_agents_status_name", columnList = "status, name, id"),
+        @Index(name = "idx_agents_status_updated", columnList = "status, updated_at, id"),
+        @Index(name = "idx_agents_platform", columnList = "platform"),
+        @Index(name = "idx_agents_ip_number", columnList = "ip_number")
+})
 public class Agent {
 
     @Id
@@ -23,6 +33,11 @@ public class Agent {
     @Column(length = 50)
     private String ipAddress;
 
+    // IPv4 address as an unsigned number so CIDR filters become an index range; null for anything else
+    @JsonIgnore
+    @Column(name = "ip_number")
+    private Long ipNumber;
+
     @Column(length = 20)
     private String status;
 
@@ -86,6 +101,14 @@ public class Agent {
         this.ipAddress = ipAddress;
     }
 
+    public Long getIpNumber() {
+        return ipNumber;
+    }
+
+    public void setIpNumber(Long ipNumber) {
+        this.ipNumber = ipNumber;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -20,6 +20,9 @@ public class AlertRule {
     @Column(name = "rule_condition", nullable = false, length = 500)
     private String ruleCondition;
 
+    @Column(name = "description", length = 500)
+    private String description;
+
     @Column(name = "action_type", length = 50)
     private String actionType;
 
@@ -62,6 +65,9 @@ public class AlertRule {
     public String getRuleCondition() { return ruleCondition; }
     public void setRuleCondition(String ruleCondition) { this.ruleCondition = ruleCondition; }
 
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
     public String getActionType() { return actionType; }
     public void setActionType(String actionType) { this.actionType = actionType; }
 
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "baseline_config")
+@Table(name = "baseline_config", indexes = @Index(name = "idx_baseline_config_agent", columnList = "agent_id"))
 public class BaselineConfig {
 
     @Id
@@ -4,16 +4,27 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "baseline_item")
+@Table(name = "baseline_item", indexes = {
+        @Index(name = "idx_baseline_item_snapshot", columnList = "snapshot_id"),
+        @Index(name = "idx_baseline_item_set", columnList = "item_set_id")
+})
 public class BaselineItem {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // For items of a shared set this is the snapshot that first created the set
     @Column(name = "snapshot_id", nullable = false)
     private Long snapshotId;
 
+    @Column(name = "item_set_id")
+    private Long itemSetId;
+
+    // Only set on rows of a delta item set: PUT adds or replaces the key, REMOVE drops it
+    @Column(name = "delta_op", length = 10)
+    private String deltaOp;
+
     @Column(name = "item_type", length = 50)
     private String itemType;
 
@@ -41,6 +52,12 @@ public class BaselineItem {
     public Long getSnapshotId() { return snapshotId; }
     public void setSnapshotId(Long snapshotId) { this.snapshotId = snapshotId; }
 
+    public Long getItemSetId() { return itemSetId; }
+    public void setItemSetId(Long itemSetId) { this.itemSetId = itemSetId; }
+
+    public String getDeltaOp() { return deltaOp; }
+    public void setDeltaOp(String deltaOp) { this.deltaOp = deltaOp; }
+
     public String getItemType() { return itemType; }
     public void setItemType(String itemType) { this.itemType = itemType; }
 
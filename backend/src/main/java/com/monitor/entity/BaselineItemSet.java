@@ -0,0 +1,79 @@
+package com.monitor.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "baseline_item_set",
+        indexes = @Index(name = "idx_baseline_item_set_parent", columnList = "parent_set_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_baseline_item_set_hash", columnNames = "set_hash"))
+public class BaselineItemSet {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "set_hash", nullable = false, length = 64)
+    private String setHash;
+
+    @Column(name = "baseline_type", length = 50)
+    private String baselineType;
+
+    @Column(name = "item_count")
+    private Integer itemCount;
+
+    // Delta sets store only the changes against their parent; depth 0 is a full checkpoint
+    @Column(name = "parent_set_id")
+    private Long parentSetId;
+
+    @Column(name = "depth")
+    private Integer depth;
+
+    @Column(name = "delta_count")
+    private Integer deltaCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Refreshed whenever a snapshot is about to reference the set; the orphan sweep leaves recently used sets alone
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (lastUsedAt == null) {
+            lastUsedAt = createdAt;
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSetHash() { return setHash; }
+    public void setSetHash(String setHash) { this.setHash = setHash; }
+
+    public String getBaselineType() { return baselineType; }
+    public void setBaselineType(String baselineType) { this.baselineType = baselineType; }
+
+    public Integer getItemCount() { return itemCount; }
+    public void setItemCount(Integer itemCount) { this.itemCount = itemCount; }
+
+    public Long getParentSetId() { return parentSetId; }
+    public void setParentSetId(Long parentSetId) { this.parentSetId = parentSetId; }
+
+    public Integer getDepth() { return depth; }
+    public void setDepth(Integer depth) { this.depth = depth; }
+
+    public Integer getDeltaCount() { return deltaCount; }
+    public void setDeltaCount(Integer deltaCount) { this.deltaCount = deltaCount; }
+
+    public boolean isCheckpoint() { return parentSetId == null; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastUsedAt() { return lastUsedAt; }
+    public void setLastUsedAt(LocalDateTime lastUsedAt) { this.lastUsedAt = lastUsedAt; }
+}
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "baseline_snapshot")
+@Table(name = "baseline_snapshot", indexes = {
+        @Index(name = "idx_baseline_snapshot_agent", columnList = "agent_id"),
+        @Index(name = "idx_baseline_snapshot_item_set", columnList = "item_set_id")
+})
 public class BaselineSnapshot {
 
     @Id
@@ -26,6 +29,10 @@ public class BaselineSnapshot {
     @Column(name = "item_count")
     private Integer itemCount;
 
+    // Shared, immutable item set; null for snapshots written before sets existed, whose items hang off snapshot_id
+    @Column(name = "item_set_id")
+    private Long itemSetId;
+
     @Column(name = "valid_from")
     private LocalDateTime validFrom;
 
@@ -57,6 +64,9 @@ public class BaselineSnapshot {
     public String getSnapshotHash() { return snapshotHash; }
     public void setSnapshotHash(String snapshotHash) { this.snapshotHash = snapshotHash; }
 
+    public Long getItemSetId() { return itemSetId; }
+    public void setItemSetId(Long itemSetId) { this.itemSetId = itemSetId; }
+
     public Integer getItemCount() { return itemCount; }
     public void setItemCount(Integer itemCount) { this.itemCount = itemCount; }
 
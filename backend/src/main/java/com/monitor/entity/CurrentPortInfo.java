@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "current_ports")
+@Table(name = "current_ports", indexes = @Index(name = "idx_current_ports_agent", columnList = "agent_id"))
 public class CurrentPortInfo {
 
     @Id
@@ -33,7 +33,9 @@ public class CurrentPortInfo {
 
     @PrePersist
     protected void onCreate() {
-        collectedAt = LocalDateTime.now();
+        if (collectedAt == null) {
+            collectedAt = LocalDateTime.now();
+        }
     }
 
     public Long getId() { return id; }
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "current_processes")
+@Table(name = "current_processes", indexes = @Index(name = "idx_current_processes_agent", columnList = "agent_id"))
 public class CurrentProcessInfo {
 
     @Id
@@ -37,7 +37,9 @@ public class CurrentProcessInfo {
 
     @PrePersist
     protected void onCreate() {
-        collectedAt = LocalDateTime.now();
+        if (collectedAt == null) {
+            collectedAt = LocalDateTime.now();
+        }
     }
 
     public Long getId() { return id; }
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "host_info")
+@Table(name = "host_info", indexes = @Index(name = "idx_host_info_agent", columnList = "agent_id"))
 public class HostInfo {
 
     @Id
@@ -79,7 +79,9 @@ public class HostInfo {
 
     @PrePersist
     protected void onCreate() {
-        collectedAt = LocalDateTime.now();
+        if (collectedAt == null) {
+            collectedAt = LocalDateTime.now();
+        }
     }
 
     // Getters and Setters
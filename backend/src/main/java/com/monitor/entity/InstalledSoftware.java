@@ -5,7 +5,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "installed_software")
+@Table(name = "installed_software", indexes = @Index(name = "idx_installed_software_agent", columnList = "agent_id"))
 public class InstalledSoftware {
 
     @Id
@@ -44,7 +44,9 @@ public class InstalledSoftware {
 
     @PrePersist
     protected void onCreate() {
-        collectedAt = LocalDateTime.now();
+        if (collectedAt == null) {
+            collectedAt = LocalDateTime.now();
+        }
     }
 
     // Getters and Setters
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "login_logs")
+@Table(name = "login_logs", indexes = @Index(name = "idx_login_logs_agent", columnList = "agent_id"))
 public class LoginLog {
 
     @Id
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "port_baseline")
+@Table(name = "port_baseline",
+        indexes = @Index(name = "idx_port_baseline_agent", columnList = "agent_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_port_baseline_agent_port", columnNames = {"agent_id", "port", "protocol"}))
 public class PortBaseline {
 
     @Id
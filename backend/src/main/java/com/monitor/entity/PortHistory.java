@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "port_history")
+@Table(name = "port_history", indexes = {
+        @Index(name = "idx_port_history_agent", columnList = "agent_id"),
+        @Index(name = "idx_port_history_agent_time", columnList = "agent_id, collected_at")
+})
 public class PortHistory {
 
     @Id
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ports")
+@Table(name = "ports", indexes = @Index(name = "idx_ports_agent", columnList = "agent_id"))
 public class PortInfo {
 
     @Id
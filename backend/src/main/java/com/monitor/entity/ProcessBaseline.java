@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "process_baseline")
+@Table(name = "process_baseline",
+        indexes = @Index(name = "idx_process_baseline_agent", columnList = "agent_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_process_baseline_agent_name", columnNames = {"agent_id", "process_name"}))
 public class ProcessBaseline {
 
     @Id
@@ -38,6 +40,12 @@ public class ProcessBaseline {
     @Column(name = "avg_memory_percent", precision = 5)
     private Double avgMemoryPercent;
 
+    @Column(name = "cpu_stddev", precision = 5)
+    private Double cpuStddev;
+
+    @Column(name = "memory_stddev", precision = 5)
+    private Double memoryStddev;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -85,6 +93,12 @@ public class ProcessBaseline {
     public Double getAvgMemoryPercent() { return avgMemoryPercent; }
     public void setAvgMemoryPercent(Double avgMemoryPercent) { this.avgMemoryPercent = avgMemoryPercent; }
 
+    public Double getCpuStddev() { return cpuStddev; }
+    public void setCpuStddev(Double cpuStddev) { this.cpuStddev = cpuStddev; }
+
+    public Double getMemoryStddev() { return memoryStddev; }
+    public void setMemoryStddev(Double memoryStddev) { this.memoryStddev = memoryStddev; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "process_history")
+@Table(name = "process_history", indexes = {
+        @Index(name = "idx_process_history_agent", columnList = "agent_id"),
+        @Index(name = "idx_process_history_agent_time", columnList = "agent_id, collected_at")
+})
 public class ProcessHistory {
 
     @Id
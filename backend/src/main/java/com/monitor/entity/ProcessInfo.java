@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "processes")
+@Table(name = "processes", indexes = @Index(name = "idx_processes_agent", columnList = "agent_id"))
 public class ProcessInfo {
 
     @Id
@@ -4,7 +4,14 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "security_alert")
+@Table(name = "security_alert", indexes = {
+        @Index(name = "idx_security_alert_agent", columnList = "agent_id"),
+        @Index(name = "idx_security_alert_fingerprint", columnList = "fingerprint, alert_status"),
+        @Index(name = "idx_security_alert_created", columnList = "created_at, id"),
+        @Index(name = "idx_security_alert_agent_created", columnList = "agent_id, created_at, id"),
+        @Index(name = "idx_security_alert_status_created", columnList = "alert_status, created_at, id"),
+        @Index(name = "idx_security_alert_correlation", columnList = "correlation_key, created_at")
+})
 public class SecurityAlert {
 
     @Id
@@ -62,12 +69,35 @@ public class SecurityAlert {
     @Column(name = "ignore_reason", columnDefinition = "TEXT")
     private String ignoreReason;
 
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    // Same value on every agent for the same finding; groups alerts into incidents
+    @Column(name = "correlation_key", length = 64)
+    private String correlationKey;
+
+    // Not stored; travels with the queued alert (and its journal line) to incident correlation
+    @Transient
+    private String itemKey;
+
+    @Column(name = "occurrence_count")
+    private Integer occurrenceCount;
+
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        if (lastSeenAt == null) {
+            lastSeenAt = createdAt;
+        }
+        if (occurrenceCount == null) {
+            occurrenceCount = 1;
+        }
         if (alertStatus == null) {
             alertStatus = "NEW";
         }
@@ -128,6 +158,21 @@ public class SecurityAlert {
     public String getIgnoreReason() { return ignoreReason; }
     public void setIgnoreReason(String ignoreReason) { this.ignoreReason = ignoreReason; }
 
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+
+    public String getCorrelationKey() { return correlationKey; }
+    public void setCorrelationKey(String correlationKey) { this.correlationKey = correlationKey; }
+
+    public String getItemKey() { return itemKey; }
+    public void setItemKey(String itemKey) { this.itemKey = itemKey; }
+
+    public Integer getOccurrenceCount() { return occurrenceCount; }
+    public void setOccurrenceCount(Integer occurrenceCount) { this.occurrenceCount = occurrenceCount; }
+
+    public LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(LocalDateTime lastSeenAt) { this.lastSeenAt = lastSeenAt; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
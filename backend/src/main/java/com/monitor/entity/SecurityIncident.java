@@ -0,0 +1,107 @@
+package com.monitor.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "security_incident", indexes = {
+        @Index(name = "idx_security_incident_key", columnList = "correlation_key, incident_status"),
+        @Index(name = "idx_security_incident_status_seen", columnList = "incident_status, last_seen_at")
+})
+public class SecurityIncident {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "correlation_key", nullable = false, length = 64)
+    private String correlationKey;
+
+    @Column(name = "alert_type", length = 50)
+    private String alertType;
+
+    @Column(name = "anomaly_type", length = 50)
+    private String anomalyType;
+
+    @Column(name = "item_key", length = 255)
+    private String itemKey;
+
+    @Column(name = "incident_title", nullable = false, length = 200)
+    private String incidentTitle;
+
+    @Column(name = "incident_level", length = 20)
+    private String incidentLevel;
+
+    // OPEN while members keep arriving, CLOSED after a quiet period or by hand
+    @Column(name = "incident_status", length = 20)
+    private String incidentStatus;
+
+    @Column(name = "member_count")
+    private Integer memberCount;
+
+    @Column(name = "agent_count")
+    private Integer agentCount;
+
+    @Column(name = "first_seen_at")
+    private LocalDateTime firstSeenAt;
+
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (incidentStatus == null) {
+            incidentStatus = "OPEN";
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCorrelationKey() { return correlationKey; }
+    public void setCorrelationKey(String correlationKey) { this.correlationKey = correlationKey; }
+
+    public String getAlertType() { return alertType; }
+    public void setAlertType(String alertType) { this.alertType = alertType; }
+
+    public String getAnomalyType() { return anomalyType; }
+    public void setAnomalyType(String anomalyType) { this.anomalyType = anomalyType; }
+
+    public String getItemKey() { return itemKey; }
+    public void setItemKey(String itemKey) { this.itemKey = itemKey; }
+
+    public String getIncidentTitle() { return incidentTitle; }
+    public void setIncidentTitle(String incidentTitle) { this.incidentTitle = incidentTitle; }
+
+    public String getIncidentLevel() { return incidentLevel; }
+    public void setIncidentLevel(String incidentLevel) { this.incidentLevel = incidentLevel; }
+
+    public String getIncidentStatus() { return incidentStatus; }
+    public void setIncidentStatus(String incidentStatus) { this.incidentStatus = incidentStatus; }
+
+    public Integer getMemberCount() { return memberCount; }
+    public void setMemberCount(Integer memberCount) { this.memberCount = memberCount; }
+
+    public Integer getAgentCount() { return agentCount; }
+    public void setAgentCount(Integer agentCount) { this.agentCount = agentCount; }
+
+    public LocalDateTime getFirstSeenAt() { return firstSeenAt; }
+    public void setFirstSeenAt(LocalDateTime firstSeenAt) { this.firstSeenAt = firstSeenAt; }
+
+    public LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(LocalDateTime lastSeenAt) { this.lastSeenAt = lastSeenAt; }
+
+    public LocalDateTime getClosedAt() { return closedAt; }
+    public void setClosedAt(LocalDateTime closedAt) { this.closedAt = closedAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
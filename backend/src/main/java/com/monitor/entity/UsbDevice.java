@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "usb_devices")
+@Table(name = "usb_devices", indexes = @Index(name = "idx_usb_devices_agent", columnList = "agent_id"))
 public class UsbDevice {
 
     @Id
@@ -40,7 +40,9 @@ public class UsbDevice {
 
     @PrePersist
     protected void onCreate() {
-        collectedAt = LocalDateTime.now();
+        if (collectedAt == null) {
+            collectedAt = LocalDateTime.now();
+        }
     }
 
     // Getters and Setters
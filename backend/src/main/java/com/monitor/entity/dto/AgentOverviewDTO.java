@@ -0,0 +1,61 @@
+package com.monitor.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.monitor.entity.Agent;
+import com.monitor.entity.CurrentPortInfo;
+import com.monitor.entity.CurrentProcessInfo;
+import com.monitor.entity.HostInfo;
+import com.monitor.entity.InstalledSoftware;
+import com.monitor.entity.LoginLog;
+import com.monitor.entity.UsbDevice;
+
+import java.util.List;
+import java.util.Map;
+
+// Sections not requested through fields= stay null and are left out of the response
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AgentOverviewDTO {
+    private Agent agent;
+    private List<CurrentProcessInfo> processes;
+    private List<CurrentPortInfo> ports;
+    private HostInfo hostInfo;
+    private List<InstalledSoftware> installedSoftware;
+    private List<UsbDevice> usbDevices;
+    private List<LoginLog> loginLogs;
+    private List<AlertSummaryDTO> alerts;
+    private Map<String, Long> alertCounts;
+    // section -> reason, for sections that failed or timed out; the others are still returned
+    private Map<String, String> errors;
+
+    public AgentOverviewDTO() {}
+
+    public Agent getAgent() { return agent; }
+    public void setAgent(Agent agent) { this.agent = agent; }
+
+    public List<CurrentProcessInfo> getProcesses() { return processes; }
+    public void setProcesses(List<CurrentProcessInfo> processes) { this.processes = processes; }
+
+    public List<CurrentPortInfo> getPorts() { return ports; }
+    public void setPorts(List<CurrentPortInfo> ports) { this.ports = ports; }
+
+    public HostInfo getHostInfo() { return hostInfo; }
+    public void setHostInfo(HostInfo hostInfo) { this.hostInfo = hostInfo; }
+
+    public List<InstalledSoftware> getInstalledSoftware() { return installedSoftware; }
+    public void setInstalledSoftware(List<InstalledSoftware> installedSoftware) { this.installedSoftware = installedSoftware; }
+
+    public List<UsbDevice> getUsbDevices() { return usbDevices; }
+    public void setUsbDevices(List<UsbDevice> usbDevices) { this.usbDevices = usbDevices; }
+
+    public List<LoginLog> getLoginLogs() { return loginLogs; }
+    public void setLoginLogs(List<LoginLog> loginLogs) { this.loginLogs = loginLogs; }
+
+    public List<AlertSummaryDTO> getAlerts() { return alerts; }
+    public void setAlerts(List<AlertSummaryDTO> alerts) { this.alerts = alerts; }
+
+    public Map<String, Long> getAlertCounts() { return alertCounts; }
+    public void setAlertCounts(Map<String, Long> alertCounts) { this.alertCounts = alertCounts; }
+
+    public Map<String, String> getErrors() { return errors; }
+    public void setErrors(Map<String, String> errors) { this.errors = errors; }
+}
@@ -0,0 +1,56 @@
+package com.monitor.entity.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AgentSearchRequest {
+    // Lists are OR-ed within themselves and AND-ed with the other filters; empty means no filter
+    private List<String> statuses;
+    private List<String> platforms;
+    private String namePrefix;
+    // A single IPv4/IPv6 address, or an IPv4 CIDR block such as 10.1.0.0/16
+    private String ip;
+    // Range on the last heartbeat or upload (updated_at)
+    private LocalDateTime lastSeenFrom;
+    private LocalDateTime lastSeenTo;
+
+    // name, lastSeen or createdAt; order is asc or desc
+    private String sort = "name";
+    private String order = "asc";
+
+    // Opaque position returned as nextCursor by the previous page
+    private String cursor;
+    private int limit = 50;
+
+    public AgentSearchRequest() {}
+
+    public List<String> getStatuses() { return statuses; }
+    public void setStatuses(List<String> statuses) { this.statuses = statuses; }
+
+    public List<String> getPlatforms() { return platforms; }
+    public void setPlatforms(List<String> platforms) { this.platforms = platforms; }
+
+    public String getNamePrefix() { return namePrefix; }
+    public void setNamePrefix(String namePrefix) { this.namePrefix = namePrefix; }
+
+    public String getIp() { return ip; }
+    public void setIp(String ip) { this.ip = ip; }
+
+    public LocalDateTime getLastSeenFrom() { return lastSeenFrom; }
+    public void setLastSeenFrom(LocalDateTime lastSeenFrom) { this.lastSeenFrom = lastSeenFrom; }
+
+    public LocalDateTime getLastSeenTo() { return lastSeenTo; }
+    public void setLastSeenTo(LocalDateTime lastSeenTo) { this.lastSeenTo = lastSeenTo; }
+
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+
+    public String getOrder() { return order; }
+    public void setOrder(String order) { this.order = order; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
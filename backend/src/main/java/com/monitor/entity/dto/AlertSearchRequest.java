@@ -0,0 +1,49 @@
+package com.monitor.entity.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AlertSearchRequest {
+    // Each list is OR-ed within itself and AND-ed with the others; empty means no filter
+    private List<String> agentIds;
+    private List<String> statuses;
+    private List<String> levels;
+    private List<String> types;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    // Members of one incident
+    private String correlationKey;
+
+    // Opaque position returned as nextCursor by the previous page
+    private String cursor;
+    private int limit = 50;
+
+    public AlertSearchRequest() {}
+
+    public List<String> getAgentIds() { return agentIds; }
+    public void setAgentIds(List<String> agentIds) { this.agentIds = agentIds; }
+
+    public List<String> getStatuses() { return statuses; }
+    public void setStatuses(List<String> statuses) { this.statuses = statuses; }
+
+    public List<String> getLevels() { return levels; }
+    public void setLevels(List<String> levels) { this.levels = levels; }
+
+    public List<String> getTypes() { return types; }
+    public void setTypes(List<String> types) { this.types = types; }
+
+    public String getCorrelationKey() { return correlationKey; }
+    public void setCorrelationKey(String correlationKey) { this.correlationKey = correlationKey; }
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
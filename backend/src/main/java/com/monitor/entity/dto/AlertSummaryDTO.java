@@ -0,0 +1,49 @@
+package com.monitor.entity.dto;
+
+import java.time.LocalDateTime;
+
+// List row for alert search: everything except alert_content and the JSON item columns
+public class AlertSummaryDTO {
+    private Long id;
+    private String agentId;
+    private String alertType;
+    private String alertLevel;
+    private String alertTitle;
+    private String anomalyType;
+    private String alertStatus;
+    private Integer occurrenceCount;
+    private LocalDateTime lastSeenAt;
+    private LocalDateTime createdAt;
+
+    public AlertSummaryDTO() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getAgentId() { return agentId; }
+    public void setAgentId(String agentId) { this.agentId = agentId; }
+
+    public String getAlertType() { return alertType; }
+    public void setAlertType(String alertType) { this.alertType = alertType; }
+
+    public String getAlertLevel() { return alertLevel; }
+    public void setAlertLevel(String alertLevel) { this.alertLevel = alertLevel; }
+
+    public String getAlertTitle() { return alertTitle; }
+    public void setAlertTitle(String alertTitle) { this.alertTitle = alertTitle; }
+
+    public String getAnomalyType() { return anomalyType; }
+    public void setAnomalyType(String anomalyType) { this.anomalyType = anomalyType; }
+
+    public String getAlertStatus() { return alertStatus; }
+    public void setAlertStatus(String alertStatus) { this.alertStatus = alertStatus; }
+
+    public Integer getOccurrenceCount() { return occurrenceCount; }
+    public void setOccurrenceCount(Integer occurrenceCount) { this.occurrenceCount = occurrenceCount; }
+
+    public LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(LocalDateTime lastSeenAt) { this.lastSeenAt = lastSeenAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,38 @@
+package com.monitor.entity.dto;
+
+import java.util.List;
+
+public class BulkBaselineRequest {
+    // Explicit targets; when empty the filter fields select agents instead
+    private List<String> agentIds;
+    private String platform;
+    private String status;
+    private String keyword;
+
+    private String sourceAgentId;
+    private String mode;
+    private Integer days;
+
+    public BulkBaselineRequest() {}
+
+    public List<String> getAgentIds() { return agentIds; }
+    public void setAgentIds(List<String> agentIds) { this.agentIds = agentIds; }
+
+    public String getPlatform() { return platform; }
+    public void setPlatform(String platform) { this.platform = platform; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getKeyword() { return keyword; }
+    public void setKeyword(String keyword) { this.keyword = keyword; }
+
+    public String getSourceAgentId() { return sourceAgentId; }
+    public void setSourceAgentId(String sourceAgentId) { this.sourceAgentId = sourceAgentId; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public Integer getDays() { return days; }
+    public void setDays(Integer days) { this.days = days; }
+}
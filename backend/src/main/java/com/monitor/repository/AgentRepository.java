@@ -1,13 +1,53 @@
 package com.monitor.repository;
 
 import com.monitor.entity.Agent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AgentRepository extends JpaRepository<Agent, String> {
     List<Agent> findByStatus(String status);
     long countByStatus(String status);
+    boolean existsByIdAndStatus(String id, String status);
+    List<Agent> findByStatusNot(String status);
+
+    // Share-locks the row until the caller's transaction ends, so the agent cannot be marked deleted
+    // (which is what starts its purge) while the caller writes rows for it
+    @Query(value = "SELECT status FROM agents WHERE id = :id LOCK IN SHARE MODE", nativeQuery = true)
+    Optional<String> findStatusForShare(@Param("id") String id);
+    List<Agent> findByStatusNotOrderByUpdatedAtDesc(String status, Pageable pageable);
+
+    @Query("SELECT a.id FROM Agent a WHERE a.id IN :ids AND a.status <> :deleted")
+    List<String> findIdsByIdInAndStatusNot(@Param("ids") Collection<String> ids, @Param("deleted") String deleted);
+
+    // Bulk target selection; status is compared lower-cased and keyword is a lower-cased LIKE pattern with '!' as escape
+    @Query("SELECT a.id FROM Agent a WHERE a.status <> :deleted"
+            + " AND (:platform IS NULL OR LOWER(a.platform) = :platform)"
+            + " AND (:status IS NULL OR LOWER(a.status) = :status)"
+            + " AND (:keyword IS NULL OR LOWER(a.name) LIKE :keyword ESCAPE '!'"
+            + " OR LOWER(a.hostname) LIKE :keyword ESCAPE '!' OR LOWER(a.ipAddress) LIKE :keyword ESCAPE '!')")
+    List<String> findIdsForBulk(@Param("deleted") String deleted, @Param("platform") String platform,
+                                @Param("status") String status, @Param("keyword") String keyword);
+
+    @Query("SELECT a.status, COUNT(a) FROM Agent a GROUP BY a.status")
+    List<Object[]> countGroupByStatus();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Agent a SET a.status = :status, a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :id")
+    int updateStatus(@Param("id") String id, @Param("status") String status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Agent a WHERE a.id = :id AND a.status = :status")
+    int deleteByIdAndStatus(@Param("id") String id, @Param("status") String status);
 }
@@ -3,7 +3,12 @@ package com.monitor.repository;
 import com.monitor.entity.BaselineConfig;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +19,8 @@ public interface BaselineConfigRepository extends JpaRepository<BaselineConfig,
 
     List<BaselineConfig> findByAgentId(String agentId);
 
+    List<BaselineConfig> findByBaselineTypeAndAgentIdIn(String baselineType, Collection<String> agentIds);
+
     List<BaselineConfig> findByAgentIdAndStatus(String agentId, String status);
 
     List<BaselineConfig> findByStatus(String status);
@@ -21,4 +28,9 @@ public interface BaselineConfigRepository extends JpaRepository<BaselineConfig,
     boolean existsByAgentIdAndBaselineType(String agentId, String baselineType);
 
     void deleteByAgentIdAndBaselineType(String agentId, String baselineType);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM baseline_config WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
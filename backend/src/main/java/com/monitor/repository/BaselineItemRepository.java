@@ -2,8 +2,13 @@ package com.monitor.repository;
 
 import com.monitor.entity.BaselineItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,5 +18,26 @@ public interface BaselineItemRepository extends JpaRepository<BaselineItem, Long
 
     List<BaselineItem> findBySnapshotIdAndItemKey(Long snapshotId, String itemKey);
 
-    void deleteBySnapshotId(Long snapshotId);
+    List<BaselineItem> findByItemSetId(Long itemSetId);
+
+    List<BaselineItem> findByItemSetIdIn(Collection<Long> itemSetIds);
+
+    // Only items owned by a legacy snapshot; shared set items are removed once no snapshot references the set
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BaselineItem i WHERE i.snapshotId = :snapshotId AND i.itemSetId IS NULL")
+    int deleteBySnapshotId(@Param("snapshotId") Long snapshotId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM baseline_item WHERE item_set_id IS NULL AND snapshot_id IN " +
+            "(SELECT id FROM baseline_snapshot WHERE agent_id = :agentId) LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
+
+    // Items of the given sets whose set row is already gone
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM baseline_item WHERE item_set_id IN :setIds AND NOT EXISTS " +
+            "(SELECT 1 FROM baseline_item_set s WHERE s.id = baseline_item.item_set_id) LIMIT :limit", nativeQuery = true)
+    int deleteBatchOfDeletedSets(@Param("setIds") Collection<Long> setIds, @Param("limit") int limit);
 }
@@ -0,0 +1,50 @@
+package com.monitor.repository;
+
+import com.monitor.entity.BaselineItemSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BaselineItemSetRepository extends JpaRepository<BaselineItemSet, Long> {
+
+    Optional<BaselineItemSet> findBySetHash(String setHash);
+
+    // A set is unreferenced once no snapshot uses it and no delta set is built on top of it. Sets used
+    // after the cutoff are skipped: a snapshot referencing them may not have committed yet.
+    @Query(value = "SELECT s.id FROM baseline_item_set s WHERE (s.last_used_at IS NULL OR s.last_used_at < :cutoff) " +
+            "AND NOT EXISTS (SELECT 1 FROM baseline_snapshot b WHERE b.item_set_id = s.id) AND NOT EXISTS " +
+            "(SELECT 1 FROM baseline_item_set c WHERE c.parent_set_id = s.id) LIMIT :limit", nativeQuery = true)
+    List<Long> findOrphanIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Query(value = "SELECT s.id FROM baseline_item_set s WHERE s.id IN :ids " +
+            "AND (s.last_used_at IS NULL OR s.last_used_at < :cutoff) AND NOT EXISTS " +
+            "(SELECT 1 FROM baseline_snapshot b WHERE b.item_set_id = s.id) AND NOT EXISTS " +
+            "(SELECT 1 FROM baseline_item_set c WHERE c.parent_set_id = s.id)", nativeQuery = true)
+    List<Long> findOrphanIdsIn(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    // Holds the row lock until the caller's transaction commits, so a concurrent sweep waits and then skips the set
+    @Modifying
+    @Transactional
+    @Query("UPDATE BaselineItemSet s SET s.lastUsedAt = :now WHERE s.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Query("SELECT s.parentSetId FROM BaselineItemSet s WHERE s.id IN :ids AND s.parentSetId IS NOT NULL")
+    List<Long> findParentIds(@Param("ids") Collection<Long> ids);
+
+    // Re-checks the orphan conditions on the row itself, so a set touched after it was selected survives
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM baseline_item_set WHERE id IN :ids " +
+            "AND (last_used_at IS NULL OR last_used_at < :cutoff) AND NOT EXISTS " +
+            "(SELECT 1 FROM baseline_snapshot b WHERE b.item_set_id = baseline_item_set.id)", nativeQuery = true)
+    int deleteUnusedByIdIn(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,6 +1,7 @@
 package com.monitor.repository;
 
 import com.monitor.entity.BaselineSnapshot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -18,5 +19,7 @@ public interface BaselineSnapshotRepository extends JpaRepository<BaselineSnapsh
 
     List<BaselineSnapshot> findByAgentId(String agentId);
 
+    List<BaselineSnapshot> findByAgentId(String agentId, Pageable pageable);
+
     void deleteByAgentIdAndBaselineType(String agentId, String baselineType);
 }
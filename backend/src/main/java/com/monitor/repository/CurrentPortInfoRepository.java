@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.CurrentPortInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -10,4 +14,16 @@ import java.util.List;
 public interface CurrentPortInfoRepository extends JpaRepository<CurrentPortInfo, Long> {
     List<CurrentPortInfo> findByAgentIdOrderByCollectedAtDesc(String agentId);
     void deleteByAgentId(String agentId);
+
+    @Query("SELECT DISTINCT c.agentId, c.port, c.protocol FROM CurrentPortInfo c")
+    List<Object[]> findDistinctAgentIdPortAndProtocol();
+
+    @Modifying
+    @Query("DELETE FROM CurrentPortInfo e WHERE e.agentId = :agentId")
+    int deleteAllByAgentId(@Param("agentId") String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM current_ports WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
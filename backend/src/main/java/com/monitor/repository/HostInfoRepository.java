@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.HostInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,4 +18,13 @@ public interface HostInfoRepository extends JpaRepository<HostInfo, Long> {
     HostInfo findTopByAgentIdOrderByCollectedAtDesc(String agentId);
 
     void deleteByAgentId(String agentId);
+
+    @Modifying
+    @Query("DELETE FROM HostInfo e WHERE e.agentId = :agentId")
+    int deleteAllByAgentId(@Param("agentId") String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM host_info WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.InstalledSoftware;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -16,4 +20,16 @@ public interface InstalledSoftwareRepository extends JpaRepository<InstalledSoft
     long countByAgentId(String agentId);
 
     void deleteByAgentId(String agentId);
+
+    @Query("SELECT DISTINCT s.agentId, s.softwareName, s.version FROM InstalledSoftware s")
+    List<Object[]> findDistinctAgentIdNameAndVersion();
+
+    @Modifying
+    @Query("DELETE FROM InstalledSoftware e WHERE e.agentId = :agentId")
+    int deleteAllByAgentId(@Param("agentId") String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM installed_software WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
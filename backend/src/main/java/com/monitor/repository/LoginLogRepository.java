@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.LoginLog;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -16,4 +20,9 @@ public interface LoginLogRepository extends JpaRepository<LoginLog, Long> {
     List<LoginLog> findByAgentIdAndLoginStatus(String agentId, String loginStatus);
 
     void deleteByAgentId(String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM login_logs WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
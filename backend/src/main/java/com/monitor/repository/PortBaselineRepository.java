@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.PortBaseline;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +16,9 @@ public interface PortBaselineRepository extends JpaRepository<PortBaseline, Long
     List<PortBaseline> findByAgentId(String agentId);
     Optional<PortBaseline> findByAgentIdAndPortAndProtocol(String agentId, Integer port, String protocol);
     void deleteByAgentId(String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM port_baseline WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,6 +25,11 @@ public interface PortHistoryRepository extends JpaRepository<PortHistory, Long>
     @Query("SELECT ph FROM PortHistory ph WHERE ph.agentId = :agentId AND ph.collectionRound IN :rounds")
     List<PortHistory> findByAgentIdAndCollectionRoundIn(@Param("agentId") String agentId, @Param("rounds") List<Integer> rounds);
 
+    // One row per distinct (port, protocol) in the window: port, protocol, status, process name, samples, first seen, last seen
+    @Query("SELECT ph.port, ph.protocol, MAX(ph.status), MAX(ph.processName), COUNT(ph), MIN(ph.collectedAt), MAX(ph.collectedAt) " +
+           "FROM PortHistory ph WHERE ph.agentId = :agentId AND ph.collectedAt > :since GROUP BY ph.port, ph.protocol")
+    List<Object[]> aggregateItemsSince(@Param("agentId") String agentId, @Param("since") LocalDateTime since);
+
     @Query("SELECT DISTINCT ph.collectionRound FROM PortHistory ph WHERE ph.agentId = :agentId ORDER BY ph.collectionRound DESC LIMIT :limit")
     List<Integer> findRecentRounds(@Param("agentId") String agentId, @Param("limit") int limit);
 
@@ -34,4 +40,9 @@ public interface PortHistoryRepository extends JpaRepository<PortHistory, Long>
     @Modifying
     @Query("DELETE FROM PortHistory ph WHERE ph.collectedAt < :before")
     int deleteAllByCollectedAtBefore(@Param("before") java.time.LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM port_history WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.PortInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,4 +15,9 @@ public interface PortInfoRepository extends JpaRepository<PortInfo, Long> {
     List<PortInfo> findByAgentIdOrderByCollectedAtDesc(String agentId);
     List<PortInfo> findByAgentId(String agentId);
     void deleteByAgentId(String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM ports WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.ProcessBaseline;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +16,9 @@ public interface ProcessBaselineRepository extends JpaRepository<ProcessBaseline
     List<ProcessBaseline> findByAgentId(String agentId);
     Optional<ProcessBaseline> findByAgentIdAndProcessName(String agentId, String processName);
     void deleteByAgentId(String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM process_baseline WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -20,6 +21,11 @@ public interface ProcessHistoryRepository extends JpaRepository<ProcessHistory,
     @Query("SELECT ph FROM ProcessHistory ph WHERE ph.agentId = :agentId AND ph.collectionRound IN :rounds")
     List<ProcessHistory> findByAgentIdAndCollectionRoundIn(@Param("agentId") String agentId, @Param("rounds") List<Integer> rounds);
 
+    // One row per distinct (pid, name) in the window: pid, name, avg cpu, avg memory, samples, first seen, last seen
+    @Query("SELECT ph.pid, ph.name, AVG(ph.cpuPercent), AVG(ph.memoryPercent), COUNT(ph), MIN(ph.collectedAt), MAX(ph.collectedAt) " +
+           "FROM ProcessHistory ph WHERE ph.agentId = :agentId AND ph.collectedAt > :since GROUP BY ph.pid, ph.name")
+    List<Object[]> aggregateItemsSince(@Param("agentId") String agentId, @Param("since") java.time.LocalDateTime since);
+
     @Query("SELECT DISTINCT ph.collectionRound FROM ProcessHistory ph WHERE ph.agentId = :agentId ORDER BY ph.collectionRound DESC LIMIT :limit")
     List<Integer> findRecentRounds(@Param("agentId") String agentId, @Param("limit") int limit);
 
@@ -30,4 +36,9 @@ public interface ProcessHistoryRepository extends JpaRepository<ProcessHistory,
     @Modifying
     @Query("DELETE FROM ProcessHistory ph WHERE ph.collectedAt < :before")
     int deleteAllByCollectedAtBefore(@Param("before") java.time.LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM process_history WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
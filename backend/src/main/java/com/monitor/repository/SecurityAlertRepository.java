@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -44,5 +46,18 @@ public interface SecurityAlertRepository extends JpaRepository<SecurityAlert, Lo
     @Query("SELECT a FROM SecurityAlert a WHERE a.createdAt >= :since ORDER BY a.createdAt DESC")
     List<SecurityAlert> findRecentAlerts(@Param("since") LocalDateTime since);
 
+    @Query("SELECT a.alertStatus, a.alertLevel, a.alertType, a.agentId, COUNT(a) FROM SecurityAlert a " +
+           "GROUP BY a.alertStatus, a.alertLevel, a.alertType, a.agentId")
+    List<Object[]> countByDimensions();
+
+    @Query("SELECT a.agentId, a.fingerprint, a.id FROM SecurityAlert a WHERE a.fingerprint IS NOT NULL " +
+           "AND a.alertStatus IN ('NEW', 'ACKNOWLEDGED')")
+    List<Object[]> findOpenFingerprints();
+
     void deleteByAgentId(String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM security_alert WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
@@ -0,0 +1,18 @@
+package com.monitor.repository;
+
+import com.monitor.entity.SecurityIncident;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SecurityIncidentRepository extends JpaRepository<SecurityIncident, Long> {
+
+    List<SecurityIncident> findByIncidentStatus(String incidentStatus);
+
+    List<SecurityIncident> findByIncidentStatusOrderByLastSeenAtDesc(String incidentStatus, Pageable pageable);
+
+    List<SecurityIncident> findAllByOrderByLastSeenAtDesc(Pageable pageable);
+}
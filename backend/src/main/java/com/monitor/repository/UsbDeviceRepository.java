@@ -3,6 +3,10 @@ package com.monitor.repository;
 import com.monitor.entity.UsbDevice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,4 +18,16 @@ public interface UsbDeviceRepository extends JpaRepository<UsbDevice, Long> {
     List<UsbDevice> findByAgentIdAndDeviceType(String agentId, String deviceType);
 
     void deleteByAgentId(String agentId);
+
+    @Query("SELECT DISTINCT u.agentId, u.vendorId, u.productId FROM UsbDevice u")
+    List<Object[]> findDistinctAgentIdVendorAndProduct();
+
+    @Modifying
+    @Query("DELETE FROM UsbDevice e WHERE e.agentId = :agentId")
+    int deleteAllByAgentId(@Param("agentId") String agentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM usb_devices WHERE agent_id = :agentId LIMIT :limit", nativeQuery = true)
+    int deleteBatchByAgentId(@Param("agentId") String agentId, @Param("limit") int limit);
 }
@@ -0,0 +1,196 @@
+package com.monitor.service;
+
+import com.monitor.entity.Agent;
+import com.monitor.entity.dto.AgentOverviewDTO;
+import com.monitor.entity.dto.AlertSearchRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Service
+public class AgentOverviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentOverviewService.class);
+
+    public static final String AGENT = "agent";
+    public static final String PROCESSES = "processes";
+    public static final String PORTS = "ports";
+    public static final String HOST_INFO = "hostInfo";
+    public static final String INSTALLED_SOFTWARE = "installedSoftware";
+    public static final String USB_DEVICES = "usbDevices";
+    public static final String LOGIN_LOGS = "loginLogs";
+    public static final String ALERTS = "alerts";
+    public static final String ALERT_COUNTS = "alertCounts";
+
+    public static final Set<String> ALL_SECTIONS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(
+            AGENT, PROCESSES, PORTS, HOST_INFO, INSTALLED_SOFTWARE, USB_DEVICES, LOGIN_LOGS, ALERTS, ALERT_COUNTS)));
+
+    // Served together from one AgentState read
+    private static final Set<String> STATE_SECTIONS = Set.of(PROCESSES, PORTS, HOST_INFO, INSTALLED_SOFTWARE, USB_DEVICES);
+
+    private static final List<String> ALERT_STATUSES = List.of("NEW", "ACKNOWLEDGED", "RESOLVED", "IGNORED");
+
+    private final AgentService agentService;
+    private final AgentStateStore agentStateStore;
+    private final LoginLogService loginLogService;
+    private final AlertQueryService alertQueryService;
+    private final AlertCounterService counterService;
+    private final ExecutorService executor;
+
+    @Value("${monitor.overview.section-timeout-ms:2000}")
+    private long sectionTimeoutMs;
+
+    @Value("${monitor.overview.recent-alerts:50}")
+    private int recentAlerts;
+
+    public AgentOverviewService(AgentService agentService,
+                                AgentStateStore agentStateStore,
+                                LoginLogService loginLogService,
+                                AlertQueryService alertQueryService,
+                                AlertCounterService counterService,
+                                @Value("${monitor.overview.threads:8}") int threads,
+                                @Value("${monitor.overview.queue-capacity:256}") int queueCapacity) {
+        this.agentService = agentService;
+        this.agentStateStore = agentStateStore;
+        this.loginLogService = loginLogService;
+        this.alertQueryService = alertQueryService;
+        this.counterService = counterService;
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Bounded queue; when it is full a section is rejected and reported unavailable, so a burst of
+        // overview requests never runs sections on (and ties up) the request threads
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "agent-overview-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Empty when the agent does not exist or is deleted. Every section runs concurrently with its own
+    // timeout; a section that fails, times out or is turned away by a full executor is reported in
+    // errors and the rest of the overview is returned.
+    public Optional<AgentOverviewDTO> getOverview(String agentId, Collection<String> fields) {
+        Set<String> sections = resolveFields(fields);
+
+        CompletableFuture<Optional<Agent>> agentFuture = submit(() -> agentService.getAgent(agentId));
+        CompletableFuture<AgentStateStore.AgentState> stateFuture = sections.stream().anyMatch(STATE_SECTIONS::contains)
+                ? submit(() -> agentStateStore.getState(agentId)) : null;
+        CompletableFuture<?> loginLogsFuture = sections.contains(LOGIN_LOGS)
+                ? submit(() -> loginLogService.getLoginLogsHistory(agentId)) : null;
+        CompletableFuture<?> alertsFuture = sections.contains(ALERTS)
+                ? submit(() -> {
+                    AlertSearchRequest request = new AlertSearchRequest();
+                    request.setAgentIds(List.of(agentId));
+                    request.setLimit(recentAlerts);
+                    return alertQueryService.search(request).getItems();
+                }) : null;
+
+        AgentOverviewDTO overview = new AgentOverviewDTO();
+        Map<String, String> errors = new LinkedHashMap<>();
+
+        Optional<Agent> agent = await(AGENT, agentFuture, errors);
+        if (agent != null && agent.isEmpty()) {
+            return Optional.empty();
+        }
+        if (sections.contains(AGENT) && agent != null) {
+            overview.setAgent(agent.get());
+        }
+
+        if (stateFuture != null) {
+            AgentStateStore.AgentState state = await("state", stateFuture, errors);
+            if (state != null) {
+                if (sections.contains(PROCESSES)) overview.setProcesses(state.getProcesses());
+                if (sections.contains(PORTS)) overview.setPorts(state.getPorts());
+                if (sections.contains(HOST_INFO)) overview.setHostInfo(state.getHostInfo());
+                if (sections.contains(INSTALLED_SOFTWARE)) overview.setInstalledSoftware(state.getInstalledSoftware());
+                if (sections.contains(USB_DEVICES)) overview.setUsbDevices(state.getUsbDevices());
+            } else {
+                // report each requested section rather than the internal grouping
+                String reason = errors.remove("state");
+                STATE_SECTIONS.stream().filter(sections::contains).sorted().forEach(s -> errors.put(s, reason));
+            }
+        }
+        if (loginLogsFuture != null) {
+            overview.setLoginLogs(cast(await(LOGIN_LOGS, loginLogsFuture, errors)));
+        }
+        if (alertsFuture != null) {
+            overview.setAlerts(cast(await(ALERTS, alertsFuture, errors)));
+        }
+        if (sections.contains(ALERT_COUNTS)) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (String status : ALERT_STATUSES) {
+                counts.put(status, counterService.countByAgentAndStatus(agentId, status));
+            }
+            overview.setAlertCounts(counts);
+        }
+        if (!errors.isEmpty()) {
+            overview.setErrors(errors);
+        }
+        return Optional.of(overview);
+    }
+
+    private Set<String> resolveFields(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return ALL_SECTIONS;
+        }
+        Set<String> sections = new LinkedHashSet<>();
+        for (String field : fields) {
+            for (String part : field.split(",")) {
+                String name = part.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!ALL_SECTIONS.contains(name)) {
+                    throw new IllegalArgumentException("Unknown overview field: " + name + ", expected one of " + ALL_SECTIONS);
+                }
+                sections.add(name);
+            }
+        }
+        return sections.isEmpty() ? ALL_SECTIONS : sections;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor).orTimeout(sectionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Returns null and records the reason when the section did not complete normally
+    private <T> T await(String section, CompletableFuture<T> future, Map<String, String> errors) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException) {
+                errors.put(section, "unavailable, server busy");
+                logger.warn("Overview section {} rejected, executor queue is full", section);
+            } else if (cause instanceof TimeoutException) {
+                errors.put(section, "timed out after " + sectionTimeoutMs + " ms");
+                logger.warn("Overview section {} timed out after {} ms", section, sectionTimeoutMs);
+            } else {
+                errors.put(section, String.valueOf(cause.getMessage()));
+                logger.error("Overview section {} failed", section, cause);
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,213 @@
+package com.monitor.service;
+
+import com.monitor.entity.Agent;
+import com.monitor.entity.BaselineSnapshot;
+import com.monitor.repository.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+@Service
+public class AgentPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentPurgeService.class);
+
+    public static final String DELETED_STATUS = "deleted";
+
+    private final AgentRepository agentRepository;
+    private final BaselineSnapshotRepository baselineSnapshotRepository;
+    private final BaselineItemStore baselineItemStore;
+    private final Map<String, BiFunction<String, Integer, Integer>> purgeSteps = new LinkedHashMap<>();
+    private final Map<String, PurgeProgress> progressByAgent = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "agent-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${monitor.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    public AgentPurgeService(AgentRepository agentRepository,
+                             ProcessInfoRepository processInfoRepository,
+                             PortInfoRepository portInfoRepository,
+                             HostInfoRepository hostInfoRepository,
+                             InstalledSoftwareRepository installedSoftwareRepository,
+                             UsbDeviceRepository usbDeviceRepository,
+                             LoginLogRepository loginLogRepository,
+                             CurrentProcessInfoRepository currentProcessInfoRepository,
+                             CurrentPortInfoRepository currentPortInfoRepository,
+                             ProcessHistoryRepository processHistoryRepository,
+                             PortHistoryRepository portHistoryRepository,
+                             SecurityAlertRepository securityAlertRepository,
+                             ProcessBaselineRepository processBaselineRepository,
+                             PortBaselineRepository portBaselineRepository,
+                             BaselineItemRepository baselineItemRepository,
+                             BaselineSnapshotRepository baselineSnapshotRepository,
+                             BaselineConfigRepository baselineConfigRepository,
+                             BaselineItemStore baselineItemStore) {
+        this.agentRepository = agentRepository;
+        this.baselineSnapshotRepository = baselineSnapshotRepository;
+        this.baselineItemStore = baselineItemStore;
+
+        // baseline_item must go before baseline_snapshot since it is matched through the snapshot ids
+        purgeSteps.put("current_processes", currentProcessInfoRepository::deleteBatchByAgentId);
+        purgeSteps.put("current_ports", currentPortInfoRepository::deleteBatchByAgentId);
+        purgeSteps.put("processes", processInfoRepository::deleteBatchByAgentId);
+        purgeSteps.put("ports", portInfoRepository::deleteBatchByAgentId);
+        purgeSteps.put("host_info", hostInfoRepository::deleteBatchByAgentId);
+        purgeSteps.put("installed_software", installedSoftwareRepository::deleteBatchByAgentId);
+        purgeSteps.put("usb_devices", usbDeviceRepository::deleteBatchByAgentId);
+        purgeSteps.put("login_logs", loginLogRepository::deleteBatchByAgentId);
+        purgeSteps.put("process_history", processHistoryRepository::deleteBatchByAgentId);
+        purgeSteps.put("port_history", portHistoryRepository::deleteBatchByAgentId);
+        purgeSteps.put("security_alert", securityAlertRepository::deleteBatchByAgentId);
+        purgeSteps.put("process_baseline", processBaselineRepository::deleteBatchByAgentId);
+        purgeSteps.put("port_baseline", portBaselineRepository::deleteBatchByAgentId);
+        purgeSteps.put("baseline_item", baselineItemRepository::deleteBatchByAgentId);
+        purgeSteps.put("baseline_snapshot", this::purgeSnapshots);
+        purgeSteps.put("baseline_config", baselineConfigRepository::deleteBatchByAgentId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingPurges() {
+        List<Agent> pending = agentRepository.findByStatus(DELETED_STATUS);
+        for (Agent agent : pending) {
+            logger.info("Resuming interrupted purge for agent {}", agent.getId());
+            schedulePurge(agent.getId());
+        }
+    }
+
+    public PurgeProgress schedulePurge(String agentId) {
+        PurgeProgress existing = progressByAgent.get(agentId);
+        if (existing != null && !existing.isFinished()) {
+            return existing;
+        }
+        PurgeProgress progress = new PurgeProgress(agentId, purgeSteps.size());
+        progressByAgent.put(agentId, progress);
+        executor.submit(() -> purge(progress));
+        return progress;
+    }
+
+    public Optional<PurgeProgress> getProgress(String agentId) {
+        return Optional.ofNullable(progressByAgent.get(agentId));
+    }
+
+    private void purge(PurgeProgress progress) {
+        String agentId = progress.getAgentId();
+        progress.setState("RUNNING");
+        progress.setStartedAt(LocalDateTime.now());
+        logger.info("Purging data for agent {} in chunks of {}", agentId, chunkSize);
+
+        try {
+            for (Map.Entry<String, BiFunction<String, Integer, Integer>> step : purgeSteps.entrySet()) {
+                progress.setCurrentTable(step.getKey());
+                long tableDeleted = 0;
+                int deleted;
+                do {
+                    deleted = step.getValue().apply(agentId, chunkSize);
+                    tableDeleted += deleted;
+                    progress.addDeleted(step.getKey(), deleted);
+                } while (deleted >= chunkSize);
+                progress.completeTable();
+                logger.debug("Purged {} rows from {} for agent {}", tableDeleted, step.getKey(), agentId);
+            }
+
+            // registration and uploads are refused while the row is marked deleted, so this removes the last trace
+            agentRepository.deleteByIdAndStatus(agentId, DELETED_STATUS);
+            progress.setCurrentTable(null);
+            progress.setState("COMPLETED");
+            logger.info("Purge completed for agent {}: {} rows removed", agentId, progress.getTotalDeleted());
+        } catch (Exception e) {
+            progress.setState("FAILED");
+            progress.setError(e.getMessage());
+            logger.error("Purge failed for agent {} at table {}", agentId, progress.getCurrentTable(), e);
+        } finally {
+            progress.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    // Deletes a chunk of the agent's snapshots, then those of their item sets no other snapshot uses.
+    // Only this agent's sets are looked at; anything an interruption leaves behind goes to the sweep.
+    private int purgeSnapshots(String agentId, int limit) {
+        List<BaselineSnapshot> snapshots = baselineSnapshotRepository.findByAgentId(agentId, PageRequest.of(0, limit));
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        Set<Long> itemSetIds = new HashSet<>();
+        List<Long> ids = new ArrayList<>(snapshots.size());
+        for (BaselineSnapshot snapshot : snapshots) {
+            ids.add(snapshot.getId());
+            if (snapshot.getItemSetId() != null) {
+                itemSetIds.add(snapshot.getItemSetId());
+            }
+        }
+        baselineSnapshotRepository.deleteAllByIdInBatch(ids);
+        baselineItemStore.deleteIfOrphaned(itemSetIds, limit);
+        return snapshots.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static class PurgeProgress {
+        private final String agentId;
+        private final int totalTables;
+        private final Map<String, Long> deletedByTable = new ConcurrentHashMap<>();
+        private volatile String state = "PENDING";
+        private volatile String currentTable;
+        private volatile int completedTables;
+        private volatile long totalDeleted;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        public PurgeProgress(String agentId, int totalTables) {
+            this.agentId = agentId;
+            this.totalTables = totalTables;
+        }
+
+        void addDeleted(String table, int count) {
+            deletedByTable.merge(table, (long) count, Long::sum);
+            totalDeleted += count;
+        }
+
+        void completeTable() {
+            completedTables++;
+        }
+
+        boolean isFinished() {
+            return "COMPLETED".equals(state) || "FAILED".equals(state);
+        }
+
+        public String getAgentId() { return agentId; }
+        public int getTotalTables() { return totalTables; }
+        public int getCompletedTables() { return completedTables; }
+        public Map<String, Long> getDeletedByTable() { return deletedByTable; }
+        public long getTotalDeleted() { return totalDeleted; }
+        public String getState() { return state; }
+        public void setState(String state) { this.state = state; }
+        public String getCurrentTable() { return currentTable; }
+        public void setCurrentTable(String currentTable) { this.currentTable = currentTable; }
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    }
+}
@@ -0,0 +1,289 @@
+package com.monitor.service;
+
+import com.monitor.entity.dto.AgentSearchRequest;
+import com.monitor.entity.dto.AgentSummaryDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class AgentQueryService {
+
+    private static final String SUMMARY_COLUMNS =
+            "id, name, platform, hostname, ip_address, status, created_at, updated_at";
+
+    // API sort name -> column; each has an index ending in id for the keyset tie-break
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "name", "name",
+            "lastSeen", "updated_at",
+            "createdAt", "created_at");
+
+    private static final RowMapper<AgentSummaryDTO> SUMMARY_MAPPER = (rs, rowNum) -> {
+        AgentSummaryDTO dto = new AgentSummaryDTO();
+        dto.setId(rs.getString("id"));
+        dto.setName(rs.getString("name"));
+        dto.setPlatform(rs.getString("platform"));
+        dto.setHostname(rs.getString("hostname"));
+        dto.setIpAddress(rs.getString("ip_address"));
+        dto.setStatus(rs.getString("status"));
+        Timestamp created = rs.getTimestamp("created_at");
+        dto.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+        Timestamp updated = rs.getTimestamp("updated_at");
+        dto.setUpdatedAt(updated != null ? updated.toLocalDateTime() : null);
+        return dto;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AgentRegistry agentRegistry;
+
+    @Value("${monitor.agent-list.max-limit:500}")
+    private int maxLimit;
+
+    public AgentQueryService(NamedParameterJdbcTemplate jdbcTemplate, AgentRegistry agentRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.agentRegistry = agentRegistry;
+    }
+
+    // Keyset pagination on (sort column, id), the same way alerts are paged. Deleted agents waiting
+    // for their purge are never listed.
+    public AgentPage search(AgentSearchRequest request) {
+        int limit = Math.max(1, Math.min(request.getLimit(), maxLimit));
+        String sort = request.getSort() != null ? request.getSort() : "name";
+        String column = SORT_COLUMNS.get(sort);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown sort: " + sort + ", expected one of " + SORT_COLUMNS.keySet());
+        }
+        boolean descending = "desc".equalsIgnoreCase(request.getOrder());
+        List<String> statuses = clean(request.getStatuses(), true);
+        boolean statusOnly = isStatusOnly(request);
+
+        // Status filters are answered from the registry first: a status no agent has needs no query,
+        // and when status is the only filter the registry also supplies the total
+        Long total = null;
+        if (agentRegistry.isLoaded() && statusOnly) {
+            total = agentRegistry.count(statuses);
+        } else if (agentRegistry.isLoaded() && !statuses.isEmpty() && agentRegistry.count(statuses) == 0) {
+            total = 0L;
+        }
+        if (total != null && total == 0) {
+            return new AgentPage(Collections.emptyList(), null, false, total);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(SUMMARY_COLUMNS)
+                .append(" FROM agents WHERE status <> :deleted");
+        MapSqlParameterSource params = new MapSqlParameterSource("deleted", AgentPurgeService.DELETED_STATUS);
+        appendFilters(sql, params, request, statuses);
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            Cursor cursor = Cursor.decode(request.getCursor());
+            if (!cursor.sort.equals(sort) || cursor.descending != descending) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            String op = descending ? "<" : ">";
+            sql.append(" AND (").append(column).append(' ').append(op).append(" :cursorValue OR (")
+                    .append(column).append(" = :cursorValue AND id ").append(op).append(" :cursorId))");
+            params.addValue("cursorValue", "name".equals(sort) ? cursor.value : cursor.timestamp());
+            params.addValue("cursorId", cursor.id);
+        }
+        String direction = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(column).append(direction).append(", id").append(direction).append(" LIMIT :limit");
+        // one extra row tells whether another page exists without a COUNT
+        params.addValue("limit", limit + 1);
+
+        List<AgentSummaryDTO> rows = jdbcTemplate.query(sql.toString(), params, SUMMARY_MAPPER);
+        boolean hasMore = rows.size() > limit;
+        List<AgentSummaryDTO> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            AgentSummaryDTO last = items.get(items.size() - 1);
+            String value = "name".equals(sort) ? last.getName()
+                    : String.valueOf("lastSeen".equals(sort) ? last.getUpdatedAt() : last.getCreatedAt());
+            nextCursor = new Cursor(sort, descending, value, last.getId()).encode();
+        }
+        return new AgentPage(items, nextCursor, hasMore, statusOnly ? total : null);
+    }
+
+    private void appendFilters(StringBuilder sql, MapSqlParameterSource params, AgentSearchRequest request,
+                               List<String> statuses) {
+        if (!statuses.isEmpty()) {
+            sql.append(" AND status IN (:statuses)");
+            params.addValue("statuses", statuses);
+        }
+        List<String> platforms = clean(request.getPlatforms(), false);
+        if (!platforms.isEmpty()) {
+            sql.append(" AND platform IN (:platforms)");
+            params.addValue("platforms", platforms);
+        }
+        if (request.getNamePrefix() != null && !request.getNamePrefix().isBlank()) {
+            // a prefix match keeps the name index usable
+            sql.append(" AND name LIKE :namePrefix");
+            params.addValue("namePrefix", escapeLike(request.getNamePrefix().trim()) + "%");
+        }
+        if (request.getIp() != null && !request.getIp().isBlank()) {
+            appendIpFilter(sql, params, request.getIp().trim());
+        }
+        if (request.getLastSeenFrom() != null) {
+            sql.append(" AND updated_at >= :lastSeenFrom");
+            params.addValue("lastSeenFrom", Timestamp.valueOf(request.getLastSeenFrom()));
+        }
+        if (request.getLastSeenTo() != null) {
+            sql.append(" AND updated_at < :lastSeenTo");
+            params.addValue("lastSeenTo", Timestamp.valueOf(request.getLastSeenTo()));
+        }
+    }
+
+    // A CIDR block is a range on ip_number and an IPv4 address a point on it; anything else matches the text
+    private void appendIpFilter(StringBuilder sql, MapSqlParameterSource params, String ip) {
+        int slash = ip.indexOf('/');
+        if (slash < 0) {
+            Long number = ipv4ToNumber(ip);
+            if (number != null) {
+                sql.append(" AND ip_number = :ipNumber");
+                params.addValue("ipNumber", number);
+                return;
+            }
+            sql.append(" AND ip_address = :ip");
+            params.addValue("ip", ip);
+            return;
+        }
+        Long base = ipv4ToNumber(ip.substring(0, slash));
+        int prefix;
+        try {
+            prefix = Integer.parseInt(ip.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            prefix = -1;
+        }
+        if (base == null || prefix < 0 || prefix > 32) {
+            throw new IllegalArgumentException("Invalid IPv4 CIDR block: " + ip);
+        }
+        long mask = prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        long low = base & mask;
+        sql.append(" AND ip_number BETWEEN :ipLow AND :ipHigh");
+        params.addValue("ipLow", low);
+        params.addValue("ipHigh", low | (~mask & 0xFFFFFFFFL));
+    }
+
+    // Dotted-quad IPv4 as an unsigned 32-bit number; null for anything else
+    public static Long ipv4ToNumber(String address) {
+        if (address == null) {
+            return null;
+        }
+        String[] parts = address.trim().split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        long value = 0;
+        for (String part : parts) {
+            if (part.isEmpty() || part.length() > 3 || !part.chars().allMatch(Character::isDigit)) {
+                return null;
+            }
+            int octet = Integer.parseInt(part);
+            if (octet > 255) {
+                return null;
+            }
+            value = (value << 8) | octet;
+        }
+        return value;
+    }
+
+    private static boolean isStatusOnly(AgentSearchRequest request) {
+        return clean(request.getPlatforms(), false).isEmpty()
+                && (request.getNamePrefix() == null || request.getNamePrefix().isBlank())
+                && (request.getIp() == null || request.getIp().isBlank())
+                && request.getLastSeenFrom() == null
+                && request.getLastSeenTo() == null;
+    }
+
+    private static List<String> clean(List<String> values, boolean lowerCase) {
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return values.stream()
+                .flatMap(v -> Arrays.stream(v.split(",")))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .map(v -> lowerCase ? v.toLowerCase(Locale.ROOT) : v)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static class AgentPage {
+        private final List<AgentSummaryDTO> items;
+        private final String nextCursor;
+        private final boolean hasMore;
+        // Only known when status is the sole filter; null otherwise
+        private final Long total;
+
+        public AgentPage(List<AgentSummaryDTO> items, String nextCursor, boolean hasMore, Long total) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+            this.total = total;
+        }
+
+        public List<AgentSummaryDTO> getItems() { return items; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean isHasMore() { return hasMore; }
+        public Long getTotal() { return total; }
+    }
+
+    // sort, order, id and sort value, each base64url encoded so names may contain any character
+    private static class Cursor {
+        private final String sort;
+        private final boolean descending;
+        private final String value;
+        private final String id;
+
+        Cursor(String sort, boolean descending, String value, String id) {
+            this.sort = sort;
+            this.descending = descending;
+            this.value = value;
+            this.id = id;
+        }
+
+        Timestamp timestamp() {
+            try {
+                return Timestamp.valueOf(LocalDateTime.parse(value));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor value: " + value);
+            }
+        }
+
+        String encode() {
+            return String.join(".", encodePart(sort), encodePart(descending ? "desc" : "asc"),
+                    encodePart(id), encodePart(value));
+        }
+
+        static Cursor decode(String raw) {
+            try {
+                String[] parts = raw.split("\\.", -1);
+                if (parts.length != 4) {
+                    throw new IllegalArgumentException();
+                }
+                return new Cursor(decodePart(parts[0]), "desc".equals(decodePart(parts[1])),
+                        decodePart(parts[3]), decodePart(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + raw);
+            }
+        }
+
+        private static String encodePart(String value) {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static String decodePart(String value) {
+            return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        }
+    }
+}
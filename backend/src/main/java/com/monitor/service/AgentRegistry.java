@@ -0,0 +1,85 @@
+package com.monitor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Status of every live agent, kept in memory so status counts and status-filtered lists
+// don't have to ask the agents table. Deleted agents are dropped as soon as they are marked.
+@Service
+public class AgentRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentRegistry.class);
+
+    private final Map<String, String> statuses = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean loaded;
+
+    public AgentRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Live updates that raced the load win over the loaded rows. Rows written before ip_number
+    // existed get it filled in here, so CIDR filters see them.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> backfill = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, status, ip_address, ip_number FROM agents", rs -> {
+            String id = rs.getString("id");
+            String status = rs.getString("status");
+            if (status != null && !AgentPurgeService.DELETED_STATUS.equalsIgnoreCase(status)) {
+                statuses.putIfAbsent(id, normalize(status));
+            }
+            rs.getLong("ip_number");
+            if (rs.wasNull()) {
+                Long ipNumber = AgentQueryService.ipv4ToNumber(rs.getString("ip_address"));
+                if (ipNumber != null) {
+                    backfill.add(new Object[]{ipNumber, id});
+                }
+            }
+        });
+        if (!backfill.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE agents SET ip_number = ? WHERE id = ?", backfill);
+        }
+        loaded = true;
+        logger.info("Agent registry loaded {} agents, backfilled {} IP numbers", statuses.size(), backfill.size());
+    }
+
+    public void update(String agentId, String status) {
+        if (status == null || AgentPurgeService.DELETED_STATUS.equalsIgnoreCase(status)) {
+            statuses.remove(agentId);
+        } else {
+            statuses.put(agentId, normalize(status));
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Agents whose status is any of the given ones; all live agents when the set is empty
+    public long count(Collection<String> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return statuses.size();
+        }
+        Set<String> normalized = new HashSet<>();
+        wanted.forEach(s -> normalized.add(normalize(s)));
+        return statuses.values().stream().filter(normalized::contains).count();
+    }
+
+    public Map<String, Long> countByStatus() {
+        Map<String, Long> counts = new TreeMap<>();
+        statuses.values().forEach(s -> counts.merge(s, 1L, Long::sum));
+        return counts;
+    }
+
+    private static String normalize(String status) {
+        return status.toLowerCase(Locale.ROOT);
+    }
+}
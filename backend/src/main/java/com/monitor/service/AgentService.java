@@ -6,10 +6,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -18,45 +23,48 @@ public class AgentService {
     private static final Logger logger = LoggerFactory.getLogger(AgentService.class);
 
     private final AgentRepository agentRepository;
-    private final ProcessInfoRepository processInfoRepository;
-    private final PortInfoRepository portInfoRepository;
-    private final HostInfoRepository hostInfoRepository;
-    private final InstalledSoftwareRepository installedSoftwareRepository;
-    private final UsbDeviceRepository usbDeviceRepository;
     private final LoginLogRepository loginLogRepository;
     private final AnomalyDetectionService anomalyDetectionService;
     private final CollectionRoundService collectionRoundService;
-    private final CurrentProcessInfoRepository currentProcessInfoRepository;
-    private final CurrentPortInfoRepository currentPortInfoRepository;
     private final ProcessHistoryRepository processHistoryRepository;
     private final PortHistoryRepository portHistoryRepository;
+    private final AgentPurgeService agentPurgeService;
+    private final AgentStateStore agentStateStore;
+    private final BaselineCache baselineCache;
+    private final BaselineFeatureService baselineFeatureService;
+    private final BaselineLearningScheduler baselineLearningScheduler;
+    private final AlertDeduplicationService alertDeduplicationService;
+    private final EventBroadcaster eventBroadcaster;
+    private final AgentRegistry agentRegistry;
 
     public AgentService(AgentRepository agentRepository,
-                       ProcessInfoRepository processInfoRepository,
-                       PortInfoRepository portInfoRepository,
-                       HostInfoRepository hostInfoRepository,
-                       InstalledSoftwareRepository installedSoftwareRepository,
-                       UsbDeviceRepository usbDeviceRepository,
                        LoginLogRepository loginLogRepository,
                        AnomalyDetectionService anomalyDetectionService,
                        CollectionRoundService collectionRoundService,
-                       CurrentProcessInfoRepository currentProcessInfoRepository,
-                       CurrentPortInfoRepository currentPortInfoRepository,
                        ProcessHistoryRepository processHistoryRepository,
-                       PortHistoryRepository portHistoryRepository) {
+                       PortHistoryRepository portHistoryRepository,
+                       AgentPurgeService agentPurgeService,
+                       AgentStateStore agentStateStore,
+                       BaselineCache baselineCache,
+                       BaselineFeatureService baselineFeatureService,
+                       BaselineLearningScheduler baselineLearningScheduler,
+                       AlertDeduplicationService alertDeduplicationService,
+                       EventBroadcaster eventBroadcaster,
+                       AgentRegistry agentRegistry) {
         this.agentRepository = agentRepository;
-        this.processInfoRepository = processInfoRepository;
-        this.portInfoRepository = portInfoRepository;
-        this.hostInfoRepository = hostInfoRepository;
-        this.installedSoftwareRepository = installedSoftwareRepository;
-        this.usbDeviceRepository = usbDeviceRepository;
         this.loginLogRepository = loginLogRepository;
         this.anomalyDetectionService = anomalyDetectionService;
         this.collectionRoundService = collectionRoundService;
-        this.currentProcessInfoRepository = currentProcessInfoRepository;
-        this.currentPortInfoRepository = currentPortInfoRepository;
         this.processHistoryRepository = processHistoryRepository;
         this.portHistoryRepository = portHistoryRepository;
+        this.agentPurgeService = agentPurgeService;
+        this.agentStateStore = agentStateStore;
+        this.baselineCache = baselineCache;
+        this.baselineFeatureService = baselineFeatureService;
+        this.baselineLearningScheduler = baselineLearningScheduler;
+        this.alertDeduplicationService = alertDeduplicationService;
+        this.eventBroadcaster = eventBroadcaster;
+        this.agentRegistry = agentRegistry;
     }
 
     public Agent registerOrUpdateAgent(Map<String, String> agentInfo) {
@@ -65,6 +73,11 @@ public class AgentService {
         Optional<Agent> existingAgent = agentRepository.findById(agentId);
 
         Agent agent;
+        String previousStatus = existingAgent.map(Agent::getStatus).orElse(null);
+        // The purge is still deleting this agent's rows; the id can register again once it has finished
+        if (AgentPurgeService.DELETED_STATUS.equals(previousStatus)) {
+            throw new AgentDeletedException(agentId);
+        }
         if (existingAgent.isPresent()) {
             agent = existingAgent.get();
             agent.setName(agentInfo.getOrDefault("name", agent.getName()));
@@ -81,9 +94,11 @@ public class AgentService {
             agent.setIpAddress(agentInfo.getOrDefault("ipAddress", "Unknown"));
             agent.setStatus("online");
         }
+        agent.setIpNumber(AgentQueryService.ipv4ToNumber(agent.getIpAddress()));
 
         Agent saved = agentRepository.saveAndFlush(agent);
         logger.debug("Agent saved with id: {}", saved.getId());
+        publishStatusChange(saved.getId(), previousStatus, saved.getStatus());
         return saved;
     }
 
@@ -91,11 +106,13 @@ public class AgentService {
         logger.debug("updateHeartbeat called with agentId: {}, status: {}", agentId, status);
         Optional<Agent> agentOpt = agentRepository.findById(agentId);
         logger.debug("Agent found: {}", agentOpt.isPresent());
-        if (agentOpt.isPresent()) {
+        if (agentOpt.isPresent() && !AgentPurgeService.DELETED_STATUS.equals(agentOpt.get().getStatus())) {
             Agent agent = agentOpt.get();
+            String previousStatus = agent.getStatus();
             agent.setStatus(status);
             agent.setUpdatedAt(LocalDateTime.now());
             agentRepository.saveAndFlush(agent);
+            publishStatusChange(agentId, previousStatus, status);
             logger.debug("Heartbeat updated successfully for agent: {}", agentId);
             return true;
         }
@@ -103,8 +120,10 @@ public class AgentService {
         return false;
     }
 
+    // A deleted agent is only waiting for its purge; to readers it is already gone
     public Optional<Agent> getAgent(String agentId) {
-        return agentRepository.findById(agentId);
+        return agentRepository.findById(agentId)
+                .filter(agent -> !AgentPurgeService.DELETED_STATUS.equals(agent.getStatus()));
     }
 
     @Transactional
@@ -112,6 +131,7 @@ public class AgentService {
         Optional<Agent> agentOpt = agentRepository.findById(agentId);
         if (agentOpt.isPresent()) {
             Agent agent = agentOpt.get();
+            String previousStatus = agent.getStatus();
             if (agentInfo.containsKey("name")) {
                 agent.setName(agentInfo.get("name"));
             }
@@ -119,30 +139,48 @@ public class AgentService {
                 agent.setStatus(agentInfo.get("status"));
             }
             agentRepository.saveAndFlush(agent);
+            publishStatusChange(agentId, previousStatus, agent.getStatus());
             logger.debug("Agent updated: {}", agentId);
             return true;
         }
         return false;
     }
 
-    @Transactional
     public boolean deleteAgent(String agentId) {
-        if (agentRepository.existsById(agentId)) {
-            processInfoRepository.deleteByAgentId(agentId);
-            portInfoRepository.deleteByAgentId(agentId);
-            hostInfoRepository.deleteByAgentId(agentId);
-            installedSoftwareRepository.deleteByAgentId(agentId);
-            usbDeviceRepository.deleteByAgentId(agentId);
-            loginLogRepository.deleteByAgentId(agentId);
-            agentRepository.deleteById(agentId);
-            logger.info("Agent deleted: {}", agentId);
+        if (agentRepository.updateStatus(agentId, AgentPurgeService.DELETED_STATUS) > 0) {
+            agentStateStore.remove(agentId);
+            baselineCache.invalidateAgent(agentId);
+            baselineFeatureService.discardAgent(agentId);
+            baselineLearningScheduler.cancelAgent(agentId);
+            alertDeduplicationService.forgetAgent(agentId);
+            agentPurgeService.schedulePurge(agentId);
+            publishStatusChange(agentId, null, AgentPurgeService.DELETED_STATUS);
+            logger.info("Agent marked deleted, purge scheduled: {}", agentId);
             return true;
         }
         return false;
     }
 
+    // Heartbeats repeat the same status, so only actual changes are pushed to subscribers
+    private void publishStatusChange(String agentId, String previousStatus, String status) {
+        agentRegistry.update(agentId, status);
+        if (Objects.equals(previousStatus, status)) {
+            return;
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("agentId", agentId);
+        event.put("status", status);
+        event.put("previousStatus", previousStatus);
+        event.put("changedAt", LocalDateTime.now());
+        eventBroadcaster.publish(EventBroadcaster.AGENT_STATUS, agentId, null, null, event);
+    }
+
+    public Optional<AgentPurgeService.PurgeProgress> getPurgeProgress(String agentId) {
+        return agentPurgeService.getProgress(agentId);
+    }
+
     public List<Agent> getAllAgents() {
-        return agentRepository.findAll();
+        return agentRepository.findByStatusNot(AgentPurgeService.DELETED_STATUS);
     }
 
     public List<Agent> getAgentsByStatus(String status) {
@@ -160,6 +198,10 @@ public class AgentService {
 @Transactional
     public void saveMonitorData(String agentId, Map<String, Object> data) {
         logger.info("========== Saving monitor data for agent: {} ==========", agentId);
+        // Uploads from a deleted agent would recreate the rows its purge is removing
+        if (agentRepository.existsByIdAndStatus(agentId, AgentPurgeService.DELETED_STATUS)) {
+            throw new AgentDeletedException(agentId);
+        }
 
         int currentRound = collectionRoundService.getNextRound(agentId);
         logger.info("Current collection round for agent {}: {}", agentId, currentRound);
@@ -178,14 +220,22 @@ public class AgentService {
         Object usbDevicesObj = nestedData.get("usb_devices");
         Object loginLogsObj = nestedData.get("login_logs");
 
+        LocalDateTime collectedAt = LocalDateTime.now();
+        List<CurrentProcessInfo> stateProcesses = null;
+        List<CurrentPortInfo> statePorts = null;
+        HostInfo stateHostInfo = null;
+        List<UsbDevice> stateUsbDevices = null;
+        List<InstalledSoftware> stateSoftware = null;
+        List<LoginLog> savedLoginLogs = null;
+
         // Process data - dual write
         if (processesObj instanceof List) {
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> processes = (List<Map<String, Object>>) processesObj;
             logger.debug("---------- Process Data ({} total) ----------", processes.size());
             
-            // Save to current status table (replace)
-            currentProcessInfoRepository.deleteByAgentId(agentId);
+            // Publish as current state (persisted write-behind)
+            List<CurrentProcessInfo> currentProcesses = new ArrayList<>(processes.size());
             for (Map<String, Object> proc : processes) {
                 CurrentProcessInfo currentInfo = new CurrentProcessInfo();
                 currentInfo.setAgentId(agentId);
@@ -195,10 +245,13 @@ public class AgentService {
                 currentInfo.setMemoryPercent(getDoubleValue(proc.get("memory_percent")));
                 currentInfo.setStatus(getStringValue(proc.get("status")));
                 currentInfo.setCreateTime(getStringValue(proc.get("create_time")));
-                currentProcessInfoRepository.save(currentInfo);
+                currentInfo.setCollectedAt(collectedAt);
+                currentProcesses.add(currentInfo);
             }
+            stateProcesses = currentProcesses;
             
             // Save to history table (append)
+            List<ProcessHistory> processHistory = new ArrayList<>(processes.size());
             for (Map<String, Object> proc : processes) {
                 ProcessHistory history = new ProcessHistory();
                 history.setAgentId(agentId);
@@ -209,8 +262,9 @@ public class AgentService {
                 history.setMemoryPercent(getDoubleValue(proc.get("memory_percent")));
                 history.setStatus(getStringValue(proc.get("status")));
                 history.setCreateTime(getStringValue(proc.get("create_time")));
-                processHistoryRepository.save(history);
+                processHistory.add(history);
             }
+            processHistoryRepository.saveAll(processHistory);
             
             logger.debug("Finished saving {} process entries (current + history).", processes.size());
         } else {
@@ -223,8 +277,8 @@ public class AgentService {
             List<Map<String, Object>> ports = (List<Map<String, Object>>) portsObj;
             logger.debug("---------- Port Data ({} total) ----------", ports.size());
             
-            // Save to current status table (replace)
-            currentPortInfoRepository.deleteByAgentId(agentId);
+            // Publish as current state (persisted write-behind)
+            List<CurrentPortInfo> currentPorts = new ArrayList<>(ports.size());
             for (Map<String, Object> port : ports) {
                 CurrentPortInfo currentInfo = new CurrentPortInfo();
                 currentInfo.setAgentId(agentId);
@@ -233,10 +287,13 @@ public class AgentService {
                 currentInfo.setStatus(getStringValue(port.get("status")));
                 currentInfo.setPid(getIntValue(port.get("pid")));
                 currentInfo.setProcessName(getStringValue(port.get("process_name")));
-                currentPortInfoRepository.save(currentInfo);
+                currentInfo.setCollectedAt(collectedAt);
+                currentPorts.add(currentInfo);
             }
+            statePorts = currentPorts;
             
             // Save to history table (append)
+            List<PortHistory> portHistory = new ArrayList<>(ports.size());
             for (Map<String, Object> port : ports) {
                 PortHistory history = new PortHistory();
                 history.setAgentId(agentId);
@@ -246,22 +303,21 @@ public class AgentService {
                 history.setStatus(getStringValue(port.get("status")));
                 history.setPid(getIntValue(port.get("pid")));
                 history.setProcessName(getStringValue(port.get("process_name")));
-                portHistoryRepository.save(history);
+                portHistory.add(history);
             }
+            portHistoryRepository.saveAll(portHistory);
             
             logger.debug("Finished saving {} port entries (current + history).", ports.size());
         } else {
             logger.debug("No port data received for agent: {}", agentId);
         }
 
-        // Host Info data (current only, no history needed)
+        // Host Info data (current state only, no history needed)
         if (hostInfoObj instanceof Map) {
             @SuppressWarnings("unchecked")
             Map<String, Object> hostInfoData = (Map<String, Object>) hostInfoObj;
             logger.debug("---------- Host Info Data ----------");
             
-            hostInfoRepository.deleteByAgentId(agentId);
-            
             HostInfo hostInfo = new HostInfo();
             hostInfo.setAgentId(agentId);
 
@@ -326,8 +382,9 @@ public class AgentService {
                 hostInfo.setIpAddresses(getStringValue(hostInfoData.get("ip_addresses")));
             }
 
-            hostInfoRepository.saveAndFlush(hostInfo);
-            logger.debug("Finished saving host info entry.");
+            hostInfo.setCollectedAt(collectedAt);
+            stateHostInfo = hostInfo;
+            logger.debug("Finished collecting host info entry.");
         } else {
             logger.debug("No host info data received for agent: {}", agentId);
         }
@@ -337,8 +394,7 @@ public class AgentService {
             List<Map<String, Object>> installedSoftwareList = (List<Map<String, Object>>) installedSoftwareObj;
             logger.debug("---------- Installed Software Data ({} total) ----------", installedSoftwareList.size());
 
-            installedSoftwareRepository.deleteByAgentId(agentId);
-
+            List<InstalledSoftware> currentSoftware = new ArrayList<>(installedSoftwareList.size());
             for (Map<String, Object> sw : installedSoftwareList) {
                 InstalledSoftware software = new InstalledSoftware();
                 software.setAgentId(agentId);
@@ -368,9 +424,11 @@ public class AgentService {
                     software.setSource(getStringValue(sw.get("source")));
                 }
 
-                installedSoftwareRepository.saveAndFlush(software);
+                software.setCollectedAt(collectedAt);
+                currentSoftware.add(software);
             }
-            logger.debug("Finished saving {} installed software entries.", installedSoftwareList.size());
+            stateSoftware = currentSoftware;
+            logger.debug("Finished collecting {} installed software entries.", installedSoftwareList.size());
         } else {
             logger.debug("No installed software data received for agent: {}", agentId);
         }
@@ -380,8 +438,7 @@ public class AgentService {
             List<Map<String, Object>> usbDevicesList = (List<Map<String, Object>>) usbDevicesObj;
             logger.debug("---------- USB Devices Data ({} total) ----------", usbDevicesList.size());
 
-            usbDeviceRepository.deleteByAgentId(agentId);
-
+            List<UsbDevice> currentUsbDevices = new ArrayList<>(usbDevicesList.size());
             for (Map<String, Object> usb : usbDevicesList) {
                 UsbDevice usbDevice = new UsbDevice();
                 usbDevice.setAgentId(agentId);
@@ -408,19 +465,47 @@ public class AgentService {
                     usbDevice.setPluggedTime(parseLocalDateTime(usb.get("plugged_time")));
                 }
 
-                usbDeviceRepository.saveAndFlush(usbDevice);
+                usbDevice.setCollectedAt(collectedAt);
+                currentUsbDevices.add(usbDevice);
             }
-            logger.debug("Finished saving {} USB device entries.", usbDevicesList.size());
+            stateUsbDevices = currentUsbDevices;
+            logger.debug("Finished collecting {} USB device entries.", usbDevicesList.size());
         } else {
             logger.debug("No USB devices data received for agent: {}", agentId);
         }
 
+        // Published only once the upload has committed, so readers and the fleet sketches never see a
+        // state that a rolled-back upload takes back. Fleet rarity depends on it, so it runs there too.
+        List<CurrentProcessInfo> publishedProcesses = stateProcesses;
+        List<CurrentPortInfo> publishedPorts = statePorts;
+        HostInfo publishedHostInfo = stateHostInfo;
+        List<UsbDevice> publishedUsbDevices = stateUsbDevices;
+        List<InstalledSoftware> publishedSoftware = stateSoftware;
+        runAfterCommit(() -> {
+            agentStateStore.update(agentId, publishedProcesses, publishedPorts, publishedHostInfo,
+                    publishedUsbDevices, publishedSoftware);
+            try {
+                anomalyDetectionService.detectFleetRare(agentId);
+            } catch (Exception e) {
+                logger.error("Fleet rarity detection failed for agent {}: {}", agentId, e.getMessage());
+            }
+        });
+
+        // Feeds the learning counters of agents in a learning window; a no-op otherwise
+        if (stateProcesses != null) {
+            baselineFeatureService.recordProcesses(agentId, stateProcesses, collectedAt);
+        }
+        if (statePorts != null) {
+            baselineFeatureService.recordPorts(agentId, statePorts, collectedAt);
+        }
+
         if (loginLogsObj instanceof List) {
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> loginLogsList = (List<Map<String, Object>>) loginLogsObj;
             logger.debug("---------- Login Logs Data ({} total) ----------", loginLogsList.size());
 
             loginLogRepository.deleteByAgentId(agentId);
+            savedLoginLogs = new ArrayList<>(loginLogsList.size());
 
             for (Map<String, Object> log : loginLogsList) {
                 LoginLog loginLog = new LoginLog();
@@ -451,38 +536,29 @@ public class AgentService {
                     loginLog.setSource(getStringValue(log.get("source")));
                 }
 
-                loginLogRepository.saveAndFlush(loginLog);
+                savedLoginLogs.add(loginLogRepository.saveAndFlush(loginLog));
             }
             logger.debug("Finished saving {} login log entries.", loginLogsList.size());
         } else {
             logger.debug("No login logs data received for agent: {}", agentId);
         }
 
+        // Detection compares the parsed entities, keyed exactly like baseline snapshots
         try {
-            if (processesObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> processes = (List<Map<String, Object>>) processesObj;
-                anomalyDetectionService.detectAndAlert(agentId, "PROCESS", processes);
-            }
-            if (portsObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> ports = (List<Map<String, Object>>) portsObj;
-                anomalyDetectionService.detectAndAlert(agentId, "PORT", ports);
-            }
-            if (usbDevicesObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> usbDevices = (List<Map<String, Object>>) usbDevicesObj;
-                anomalyDetectionService.detectAndAlert(agentId, "USB", usbDevices);
-            }
-            if (loginLogsObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> loginLogs = (List<Map<String, Object>>) loginLogsObj;
-                anomalyDetectionService.detectAndAlert(agentId, "LOGIN", loginLogs);
-            }
-            if (installedSoftwareObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> software = (List<Map<String, Object>>) installedSoftwareObj;
-                anomalyDetectionService.detectAndAlert(agentId, "SOFTWARE", software);
+            if (stateProcesses != null) {
+                anomalyDetectionService.detectAndAlert(agentId, "PROCESS", stateProcesses);
+            }
+            if (statePorts != null) {
+                anomalyDetectionService.detectAndAlert(agentId, "PORT", statePorts);
+            }
+            if (stateUsbDevices != null) {
+                anomalyDetectionService.detectAndAlert(agentId, "USB", stateUsbDevices);
+            }
+            if (savedLoginLogs != null) {
+                anomalyDetectionService.detectAndAlert(agentId, "LOGIN", savedLoginLogs);
+            }
+            if (stateSoftware != null) {
+                anomalyDetectionService.detectAndAlert(agentId, "SOFTWARE", stateSoftware);
             }
         } catch (Exception e) {
             logger.error("Anomaly detection failed for agent {}: {}", agentId, e.getMessage());
@@ -491,12 +567,25 @@ public class AgentService {
         logger.info("========== Finished saving data for agent: {} ==========", agentId);
     }
 
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     public List<CurrentProcessInfo> getProcesses(String agentId) {
-        return currentProcessInfoRepository.findByAgentIdOrderByCollectedAtDesc(agentId);
+        return agentStateStore.getProcesses(agentId);
     }
 
     public List<CurrentPortInfo> getPorts(String agentId) {
-        return currentPortInfoRepository.findByAgentIdOrderByCollectedAtDesc(agentId);
+        return agentStateStore.getPorts(agentId);
     }
 
     private Integer getIntValue(Object value) {
@@ -581,4 +670,10 @@ public class AgentService {
         logger.warn("Unable to parse datetime: {}", dateTimeStr);
         return null;
     }
+
+    public static class AgentDeletedException extends RuntimeException {
+        public AgentDeletedException(String agentId) {
+            super("Agent has been deleted: " + agentId);
+        }
+    }
 }
@@ -0,0 +1,379 @@
+package com.monitor.service;
+
+import com.monitor.entity.CurrentPortInfo;
+import com.monitor.entity.CurrentProcessInfo;
+import com.monitor.entity.HostInfo;
+import com.monitor.entity.InstalledSoftware;
+import com.monitor.entity.UsbDevice;
+import com.monitor.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@Service
+public class AgentStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentStateStore.class);
+
+    public enum Section {
+        PROCESSES, PORTS, HOST_INFO, USB_DEVICES, INSTALLED_SOFTWARE
+    }
+
+    private final Map<String, AgentState> states = new ConcurrentHashMap<>();
+    private final Map<String, Set<Section>> dirtySections = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    // agentId -> time until which the id is known not to exist, so polling a bad id stays off the database
+    private final Map<String, Long> unknownAgents = new ConcurrentHashMap<>();
+
+    @Value("${monitor.state.unknown-agent-ttl-ms:60000}")
+    private long unknownAgentTtlMs;
+
+    @Value("${monitor.state.max-unknown-agents:10000}")
+    private int maxUnknownAgents;
+
+    private final AgentRepository agentRepository;
+    private final CurrentProcessInfoRepository currentProcessInfoRepository;
+    private final CurrentPortInfoRepository currentPortInfoRepository;
+    private final HostInfoRepository hostInfoRepository;
+    private final UsbDeviceRepository usbDeviceRepository;
+    private final InstalledSoftwareRepository installedSoftwareRepository;
+    private final FleetIndexService fleetIndexService;
+    private final FleetRarityService fleetRarityService;
+
+    public AgentStateStore(AgentRepository agentRepository,
+                           CurrentProcessInfoRepository currentProcessInfoRepository,
+                           CurrentPortInfoRepository currentPortInfoRepository,
+                           HostInfoRepository hostInfoRepository,
+                           UsbDeviceRepository usbDeviceRepository,
+                           InstalledSoftwareRepository installedSoftwareRepository,
+                           FleetIndexService fleetIndexService,
+                           FleetRarityService fleetRarityService) {
+        this.agentRepository = agentRepository;
+        this.currentProcessInfoRepository = currentProcessInfoRepository;
+        this.currentPortInfoRepository = currentPortInfoRepository;
+        this.hostInfoRepository = hostInfoRepository;
+        this.usbDeviceRepository = usbDeviceRepository;
+        this.installedSoftwareRepository = installedSoftwareRepository;
+        this.fleetIndexService = fleetIndexService;
+        this.fleetRarityService = fleetRarityService;
+    }
+
+    // A null section was not part of the upload and keeps its previous value
+    public AgentState update(String agentId,
+                             List<CurrentProcessInfo> processes,
+                             List<CurrentPortInfo> ports,
+                             HostInfo hostInfo,
+                             List<UsbDevice> usbDevices,
+                             List<InstalledSoftware> installedSoftware) {
+        Set<Section> changed = EnumSet.noneOf(Section.class);
+        if (processes != null) changed.add(Section.PROCESSES);
+        if (ports != null) changed.add(Section.PORTS);
+        if (hostInfo != null) changed.add(Section.HOST_INFO);
+        if (usbDevices != null) changed.add(Section.USB_DEVICES);
+        if (installedSoftware != null) changed.add(Section.INSTALLED_SOFTWARE);
+
+        unknownAgents.remove(agentId);
+        AgentState previous = getState(agentId);
+        // Copied so the published state shares no objects with the caller or a persistence context
+        List<CurrentProcessInfo> processCopies = copyAll(processes, AgentStateStore::copyProcess);
+        List<CurrentPortInfo> portCopies = copyAll(ports, AgentStateStore::copyPort);
+        HostInfo hostInfoCopy = hostInfo != null ? copyHostInfo(hostInfo) : null;
+        List<UsbDevice> usbCopies = copyAll(usbDevices, AgentStateStore::copyUsbDevice);
+        List<InstalledSoftware> softwareCopies = copyAll(installedSoftware, AgentStateStore::copySoftware);
+        AgentState[] replaced = new AgentState[1];
+        AgentState next = states.compute(agentId, (id, current) -> {
+            AgentState base = current != null ? current : previous;
+            replaced[0] = base;
+            AgentState updated = new AgentState(
+                    agentId,
+                    versionSequence.incrementAndGet(),
+                    LocalDateTime.now(),
+                    processCopies != null ? processCopies : base.getProcesses(),
+                    portCopies != null ? portCopies : base.getPorts(),
+                    hostInfoCopy != null ? hostInfoCopy : base.getHostInfo(),
+                    usbCopies != null ? usbCopies : base.getUsbDevices(),
+                    softwareCopies != null ? softwareCopies : base.getInstalledSoftware());
+            // Sections the upload did not touch are the same objects, so their tags still hold
+            for (Section section : Section.values()) {
+                if (!changed.contains(section)) {
+                    updated.setEtag(section, base.getEtag(section));
+                }
+            }
+            return updated;
+        });
+        // Outside the per-key lock: both listeners take global locks of their own, and both cope with
+        // two updates of one agent arriving in either order
+        fleetIndexService.onStateChanged(replaced[0], next);
+        fleetRarityService.onStateChanged(replaced[0], next);
+
+        if (!changed.isEmpty()) {
+            dirtySections.merge(agentId, changed, (a, b) -> {
+                Set<Section> merged = EnumSet.copyOf(a);
+                merged.addAll(b);
+                return merged;
+            });
+        }
+        return next;
+    }
+
+    public AgentState getState(String agentId) {
+        AgentState state = states.get(agentId);
+        if (state != null) {
+            return state;
+        }
+        Long unknownUntil = unknownAgents.get(agentId);
+        if (unknownUntil != null && unknownUntil > System.currentTimeMillis()) {
+            return emptyState(agentId);
+        }
+        if (!agentRepository.existsById(agentId)) {
+            rememberUnknown(agentId);
+            return emptyState(agentId);
+        }
+        // Cold start after a restart: the current tables are the persisted copy of the last state
+        AgentState loaded = loadFromDatabase(agentId);
+        AgentState raced = states.putIfAbsent(agentId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private void rememberUnknown(String agentId) {
+        // ids are caller-supplied, so the map is simply dropped rather than grown without bound
+        if (unknownAgents.size() >= maxUnknownAgents) {
+            unknownAgents.clear();
+        }
+        unknownAgents.put(agentId, System.currentTimeMillis() + unknownAgentTtlMs);
+    }
+
+    private AgentState emptyState(String agentId) {
+        return new AgentState(agentId, 0, null, null, null, null, null, null);
+    }
+
+    public Optional<AgentState> getCachedState(String agentId) {
+        return Optional.ofNullable(states.get(agentId));
+    }
+
+    public List<CurrentProcessInfo> getProcesses(String agentId) {
+        return getState(agentId).getProcesses();
+    }
+
+    public List<CurrentPortInfo> getPorts(String agentId) {
+        return getState(agentId).getPorts();
+    }
+
+    public Optional<HostInfo> getHostInfo(String agentId) {
+        return Optional.ofNullable(getState(agentId).getHostInfo());
+    }
+
+    public List<UsbDevice> getUsbDevices(String agentId) {
+        return getState(agentId).getUsbDevices();
+    }
+
+    public List<InstalledSoftware> getInstalledSoftware(String agentId) {
+        return getState(agentId).getInstalledSoftware();
+    }
+
+    public void remove(String agentId) {
+        AgentState removed = states.remove(agentId);
+        dirtySections.remove(agentId);
+        fleetIndexService.removeAgent(agentId);
+        // The sketches were seeded from the database, so an agent that was never cached still counts there
+        fleetRarityService.onAgentRemoved(removed != null ? removed : loadFromDatabase(agentId));
+    }
+
+    public Map<String, Set<Section>> drainDirty() {
+        Map<String, Set<Section>> drained = new HashMap<>();
+        for (String agentId : dirtySections.keySet()) {
+            Set<Section> sections = dirtySections.remove(agentId);
+            if (sections != null) {
+                drained.put(agentId, sections);
+            }
+        }
+        return drained;
+    }
+
+    public void markDirty(String agentId, Set<Section> sections) {
+        dirtySections.merge(agentId, EnumSet.copyOf(sections), (a, b) -> {
+            Set<Section> merged = EnumSet.copyOf(a);
+            merged.addAll(b);
+            return merged;
+        });
+    }
+
+    private AgentState loadFromDatabase(String agentId) {
+        logger.debug("Loading persisted current state for agent {}", agentId);
+        return new AgentState(
+                agentId,
+                versionSequence.incrementAndGet(),
+                null,
+                copyAll(currentProcessInfoRepository.findByAgentIdOrderByCollectedAtDesc(agentId), AgentStateStore::copyProcess),
+                copyAll(currentPortInfoRepository.findByAgentIdOrderByCollectedAtDesc(agentId), AgentStateStore::copyPort),
+                Optional.ofNullable(hostInfoRepository.findTopByAgentIdOrderByCollectedAtDesc(agentId))
+                        .map(AgentStateStore::copyHostInfo).orElse(null),
+                copyAll(usbDeviceRepository.findByAgentIdOrderByCollectedAtDesc(agentId), AgentStateStore::copyUsbDevice),
+                copyAll(installedSoftwareRepository.findByAgentIdOrderByCollectedAtDesc(agentId), AgentStateStore::copySoftware));
+    }
+
+    private static <T> List<T> copyAll(List<T> items, Function<T, T> copier) {
+        return items != null ? items.stream().map(copier).collect(Collectors.toUnmodifiableList()) : null;
+    }
+
+    // Detached copies: the state is shared with every reader and must not be a managed entity
+    // or an object the uploader still holds. Ids are left unset so the copies can also be persisted.
+    static CurrentProcessInfo copyProcess(CurrentProcessInfo p) {
+        CurrentProcessInfo copy = new CurrentProcessInfo();
+        copy.setAgentId(p.getAgentId());
+        copy.setPid(p.getPid());
+        copy.setName(p.getName());
+        copy.setCpuPercent(p.getCpuPercent());
+        copy.setMemoryPercent(p.getMemoryPercent());
+        copy.setStatus(p.getStatus());
+        copy.setCreateTime(p.getCreateTime());
+        copy.setCollectedAt(p.getCollectedAt());
+        return copy;
+    }
+
+    static CurrentPortInfo copyPort(CurrentPortInfo p) {
+        CurrentPortInfo copy = new CurrentPortInfo();
+        copy.setAgentId(p.getAgentId());
+        copy.setPort(p.getPort());
+        copy.setProtocol(p.getProtocol());
+        copy.setStatus(p.getStatus());
+        copy.setPid(p.getPid());
+        copy.setProcessName(p.getProcessName());
+        copy.setCollectedAt(p.getCollectedAt());
+        return copy;
+    }
+
+    static HostInfo copyHostInfo(HostInfo h) {
+        HostInfo copy = new HostInfo();
+        copy.setAgentId(h.getAgentId());
+        copy.setCpuBrand(h.getCpuBrand());
+        copy.setCpuArch(h.getCpuArch());
+        copy.setCpuCores(h.getCpuCores());
+        copy.setCpuThreads(h.getCpuThreads());
+        copy.setCpuFrequency(h.getCpuFrequency());
+        copy.setMemoryTotal(h.getMemoryTotal());
+        copy.setMemoryAvailable(h.getMemoryAvailable());
+        copy.setMemoryPercent(h.getMemoryPercent());
+        copy.setMemoryHuman(h.getMemoryHuman());
+        copy.setStorageDevices(h.getStorageDevices());
+        copy.setStorageTotal(h.getStorageTotal());
+        copy.setMotherboardModel(h.getMotherboardModel());
+        copy.setMotherboardSerial(h.getMotherboardSerial());
+        copy.setBiosVersion(h.getBiosVersion());
+        copy.setOsName(h.getOsName());
+        copy.setOsVersion(h.getOsVersion());
+        copy.setOsArch(h.getOsArch());
+        copy.setKernelVersion(h.getKernelVersion());
+        copy.setMacAddresses(h.getMacAddresses());
+        copy.setIpAddresses(h.getIpAddresses());
+        copy.setCollectedAt(h.getCollectedAt());
+        return copy;
+    }
+
+    static UsbDevice copyUsbDevice(UsbDevice u) {
+        UsbDevice copy = new UsbDevice();
+        copy.setAgentId(u.getAgentId());
+        copy.setDeviceName(u.getDeviceName());
+        copy.setDeviceType(u.getDeviceType());
+        copy.setVendorId(u.getVendorId());
+        copy.setProductId(u.getProductId());
+        copy.setSerialNumber(u.getSerialNumber());
+        copy.setManufacturer(u.getManufacturer());
+        copy.setPluggedTime(u.getPluggedTime());
+        copy.setCollectedAt(u.getCollectedAt());
+        return copy;
+    }
+
+    static InstalledSoftware copySoftware(InstalledSoftware s) {
+        InstalledSoftware copy = new InstalledSoftware();
+        copy.setAgentId(s.getAgentId());
+        copy.setSoftwareName(s.getSoftwareName());
+        copy.setSoftwareType(s.getSoftwareType());
+        copy.setVersion(s.getVersion());
+        copy.setPublisher(s.getPublisher());
+        copy.setInstallDate(s.getInstallDate());
+        copy.setInstallLocation(s.getInstallLocation());
+        copy.setSize(s.getSize());
+        copy.setSource(s.getSource());
+        copy.setCollectedAt(s.getCollectedAt());
+        return copy;
+    }
+
+    public static class AgentState {
+        private final String agentId;
+        private final long version;
+        private final LocalDateTime updatedAt;
+        private final List<CurrentProcessInfo> processes;
+        private final List<CurrentPortInfo> ports;
+        private final HostInfo hostInfo;
+        private final List<UsbDevice> usbDevices;
+        private final List<InstalledSoftware> installedSoftware;
+        // Per-section ETags, filled by the first conditional read of a section and never changed afterwards
+        private final AtomicReferenceArray<String> etags = new AtomicReferenceArray<>(Section.values().length);
+
+        public AgentState(String agentId, long version, LocalDateTime updatedAt,
+                          List<CurrentProcessInfo> processes, List<CurrentPortInfo> ports,
+                          HostInfo hostInfo, List<UsbDevice> usbDevices,
+                          List<InstalledSoftware> installedSoftware) {
+            this.agentId = agentId;
+            this.version = version;
+            this.updatedAt = updatedAt;
+            this.processes = processes != null ? processes : Collections.emptyList();
+            this.ports = ports != null ? ports : Collections.emptyList();
+            this.hostInfo = hostInfo;
+            this.usbDevices = usbDevices != null ? usbDevices : Collections.emptyList();
+            this.installedSoftware = installedSoftware != null ? installedSoftware : Collections.emptyList();
+        }
+
+        public boolean isEmpty() {
+            return processes.isEmpty() && ports.isEmpty() && hostInfo == null
+                    && usbDevices.isEmpty() && installedSoftware.isEmpty();
+        }
+
+        public String getAgentId() { return agentId; }
+        public long getVersion() { return version; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+        public List<CurrentProcessInfo> getProcesses() { return processes; }
+        public List<CurrentPortInfo> getPorts() { return ports; }
+        public HostInfo getHostInfo() { return hostInfo; }
+        public List<UsbDevice> getUsbDevices() { return usbDevices; }
+        public List<InstalledSoftware> getInstalledSoftware() { return installedSoftware; }
+
+        public Object getSection(Section section) {
+            switch (section) {
+                case PROCESSES: return processes;
+                case PORTS: return ports;
+                case HOST_INFO: return hostInfo;
+                case USB_DEVICES: return usbDevices;
+                case INSTALLED_SOFTWARE: return installedSoftware;
+                default: throw new IllegalArgumentException("Unknown section: " + section);
+            }
+        }
+
+        public String getEtag(Section section) {
+            return etags.get(section.ordinal());
+        }
+
+        // First writer wins; concurrent readers hash the same content to the same tag anyway
+        public void setEtag(Section section, String etag) {
+            if (etag != null) {
+                etags.compareAndSet(section.ordinal(), null, etag);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.monitor.service;
+
+import com.monitor.entity.SecurityAlert;
+import com.monitor.entity.dto.AlertSearchRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class AlertBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertBulkService.class);
+
+    // Which statuses each action may move an alert out of, matching the buttons the alert center offers
+    private static final Map<String, Transition> TRANSITIONS = Map.of(
+            "acknowledge", new Transition("ACKNOWLEDGED", List.of("NEW"),
+                    "acknowledged_by", "acknowledged_at", null),
+            "resolve", new Transition("RESOLVED", List.of("NEW", "ACKNOWLEDGED", "IGNORED"),
+                    "resolved_by", "resolved_at", "resolution_note"),
+            "ignore", new Transition("IGNORED", List.of("NEW", "ACKNOWLEDGED"),
+                    "ignored_by", "ignored_at", "ignore_reason"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AlertQueryService alertQueryService;
+    private final AlertWriter alertWriter;
+    private final AlertDeduplicationService deduplicationService;
+    private final AlertCounterService counterService;
+    private final EventBroadcaster eventBroadcaster;
+
+    @Value("${monitor.alert.bulk-chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${monitor.alert.bulk-max-ids:10000}")
+    private int maxIds;
+
+    @Value("${monitor.alert.bulk-flush-wait-ms:5000}")
+    private long flushWaitMs;
+
+    public AlertBulkService(NamedParameterJdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            AlertQueryService alertQueryService,
+                            AlertWriter alertWriter,
+                            AlertDeduplicationService deduplicationService,
+                            AlertCounterService counterService,
+                            EventBroadcaster eventBroadcaster) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.alertQueryService = alertQueryService;
+        this.alertWriter = alertWriter;
+        this.deduplicationService = deduplicationService;
+        this.counterService = counterService;
+        this.eventBroadcaster = eventBroadcaster;
+    }
+
+    public BulkResult transitionByIds(String action, Collection<Long> ids, String actor, String note) {
+        Transition transition = transition(action);
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > maxIds) {
+            throw new RuntimeException("At most " + maxIds + " alert ids per request, got " + distinct.size());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (int i = 0; i < distinct.size(); i += chunkSize) {
+            updated += applyChunk(transition, distinct.subList(i, Math.min(i + chunkSize, distinct.size())), actor, note, now);
+        }
+        logger.info("Bulk {} by {}: {} of {} alerts updated", action, actor, updated, distinct.size());
+        return new BulkResult(distinct.size(), updated);
+    }
+
+    // Walks the matching ids in primary-key order one chunk at a time, so no transaction holds
+    // row locks on more than a chunk and the walk never revisits or skips a row
+    public BulkResult transitionByFilter(String action, AlertSearchRequest filter, String actor, String note) {
+        Transition transition = transition(action);
+        // alerts still waiting in the writer queue belong to the view the operator is looking at; the
+        // writer thread writes them, this request only waits for it, and goes ahead without them on timeout
+        try {
+            if (!alertWriter.awaitFlushed(flushWaitMs)) {
+                logger.warn("Alert writer did not catch up within {} ms, bulk {} skips still queued alerts", flushWaitMs, action);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for queued alerts", e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        StringBuilder sql = new StringBuilder("SELECT id FROM security_alert WHERE 1 = 1");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        alertQueryService.appendFilters(sql, params, filter);
+        sql.append(" AND alert_status IN (:sources) AND id > :afterId ORDER BY id LIMIT :chunk");
+        params.addValue("sources", transition.sources);
+        params.addValue("chunk", chunkSize);
+
+        long afterId = 0;
+        int matched = 0;
+        int updated = 0;
+        while (true) {
+            params.addValue("afterId", afterId);
+            List<Long> chunk = jdbcTemplate.queryForList(sql.toString(), params, Long.class);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            matched += chunk.size();
+            updated += applyChunk(transition, chunk, actor, note, now);
+            afterId = chunk.get(chunk.size() - 1);
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        logger.info("Bulk {} by {} on filter: {} of {} alerts updated", action, actor, updated, matched);
+        return new BulkResult(matched, updated);
+    }
+
+    // One locking read and one UPDATE per chunk. The read supplies the previous status, level and
+    // type of each row, so the counters and subscribers are corrected without re-reading anything.
+    private int applyChunk(Transition transition, List<Long> ids, String actor, String note, LocalDateTime now) {
+        List<SecurityAlert> changed = transactionTemplate.execute(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("sources", transition.sources);
+            List<SecurityAlert> rows = jdbcTemplate.query(
+                    "SELECT id, agent_id, alert_level, alert_type, alert_status, fingerprint FROM security_alert " +
+                    "WHERE id IN (:ids) AND alert_status IN (:sources) FOR UPDATE", params,
+                    (rs, rowNum) -> {
+                        SecurityAlert alert = new SecurityAlert();
+                        alert.setId(rs.getLong("id"));
+                        alert.setAgentId(rs.getString("agent_id"));
+                        alert.setAlertLevel(rs.getString("alert_level"));
+                        alert.setAlertType(rs.getString("alert_type"));
+                        alert.setAlertStatus(rs.getString("alert_status"));
+                        alert.setFingerprint(rs.getString("fingerprint"));
+                        return alert;
+                    });
+            if (rows.isEmpty()) {
+                return rows;
+            }
+            List<Long> lockedIds = new ArrayList<>(rows.size());
+            rows.forEach(row -> lockedIds.add(row.getId()));
+            MapSqlParameterSource update = new MapSqlParameterSource()
+                    .addValue("ids", lockedIds)
+                    .addValue("target", transition.target)
+                    .addValue("actor", actor)
+                    .addValue("now", Timestamp.valueOf(now))
+                    .addValue("note", note);
+            jdbcTemplate.update(transition.updateSql(), update);
+            return rows;
+        });
+        if (changed == null || changed.isEmpty()) {
+            return 0;
+        }
+        afterCommit(transition, changed);
+        return changed.size();
+    }
+
+    private void afterCommit(Transition transition, List<SecurityAlert> changed) {
+        Map<String, List<Map<String, Object>>> byAgent = new LinkedHashMap<>();
+        for (SecurityAlert alert : changed) {
+            String previousStatus = alert.getAlertStatus();
+            alert.setAlertStatus(transition.target);
+            counterService.onTransition(alert, previousStatus);
+            if (transition.closes()) {
+                deduplicationService.closed(alert.getAgentId(), alert.getFingerprint(), alert.getId());
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", alert.getId());
+            item.put("previousStatus", previousStatus);
+            item.put("alertLevel", alert.getAlertLevel());
+            byAgent.computeIfAbsent(alert.getAgentId(), k -> new ArrayList<>()).add(item);
+        }
+        // One event per agent and chunk: a storm cleanup must not overflow subscriber buffers
+        byAgent.forEach((agentId, alerts) -> {
+            Map<String, Object> event = new HashMap<>();
+            event.put("agentId", agentId);
+            event.put("alertStatus", transition.target);
+            event.put("alerts", alerts);
+            eventBroadcaster.publish(EventBroadcaster.ALERT_BULK_STATUS, agentId, null, null, event);
+        });
+    }
+
+    private static Transition transition(String action) {
+        Transition transition = action != null ? TRANSITIONS.get(action.toLowerCase(Locale.ROOT)) : null;
+        if (transition == null) {
+            throw new RuntimeException("Unknown bulk action: " + action);
+        }
+        return transition;
+    }
+
+    private static class Transition {
+        private final String target;
+        private final List<String> sources;
+        private final String byColumn;
+        private final String atColumn;
+        private final String noteColumn;
+
+        Transition(String target, List<String> sources, String byColumn, String atColumn, String noteColumn) {
+            this.target = target;
+            this.sources = sources;
+            this.byColumn = byColumn;
+            this.atColumn = atColumn;
+            this.noteColumn = noteColumn;
+        }
+
+        boolean closes() {
+            return "RESOLVED".equals(target) || "IGNORED".equals(target);
+        }
+
+        String updateSql() {
+            return "UPDATE security_alert SET alert_status = :target, " + byColumn + " = :actor, " + atColumn + " = :now"
+                    + (noteColumn != null ? ", " + noteColumn + " = :note" : "")
+                    + " WHERE id IN (:ids)";
+        }
+    }
+
+    public static class BulkResult {
+        private final int matched;
+        private final int updated;
+
+        public BulkResult(int matched, int updated) {
+            this.matched = matched;
+            this.updated = updated;
+        }
+
+        public int getMatched() { return matched; }
+        public int getUpdated() { return updated; }
+        public int getSkipped() { return matched - updated; }
+    }
+}
@@ -0,0 +1,225 @@
+package com.monitor.service;
+
+import com.monitor.entity.SecurityAlert;
+import com.monitor.repository.SecurityAlertRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Service
+public class AlertCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertCounterService.class);
+
+    private final SecurityAlertRepository alertRepository;
+
+    // Swapped wholesale on reconcile; increments always go to the current cube
+    private volatile Cube cube;
+    // While reconcile queries, increments are also logged here and replayed onto the fresh cube, so
+    // changes that commit after the query's snapshot are not lost in the swap
+    private volatile Cube pending;
+    // Increments take the read side; the swap takes the write side so no increment is half applied
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public AlertCounterService(SecurityAlertRepository alertRepository) {
+        this.alertRepository = alertRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    // Corrects drift from alerts removed outside the service, e.g. agent purges and retention cleanup
+    @Scheduled(fixedDelayString = "${monitor.alert.stats-reconcile-interval-ms:300000}",
+               initialDelayString = "${monitor.alert.stats-reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        long start = System.currentTimeMillis();
+        Cube delta = new Cube();
+        pending = delta;
+        Cube fresh = new Cube();
+        try {
+            for (Object[] row : alertRepository.countByDimensions()) {
+                fresh.add((String) row[0], (String) row[1], (String) row[2], (String) row[3], ((Number) row[4]).longValue());
+            }
+        } catch (RuntimeException e) {
+            pending = null;
+            throw e;
+        }
+        Cube previous;
+        swapLock.writeLock().lock();
+        try {
+            delta.cells.forEach((cell, value) -> fresh.add(cell.status, cell.level, cell.type, cell.agentId, value.get()));
+            previous = cube;
+            cube = fresh;
+            pending = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        if (previous != null && previous.total.get() != fresh.total.get()) {
+            logger.info("Alert counters reconciled: {} -> {} alerts", previous.total.get(), fresh.total.get());
+        }
+        logger.debug("Alert counter cube rebuilt with {} cells in {} ms",
+                fresh.cells.size(), System.currentTimeMillis() - start);
+    }
+
+    public void onCreated(SecurityAlert alert) {
+        apply(target -> target.add(alert.getAlertStatus(), alert.getAlertLevel(), alert.getAlertType(), alert.getAgentId(), 1));
+    }
+
+    public void onTransition(SecurityAlert alert, String fromStatus) {
+        if (Objects.equals(fromStatus, alert.getAlertStatus())) {
+            return;
+        }
+        apply(target -> {
+            target.add(fromStatus, alert.getAlertLevel(), alert.getAlertType(), alert.getAgentId(), -1);
+            target.add(alert.getAlertStatus(), alert.getAlertLevel(), alert.getAlertType(), alert.getAgentId(), 1);
+        });
+    }
+
+    private void apply(Consumer<Cube> update) {
+        current();
+        swapLock.readLock().lock();
+        try {
+            update.accept(cube);
+            Cube delta = pending;
+            if (delta != null) {
+                update.accept(delta);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public long countByStatus(String status) {
+        return get(current().byStatus, status);
+    }
+
+    public long countByAgentAndStatus(String agentId, String status) {
+        return get(current().byAgentStatus, agentId + "|" + status);
+    }
+
+    // Same semantics as the old query: CRITICAL and not RESOLVED
+    public long countCriticalUnresolved() {
+        Cube c = current();
+        return get(c.byLevel, "CRITICAL") - get(c.byLevelStatus, "CRITICAL|RESOLVED");
+    }
+
+    public long countAll() {
+        return current().total.get();
+    }
+
+    public Map<String, Long> countsByLevel() {
+        return snapshot(current().byLevel);
+    }
+
+    public Map<String, Long> countsByType() {
+        return snapshot(current().byType);
+    }
+
+    // Ad-hoc slice of the cube; null dimensions match everything
+    public long count(String status, String level, String type, String agentId) {
+        long total = 0;
+        for (Map.Entry<Cell, AtomicLong> entry : current().cells.entrySet()) {
+            Cell cell = entry.getKey();
+            if ((status == null || status.equals(cell.status))
+                    && (level == null || level.equals(cell.level))
+                    && (type == null || type.equals(cell.type))
+                    && (agentId == null || agentId.equals(cell.agentId))) {
+                total += entry.getValue().get();
+            }
+        }
+        return total;
+    }
+
+    private Cube current() {
+        Cube c = cube;
+        if (c == null) {
+            synchronized (this) {
+                if (cube == null) {
+                    reconcile();
+                }
+                c = cube;
+            }
+        }
+        return c;
+    }
+
+    private static long get(Map<String, AtomicLong> counters, String key) {
+        AtomicLong counter = counters.get(key);
+        return counter != null ? counter.get() : 0;
+    }
+
+    private static Map<String, Long> snapshot(Map<String, AtomicLong> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, value) -> {
+            if (value.get() != 0) {
+                result.put(key, value.get());
+            }
+        });
+        return result;
+    }
+
+    // Full cells plus the marginals the stats endpoints read, so every read is a single lookup
+    private static class Cube {
+        private final Map<Cell, AtomicLong> cells = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> byStatus = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> byLevel = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> byLevelStatus = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> byType = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> byAgentStatus = new ConcurrentHashMap<>();
+        private final AtomicLong total = new AtomicLong();
+
+        void add(String status, String level, String type, String agentId, long delta) {
+            cells.computeIfAbsent(new Cell(status, level, type, agentId), k -> new AtomicLong()).addAndGet(delta);
+            increment(byStatus, status, delta);
+            increment(byLevel, level, delta);
+            increment(byLevelStatus, level + "|" + status, delta);
+            increment(byType, type, delta);
+            increment(byAgentStatus, agentId + "|" + status, delta);
+            total.addAndGet(delta);
+        }
+
+        private static void increment(Map<String, AtomicLong> counters, String key, long delta) {
+            counters.computeIfAbsent(String.valueOf(key), k -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    private static class Cell {
+        private final String status;
+        private final String level;
+        private final String type;
+        private final String agentId;
+
+        Cell(String status, String level, String type, String agentId) {
+            this.status = status;
+            this.level = level;
+            this.type = type;
+            this.agentId = agentId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Cell)) return false;
+            Cell cell = (Cell) o;
+            return Objects.equals(status, cell.status) && Objects.equals(level, cell.level)
+                    && Objects.equals(type, cell.type) && Objects.equals(agentId, cell.agentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, level, type, agentId);
+        }
+    }
+}
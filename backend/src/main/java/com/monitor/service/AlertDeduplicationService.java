@@ -0,0 +1,222 @@
+package com.monitor.service;
+
+import com.monitor.entity.SecurityAlert;
+import com.monitor.repository.SecurityAlertRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+@Service
+public class AlertDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertDeduplicationService.class);
+
+    private static final String INCREMENT_OCCURRENCES =
+            "UPDATE security_alert SET occurrence_count = COALESCE(occurrence_count, 1) + ?, " +
+            "last_seen_at = GREATEST(COALESCE(last_seen_at, created_at), ?) WHERE id = ?";
+
+    // Process item keys are "pid:name"; the PID changes on every restart of the same program
+    private static final Pattern LEADING_PID = Pattern.compile("^\\d+:");
+
+    // agentId|fingerprint -> id of the open (NEW or ACKNOWLEDGED) alert, authoritative once loaded
+    private final Map<String, Long> openAlerts = new ConcurrentHashMap<>();
+    // agentId|fingerprint -> alert accepted by the writer but not inserted yet
+    private final Map<String, SecurityAlert> queuedAlerts = new ConcurrentHashMap<>();
+    private final Map<Long, Occurrences> pendingOccurrences = new ConcurrentHashMap<>();
+
+    private final SecurityAlertRepository alertRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public AlertDeduplicationService(SecurityAlertRepository alertRepository,
+                                     JdbcTemplate jdbcTemplate) {
+        this.alertRepository = alertRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Loaded before the alert writer replays its journal, which checks replayed alerts against it
+    @PostConstruct
+    public void loadOpenAlerts() {
+        for (Object[] row : alertRepository.findOpenFingerprints()) {
+            openAlerts.putIfAbsent(cacheKey((String) row[0], (String) row[1]), (Long) row[2]);
+        }
+        logger.info("Loaded {} open alert fingerprints", openAlerts.size());
+    }
+
+    public String fingerprint(String agentId, String alertType, String anomalyType, String itemKey) {
+        return sha256(agentId + "\u0000" + alertType + "\u0000" + anomalyType + "\u0000" + normalizeKey(alertType, itemKey));
+    }
+
+    // The fingerprint without the agent: the same finding on different hosts shares this key
+    public String correlationKey(String alertType, String anomalyType, String itemKey) {
+        return sha256(alertType + "\u0000" + anomalyType + "\u0000" + normalizeKey(alertType, itemKey));
+    }
+
+    private static String sha256(String source) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest(source.getBytes(StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    // Returns true when the candidate opens a new alert and must be written. Otherwise the repeat
+    // is folded into the open alert, or into the queued one if the writer has not inserted it yet.
+    public boolean admit(SecurityAlert candidate) {
+        String key = cacheKey(candidate.getAgentId(), candidate.getFingerprint());
+        LocalDateTime now = LocalDateTime.now();
+        Long alertId = openAlerts.get(key);
+        if (alertId != null) {
+            addOccurrences(alertId, 1, now);
+            return false;
+        }
+        SecurityAlert queued = queuedAlerts.putIfAbsent(key, candidate);
+        if (queued == null) {
+            // the writer may have promoted an earlier alert between the two lookups
+            Long promoted = openAlerts.get(key);
+            if (promoted != null && queuedAlerts.remove(key, candidate)) {
+                addOccurrences(promoted, 1, now);
+                return false;
+            }
+            return true;
+        }
+        synchronized (queued) {
+            if (queued.getId() != null) {
+                addOccurrences(queued.getId(), 1, now);
+            } else {
+                queued.setOccurrenceCount(queued.getOccurrenceCount() + 1);
+                queued.setLastSeenAt(now);
+            }
+        }
+        return false;
+    }
+
+    // Called by the writer after the insert committed; repeats counted since the row was built are carried over
+    public void inserted(SecurityAlert alert, Long alertId, int writtenCount) {
+        String key = cacheKey(alert.getAgentId(), alert.getFingerprint());
+        synchronized (alert) {
+            alert.setId(alertId);
+            int extra = alert.getOccurrenceCount() - writtenCount;
+            if (extra > 0) {
+                addOccurrences(alertId, extra, alert.getLastSeenAt());
+            }
+        }
+        openAlerts.putIfAbsent(key, alertId);
+        queuedAlerts.remove(key, alert);
+    }
+
+    // For an alert read back from the journal: null when it was inserted before a crash or is already
+    // waiting, otherwise the instance to insert. An alert spilled past the queue is still registered
+    // here, and that instance carries the repeats folded into it meanwhile, so it is the one returned.
+    public SecurityAlert replayed(SecurityAlert alert) {
+        String key = cacheKey(alert.getAgentId(), alert.getFingerprint());
+        if (openAlerts.containsKey(key)) {
+            return null;
+        }
+        SecurityAlert queued = queuedAlerts.putIfAbsent(key, alert);
+        if (queued == null) {
+            return alert;
+        }
+        synchronized (queued) {
+            return queued.getId() == null && queued.getCreatedAt() != null
+                    && queued.getCreatedAt().equals(alert.getCreatedAt()) ? queued : null;
+        }
+    }
+
+    // The writer gave up on the alert; later occurrences open a new one
+    public void dropped(SecurityAlert alert) {
+        queuedAlerts.remove(cacheKey(alert.getAgentId(), alert.getFingerprint()), alert);
+    }
+
+    // Resolved or ignored alerts stop absorbing repeats; the next occurrence opens a new alert
+    public void closed(String agentId, String fingerprint, Long alertId) {
+        if (fingerprint != null) {
+            openAlerts.remove(cacheKey(agentId, fingerprint), alertId);
+        }
+    }
+
+    public void forgetAgent(String agentId) {
+        String prefix = agentId + "|";
+        openAlerts.keySet().removeIf(key -> key.startsWith(prefix));
+        queuedAlerts.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public int getOpenCount() {
+        return openAlerts.size();
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.alert.dedup-flush-interval-ms:10000}")
+    public void flush() {
+        if (pendingOccurrences.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (Long alertId : new ArrayList<>(pendingOccurrences.keySet())) {
+            Occurrences occurrences = pendingOccurrences.remove(alertId);
+            if (occurrences != null) {
+                rows.add(new Object[]{occurrences.count, Timestamp.valueOf(occurrences.lastSeen), alertId});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(INCREMENT_OCCURRENCES, rows);
+            logger.debug("Flushed repeat occurrences for {} alerts", rows.size());
+        } catch (Exception e) {
+            logger.error("Failed to flush alert occurrences, will retry", e);
+            for (Object[] row : rows) {
+                addOccurrences((Long) row[2], (Integer) row[0], ((Timestamp) row[1]).toLocalDateTime());
+            }
+        }
+    }
+
+    private void addOccurrences(Long alertId, int count, LocalDateTime lastSeen) {
+        pendingOccurrences.merge(alertId, new Occurrences(count, lastSeen),
+                (a, b) -> new Occurrences(a.count + b.count, a.lastSeen.isAfter(b.lastSeen) ? a.lastSeen : b.lastSeen));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static String cacheKey(String agentId, String fingerprint) {
+        return agentId + "|" + fingerprint;
+    }
+
+    static String normalizeKey(String alertType, String itemKey) {
+        if (itemKey == null) {
+            return "";
+        }
+        String key = itemKey.trim();
+        if ("PROCESS".equals(alertType)) {
+            key = LEADING_PID.matcher(key).replaceFirst("");
+        }
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Occurrences {
+        private final int count;
+        private final LocalDateTime lastSeen;
+
+        Occurrences(int count, LocalDateTime lastSeen) {
+            this.count = count;
+            this.lastSeen = lastSeen;
+        }
+    }
+}
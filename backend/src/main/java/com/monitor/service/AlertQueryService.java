@@ -0,0 +1,159 @@
+package com.monitor.service;
+
+import com.monitor.entity.dto.AlertSearchRequest;
+import com.monitor.entity.dto.AlertSummaryDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class AlertQueryService {
+
+    private static final String SUMMARY_COLUMNS =
+            "id, agent_id, alert_type, alert_level, alert_title, anomaly_type, alert_status, " +
+            "occurrence_count, last_seen_at, created_at";
+
+    private static final RowMapper<AlertSummaryDTO> SUMMARY_MAPPER = (rs, rowNum) -> {
+        AlertSummaryDTO dto = new AlertSummaryDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setAgentId(rs.getString("agent_id"));
+        dto.setAlertType(rs.getString("alert_type"));
+        dto.setAlertLevel(rs.getString("alert_level"));
+        dto.setAlertTitle(rs.getString("alert_title"));
+        dto.setAnomalyType(rs.getString("anomaly_type"));
+        dto.setAlertStatus(rs.getString("alert_status"));
+        int occurrences = rs.getInt("occurrence_count");
+        dto.setOccurrenceCount(rs.wasNull() ? 1 : occurrences);
+        Timestamp lastSeen = rs.getTimestamp("last_seen_at");
+        dto.setLastSeenAt(lastSeen != null ? lastSeen.toLocalDateTime() : null);
+        Timestamp created = rs.getTimestamp("created_at");
+        dto.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+        return dto;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${monitor.alert.search-max-limit:500}")
+    private int maxLimit;
+
+    public AlertQueryService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Keyset pagination on (created_at, id) descending: every page is an index range scan,
+    // however deep the caller pages, and concurrent inserts never shift rows between pages
+    public AlertPage search(AlertSearchRequest request) {
+        int limit = Math.max(1, Math.min(request.getLimit(), maxLimit));
+        StringBuilder sql = new StringBuilder("SELECT ").append(SUMMARY_COLUMNS).append(" FROM security_alert WHERE 1 = 1");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        appendFilters(sql, params, request);
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            Cursor cursor = Cursor.decode(request.getCursor());
+            sql.append(" AND (created_at < :cursorTime OR (created_at = :cursorTime AND id < :cursorId))");
+            params.addValue("cursorTime", Timestamp.valueOf(cursor.createdAt));
+            params.addValue("cursorId", cursor.id);
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+        // one extra row tells whether another page exists without a COUNT
+        params.addValue("limit", limit + 1);
+
+        List<AlertSummaryDTO> rows = jdbcTemplate.query(sql.toString(), params, SUMMARY_MAPPER);
+        boolean hasMore = rows.size() > limit;
+        List<AlertSummaryDTO> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            AlertSummaryDTO last = items.get(items.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new AlertPage(items, nextCursor, hasMore);
+    }
+
+    // Shared with bulk transitions so "resolve everything matching this view" selects the same rows
+    void appendFilters(StringBuilder sql, MapSqlParameterSource params, AlertSearchRequest request) {
+        addIn(sql, params, "agent_id", "agentIds", request.getAgentIds(), false);
+        addIn(sql, params, "alert_status", "statuses", request.getStatuses(), true);
+        addIn(sql, params, "alert_level", "levels", request.getLevels(), true);
+        addIn(sql, params, "alert_type", "types", request.getTypes(), true);
+        if (request.getCorrelationKey() != null) {
+            sql.append(" AND correlation_key = :correlationKey");
+            params.addValue("correlationKey", request.getCorrelationKey());
+        }
+        if (request.getFrom() != null) {
+            sql.append(" AND created_at >= :from");
+            params.addValue("from", Timestamp.valueOf(request.getFrom()));
+        }
+        if (request.getTo() != null) {
+            sql.append(" AND created_at < :to");
+            params.addValue("to", Timestamp.valueOf(request.getTo()));
+        }
+    }
+
+    private void addIn(StringBuilder sql, MapSqlParameterSource params, String column, String name,
+                       List<String> values, boolean upperCase) {
+        if (values == null) {
+            return;
+        }
+        List<String> cleaned = values.stream()
+                .flatMap(v -> Arrays.stream(v.split(",")))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .map(v -> upperCase ? v.toUpperCase(Locale.ROOT) : v)
+                .distinct()
+                .collect(Collectors.toList());
+        if (cleaned.isEmpty()) {
+            return;
+        }
+        sql.append(" AND ").append(column).append(" IN (:").append(name).append(")");
+        params.addValue(name, cleaned);
+    }
+
+    public static class AlertPage {
+        private final List<AlertSummaryDTO> items;
+        private final String nextCursor;
+        private final boolean hasMore;
+
+        public AlertPage(List<AlertSummaryDTO> items, String nextCursor, boolean hasMore) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        public List<AlertSummaryDTO> getItems() { return items; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean isHasMore() { return hasMore; }
+    }
+
+    private static class Cursor {
+        private final LocalDateTime createdAt;
+        private final long id;
+
+        Cursor(LocalDateTime createdAt, long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+        }
+    }
+}
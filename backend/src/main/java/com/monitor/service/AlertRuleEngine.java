@@ -0,0 +1,410 @@
+package com.monitor.service;
+
+import com.monitor.entity.AlertRule;
+import com.monitor.repository.AlertRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// Rule conditions use a small expression language, compiled once per reload:
+//   anomaly == 'NEW' and (name ~ '^(nc|ncat)$' or port in (23, 3389)) and not key startswith '0:'
+// Operators: == != > >= < <= ~ (regex find) contains startswith endswith in, combined with and/or/not.
+// Fields: anomaly, key, value, type, the per-type fields in FIELDS (e.g. name, pid, port, username)
+// and those in MAP_FIELDS (cpu and memory of a process).
+@Service
+public class AlertRuleEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleEngine.class);
+
+    public static final String ACTION_ALERT = "ALERT";
+    public static final String ACTION_SUPPRESS = "SUPPRESS";
+
+    private static final List<String> LEVELS = List.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+
+    // Positions inside the pipe-separated itemValue produced by BaselineDiffEngine
+    private static final Map<String, List<String>> FIELDS = Map.of(
+            "PROCESS", List.of("name", "pid"),
+            "PORT", List.of("port", "protocol", "status", "processName"),
+            "USB", List.of("deviceName", "deviceType", "manufacturer", "serialNumber"),
+            "LOGIN", List.of("username", "loginType", "loginIp", "loginTime"),
+            "SOFTWARE", List.of("name", "version", "publisher"));
+
+    // Fields carried as their own keys of the item map rather than inside itemValue
+    private static final Map<String, Map<String, String>> MAP_FIELDS = Map.of(
+            "PROCESS", Map.of("cpu", "cpuPercent", "memory", "memoryPercent"));
+
+    private final AlertRuleRepository ruleRepository;
+
+    // Replaced wholesale on reload, so evaluation never takes a lock
+    private volatile Map<String, List<CompiledRule>> rulesByType = Collections.emptyMap();
+
+    public AlertRuleEngine(AlertRuleRepository ruleRepository) {
+        this.ruleRepository = ruleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        Map<String, List<CompiledRule>> compiled = new HashMap<>();
+        int skipped = 0;
+        for (AlertRule rule : ruleRepository.findByEnabledTrue()) {
+            try {
+                compiled.computeIfAbsent(rule.getRuleType().toUpperCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(new CompiledRule(rule, compile(rule.getRuleCondition())));
+            } catch (RuntimeException e) {
+                skipped++;
+                logger.warn("Alert rule {} ({}) not loaded: {}", rule.getId(), rule.getRuleName(), e.getMessage());
+            }
+        }
+        compiled.values().forEach(list -> list.sort(Comparator.comparing(r -> r.getRule().getId())));
+        rulesByType = compiled;
+        logger.info("Compiled {} alert rules ({} skipped)",
+                compiled.values().stream().mapToInt(List::size).sum(), skipped);
+    }
+
+    // A matching SUPPRESS rule drops the alert; otherwise the most severe matching rule sets the level.
+    // Returns null when no rule of the type matches, so the caller falls back to its default level.
+    public Decision evaluate(String dataType, String anomalyType, String itemKey, Map<String, Object> item) {
+        List<CompiledRule> rules = rulesByType.get(dataType);
+        if (rules == null || rules.isEmpty()) {
+            return null;
+        }
+        RuleContext context = new RuleContext(dataType, anomalyType, itemKey, item);
+        CompiledRule selected = null;
+        for (CompiledRule rule : rules) {
+            if (!rule.getPredicate().test(context)) {
+                continue;
+            }
+            if (ACTION_SUPPRESS.equalsIgnoreCase(rule.getRule().getActionType())) {
+                return new Decision(rule.getRule(), null, true);
+            }
+            if (selected == null || severity(rule.getRule().getAlertLevel()) > severity(selected.getRule().getAlertLevel())) {
+                selected = rule;
+            }
+        }
+        return selected != null ? new Decision(selected.getRule(), selected.getRule().getAlertLevel(), false) : null;
+    }
+
+    public int getRuleCount() {
+        return rulesByType.values().stream().mapToInt(List::size).sum();
+    }
+
+    // Throws RuntimeException with the position of the first syntax error
+    public Predicate<RuleContext> compile(String condition) {
+        if (condition == null || condition.isBlank()) {
+            throw new RuntimeException("Rule condition is empty");
+        }
+        return new Parser(condition).parse();
+    }
+
+    private static int severity(String level) {
+        return level != null ? LEVELS.indexOf(level.toUpperCase(Locale.ROOT)) : -1;
+    }
+
+    public static class Decision {
+        private final AlertRule rule;
+        private final String alertLevel;
+        private final boolean suppressed;
+
+        Decision(AlertRule rule, String alertLevel, boolean suppressed) {
+            this.rule = rule;
+            this.alertLevel = alertLevel;
+            this.suppressed = suppressed;
+        }
+
+        public AlertRule getRule() { return rule; }
+        public String getAlertLevel() { return alertLevel; }
+        public boolean isSuppressed() { return suppressed; }
+    }
+
+    private static class CompiledRule {
+        private final AlertRule rule;
+        private final Predicate<RuleContext> predicate;
+
+        CompiledRule(AlertRule rule, Predicate<RuleContext> predicate) {
+            this.rule = rule;
+            this.predicate = predicate;
+        }
+
+        AlertRule getRule() { return rule; }
+        Predicate<RuleContext> getPredicate() { return predicate; }
+    }
+
+    // Field values are split out of itemValue only when a rule first asks for one
+    public static class RuleContext {
+        private final String dataType;
+        private final String anomalyType;
+        private final String itemKey;
+        private final Map<String, Object> item;
+        private String[] parts;
+
+        public RuleContext(String dataType, String anomalyType, String itemKey, Map<String, Object> item) {
+            this.dataType = dataType;
+            this.anomalyType = anomalyType;
+            this.itemKey = itemKey;
+            this.item = item != null ? item : Collections.emptyMap();
+        }
+
+        Object get(String field) {
+            switch (field) {
+                case "anomaly":
+                    return anomalyType;
+                case "key":
+                    return itemKey;
+                case "type":
+                    return dataType;
+                case "value":
+                    return item.get("itemValue");
+                default:
+                    break;
+            }
+            if (item.containsKey(field)) {
+                return item.get(field);
+            }
+            String mapKey = MAP_FIELDS.getOrDefault(dataType, Collections.emptyMap()).get(field);
+            if (mapKey != null) {
+                return item.get(mapKey);
+            }
+            List<String> names = FIELDS.get(dataType);
+            int position = names != null ? names.indexOf(field) : -1;
+            if (position < 0) {
+                return null;
+            }
+            if (parts == null) {
+                Object value = item.get("itemValue");
+                parts = value != null ? value.toString().split("\\|", -1) : new String[0];
+            }
+            if (position >= parts.length || "null".equals(parts[position])) {
+                return null;
+            }
+            return parts[position];
+        }
+    }
+
+    // Recursive descent: or -> and -> not -> comparison | '(' or ')'
+    private static class Parser {
+        private final String source;
+        private int pos;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        Predicate<RuleContext> parse() {
+            Predicate<RuleContext> predicate = parseOr();
+            skipWhitespace();
+            if (pos < source.length()) {
+                throw error("unexpected '" + source.substring(pos) + "'");
+            }
+            return predicate;
+        }
+
+        private Predicate<RuleContext> parseOr() {
+            Predicate<RuleContext> left = parseAnd();
+            while (acceptKeyword("or")) {
+                left = left.or(parseAnd());
+            }
+            return left;
+        }
+
+        private Predicate<RuleContext> parseAnd() {
+            Predicate<RuleContext> left = parseNot();
+            while (acceptKeyword("and")) {
+                left = left.and(parseNot());
+            }
+            return left;
+        }
+
+        private Predicate<RuleContext> parseNot() {
+            if (acceptKeyword("not")) {
+                return parseNot().negate();
+            }
+            if (accept("(")) {
+                Predicate<RuleContext> inner = parseOr();
+                expect(")");
+                return inner;
+            }
+            if (acceptKeyword("true")) {
+                return ctx -> true;
+            }
+            if (acceptKeyword("false")) {
+                return ctx -> false;
+            }
+            return parseComparison();
+        }
+
+        private Predicate<RuleContext> parseComparison() {
+            String field = identifier();
+            if (acceptKeyword("in")) {
+                expect("(");
+                List<String> values = new ArrayList<>();
+                do {
+                    values.add(literal());
+                } while (accept(","));
+                expect(")");
+                return ctx -> {
+                    Object actual = ctx.get(field);
+                    return actual != null && values.stream().anyMatch(v -> compare(actual, v) == 0);
+                };
+            }
+            String op = operator();
+            String expected = literal();
+            switch (op) {
+                case "==":
+                    return ctx -> compareOrNull(ctx.get(field), expected) == 0;
+                case "!=":
+                    return ctx -> compareOrNull(ctx.get(field), expected) != 0;
+                case ">":
+                    return ctx -> ctx.get(field) != null && compare(ctx.get(field), expected) > 0;
+                case ">=":
+                    return ctx -> ctx.get(field) != null && compare(ctx.get(field), expected) >= 0;
+                case "<":
+                    return ctx -> ctx.get(field) != null && compare(ctx.get(field), expected) < 0;
+                case "<=":
+                    return ctx -> ctx.get(field) != null && compare(ctx.get(field), expected) <= 0;
+                case "~":
+                    Pattern pattern = Pattern.compile(expected, Pattern.CASE_INSENSITIVE);
+                    return ctx -> ctx.get(field) != null && pattern.matcher(ctx.get(field).toString()).find();
+                case "contains":
+                    String needle = expected.toLowerCase(Locale.ROOT);
+                    return ctx -> ctx.get(field) != null && ctx.get(field).toString().toLowerCase(Locale.ROOT).contains(needle);
+                case "startswith":
+                    String prefix = expected.toLowerCase(Locale.ROOT);
+                    return ctx -> ctx.get(field) != null && ctx.get(field).toString().toLowerCase(Locale.ROOT).startsWith(prefix);
+                case "endswith":
+                    String suffix = expected.toLowerCase(Locale.ROOT);
+                    return ctx -> ctx.get(field) != null && ctx.get(field).toString().toLowerCase(Locale.ROOT).endsWith(suffix);
+                default:
+                    throw error("unknown operator " + op);
+            }
+        }
+
+        private String operator() {
+            skipWhitespace();
+            for (String op : List.of("==", "!=", ">=", "<=", ">", "<", "~")) {
+                if (source.startsWith(op, pos)) {
+                    pos += op.length();
+                    return op;
+                }
+            }
+            for (String op : List.of("contains", "startswith", "endswith")) {
+                if (acceptKeyword(op)) {
+                    return op;
+                }
+            }
+            throw error("expected an operator");
+        }
+
+        private String identifier() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("expected a field name");
+            }
+            return source.substring(start, pos);
+        }
+
+        private String literal() {
+            skipWhitespace();
+            if (pos < source.length() && (source.charAt(pos) == '\'' || source.charAt(pos) == '"')) {
+                char quote = source.charAt(pos++);
+                StringBuilder sb = new StringBuilder();
+                while (pos < source.length() && source.charAt(pos) != quote) {
+                    char c = source.charAt(pos++);
+                    if (c == '\\' && pos < source.length()) {
+                        c = source.charAt(pos++);
+                    }
+                    sb.append(c);
+                }
+                expect(String.valueOf(quote));
+                return sb.toString();
+            }
+            int start = pos;
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos))
+                    || source.charAt(pos) == '.' || source.charAt(pos) == '-')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("expected a quoted string or a number");
+            }
+            return source.substring(start, pos);
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (source.regionMatches(true, pos, keyword, 0, keyword.length())
+                    && (end == source.length() || !Character.isLetterOrDigit(source.charAt(end)))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean accept(String token) {
+            skipWhitespace();
+            if (source.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw error("expected '" + token + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private RuntimeException error(String message) {
+            return new RuntimeException("Invalid rule condition at position " + pos + ": " + message);
+        }
+    }
+
+    private static int compareOrNull(Object actual, String expected) {
+        return actual == null ? 1 : compare(actual, expected);
+    }
+
+    // Numeric when both sides are numbers, otherwise case-insensitive text
+    private static int compare(Object actual, String expected) {
+        String text = actual.toString();
+        Double left = toNumber(text);
+        Double right = left != null ? toNumber(expected) : null;
+        if (left != null && right != null) {
+            return Double.compare(left, right);
+        }
+        return text.compareToIgnoreCase(expected);
+    }
+
+    // Cheap pre-check so text fields never pay for a NumberFormatException
+    private static Double toNumber(String text) {
+        if (text.isEmpty() || text.length() > 32) {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!(Character.isDigit(c) || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E')) {
+                return null;
+            }
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
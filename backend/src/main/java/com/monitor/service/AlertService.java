@@ -8,9 +8,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,16 +24,40 @@ public class AlertService {
 
     private final SecurityAlertRepository alertRepository;
     private final AlertRuleRepository ruleRepository;
+    private final AlertDeduplicationService deduplicationService;
+    private final AlertWriter alertWriter;
+    private final AlertRuleEngine ruleEngine;
+    private final AlertCounterService counterService;
+    private final EventBroadcaster eventBroadcaster;
 
     public AlertService(SecurityAlertRepository alertRepository,
-                       AlertRuleRepository ruleRepository) {
+                       AlertRuleRepository ruleRepository,
+                       AlertDeduplicationService deduplicationService,
+                       AlertWriter alertWriter,
+                       AlertRuleEngine ruleEngine,
+                       AlertCounterService counterService,
+                       EventBroadcaster eventBroadcaster) {
         this.alertRepository = alertRepository;
         this.ruleRepository = ruleRepository;
+        this.deduplicationService = deduplicationService;
+        this.alertWriter = alertWriter;
+        this.ruleEngine = ruleEngine;
+        this.counterService = counterService;
+        this.eventBroadcaster = eventBroadcaster;
     }
 
     public SecurityAlert createAlert(String agentId, String alertType, String alertLevel,
                                       String alertTitle, String alertContent, String anomalyType,
                                       String baselineItem, String currentItem) {
+        return createAlert(agentId, alertType, alertLevel, alertTitle, alertContent, anomalyType,
+                alertTitle, baselineItem, currentItem);
+    }
+
+    // Returns null when the alert repeats an open one; the repeat only bumps its occurrence count.
+    // New alerts are written in batches by AlertWriter, so the returned alert has no id yet.
+    public SecurityAlert createAlert(String agentId, String alertType, String alertLevel,
+                                      String alertTitle, String alertContent, String anomalyType,
+                                      String itemKey, String baselineItem, String currentItem) {
         SecurityAlert alert = new SecurityAlert();
         alert.setAgentId(agentId);
         alert.setAlertType(alertType);
@@ -40,9 +68,18 @@ public class AlertService {
         alert.setBaselineItem(baselineItem);
         alert.setCurrentItem(currentItem);
         alert.setAlertStatus("NEW");
+        alert.setFingerprint(deduplicationService.fingerprint(agentId, alertType, anomalyType, itemKey));
+        alert.setCorrelationKey(deduplicationService.correlationKey(alertType, anomalyType, itemKey));
+        alert.setItemKey(itemKey);
+        alert.setOccurrenceCount(1);
         alert.setCreatedAt(LocalDateTime.now());
+        alert.setLastSeenAt(alert.getCreatedAt());
 
-        return alertRepository.save(alert);
+        if (!deduplicationService.admit(alert)) {
+            return null;
+        }
+        alertWriter.enqueue(alert);
+        return alert;
     }
 
     public SecurityAlert createSimpleAlert(String agentId, String alertType, String alertLevel,
@@ -71,15 +108,15 @@ public class AlertService {
     }
 
     public long countNewAlerts() {
-        return alertRepository.countNewAlerts();
+        return counterService.countByStatus("NEW");
     }
 
     public long countNewAlertsByAgent(String agentId) {
-        return alertRepository.countNewAlertsByAgent(agentId);
+        return counterService.countByAgentAndStatus(agentId, "NEW");
     }
 
     public long countCriticalUnresolved() {
-        return alertRepository.countCriticalUnresolved();
+        return counterService.countCriticalUnresolved();
     }
 
     @Transactional
@@ -87,10 +124,12 @@ public class AlertService {
         Optional<SecurityAlert> alertOpt = alertRepository.findById(alertId);
         if (alertOpt.isPresent()) {
             SecurityAlert alert = alertOpt.get();
+            String previousStatus = alert.getAlertStatus();
             alert.setAlertStatus("ACKNOWLEDGED");
             alert.setAcknowledgedAt(LocalDateTime.now());
             alert.setAcknowledgedBy(acknowledgedBy);
             logger.info("Alert {} acknowledged by {}", alertId, acknowledgedBy);
+            runAfterCommit(() -> onTransition(alert, previousStatus));
             return alertRepository.save(alert);
         }
         throw new RuntimeException("Alert not found: " + alertId);
@@ -101,11 +140,17 @@ public class AlertService {
         Optional<SecurityAlert> alertOpt = alertRepository.findById(alertId);
         if (alertOpt.isPresent()) {
             SecurityAlert alert = alertOpt.get();
+            String previousStatus = alert.getAlertStatus();
             alert.setAlertStatus("RESOLVED");
             alert.setResolvedAt(LocalDateTime.now());
             alert.setResolvedBy(resolvedBy);
             alert.setResolutionNote(resolutionNote);
             logger.info("Alert {} resolved by {}: {}", alertId, resolvedBy, resolutionNote);
+            // repeats keep folding into the alert until the close is committed
+            runAfterCommit(() -> {
+                deduplicationService.closed(alert.getAgentId(), alert.getFingerprint(), alert.getId());
+                onTransition(alert, previousStatus);
+            });
             return alertRepository.save(alert);
         }
         throw new RuntimeException("Alert not found: " + alertId);
@@ -116,11 +161,17 @@ public class AlertService {
         Optional<SecurityAlert> alertOpt = alertRepository.findById(alertId);
         if (alertOpt.isPresent()) {
             SecurityAlert alert = alertOpt.get();
+            String previousStatus = alert.getAlertStatus();
             alert.setAlertStatus("IGNORED");
             alert.setIgnoredAt(LocalDateTime.now());
             alert.setIgnoredBy(ignoredBy);
             alert.setIgnoreReason(ignoreReason);
             logger.info("Alert {} ignored by {}: {}", alertId, ignoredBy, ignoreReason);
+            // repeats keep folding into the alert until the close is committed
+            runAfterCommit(() -> {
+                deduplicationService.closed(alert.getAgentId(), alert.getFingerprint(), alert.getId());
+                onTransition(alert, previousStatus);
+            });
             return alertRepository.save(alert);
         }
         throw new RuntimeException("Alert not found: " + alertId);
@@ -133,6 +184,8 @@ public class AlertService {
 
     public AlertRule createRule(String ruleType, String ruleName, String ruleCondition,
                                  String alertLevel, String actionType, boolean enabled) {
+        // rejects conditions that do not compile before they reach the table
+        ruleEngine.compile(ruleCondition);
         AlertRule rule = new AlertRule();
         rule.setRuleType(ruleType);
         rule.setRuleName(ruleName);
@@ -141,7 +194,13 @@ public class AlertService {
         rule.setActionType(actionType);
         rule.setEnabled(enabled);
         rule.setCreatedAt(LocalDateTime.now());
-        return ruleRepository.save(rule);
+        AlertRule saved = ruleRepository.save(rule);
+        reloadRulesAfterCommit();
+        return saved;
+    }
+
+    public void validateRuleCondition(String ruleCondition) {
+        ruleEngine.compile(ruleCondition);
     }
 
     public List<AlertRule> getEnabledRules() {
@@ -162,23 +221,60 @@ public class AlertService {
         if (ruleOpt.isPresent()) {
             AlertRule rule = ruleOpt.get();
             rule.setEnabled(enabled);
-            return ruleRepository.save(rule);
+            AlertRule saved = ruleRepository.save(rule);
+            reloadRulesAfterCommit();
+            return saved;
         }
         throw new RuntimeException("Rule not found: " + ruleId);
     }
 
     public void deleteRule(Long ruleId) {
         ruleRepository.deleteById(ruleId);
+        reloadRulesAfterCommit();
+    }
+
+    private void onTransition(SecurityAlert alert, String previousStatus) {
+        counterService.onTransition(alert, previousStatus);
+        Map<String, Object> event = new HashMap<>();
+        event.put("id", alert.getId());
+        event.put("agentId", alert.getAgentId());
+        event.put("alertStatus", alert.getAlertStatus());
+        event.put("previousStatus", previousStatus);
+        event.put("alertLevel", alert.getAlertLevel());
+        event.put("alertType", alert.getAlertType());
+        eventBroadcaster.publish(EventBroadcaster.ALERT_STATUS, alert.getAgentId(), alert.getAlertLevel(),
+                alert.getAlertType(), event);
+    }
+
+    // Rule changes are rare; the engine recompiles the whole set once the change is visible
+    private void reloadRulesAfterCommit() {
+        runAfterCommit(ruleEngine::reload);
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     public AlertStats getAlertStats() {
         AlertStats stats = new AlertStats();
-        stats.setTotalNew(alertRepository.countNewAlerts());
-        stats.setTotalAcknowledged(alertRepository.countByStatus("ACKNOWLEDGED"));
-        stats.setTotalResolved(alertRepository.countByStatus("RESOLVED"));
-        stats.setTotalIgnored(alertRepository.countByStatus("IGNORED"));
-        stats.setCriticalUnresolved(alertRepository.countCriticalUnresolved());
-        stats.setTotalAlerts(alertRepository.count());
+        // Served from the in-memory counter cube, no queries
+        stats.setTotalNew(counterService.countByStatus("NEW"));
+        stats.setTotalAcknowledged(counterService.countByStatus("ACKNOWLEDGED"));
+        stats.setTotalResolved(counterService.countByStatus("RESOLVED"));
+        stats.setTotalIgnored(counterService.countByStatus("IGNORED"));
+        stats.setCriticalUnresolved(counterService.countCriticalUnresolved());
+        stats.setTotalAlerts(counterService.countAll());
+        stats.setByLevel(counterService.countsByLevel());
+        stats.setByType(counterService.countsByType());
         return stats;
     }
 
@@ -189,6 +285,8 @@ public class AlertService {
         private long totalIgnored;
         private long criticalUnresolved;
         private long totalAlerts;
+        private Map<String, Long> byLevel;
+        private Map<String, Long> byType;
 
         public long getTotalNew() { return totalNew; }
         public void setTotalNew(long totalNew) { this.totalNew = totalNew; }
@@ -202,5 +300,9 @@ public class AlertService {
         public void setCriticalUnresolved(long criticalUnresolved) { this.criticalUnresolved = criticalUnresolved; }
         public long getTotalAlerts() { return totalAlerts; }
         public void setTotalAlerts(long totalAlerts) { this.totalAlerts = totalAlerts; }
+        public Map<String, Long> getByLevel() { return byLevel; }
+        public void setByLevel(Map<String, Long> byLevel) { this.byLevel = byLevel; }
+        public Map<String, Long> getByType() { return byType; }
+        public void setByType(Map<String, Long> byType) { this.byType = byType; }
     }
 }
@@ -0,0 +1,470 @@
+package com.monitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitor.entity.SecurityAlert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class AlertWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertWriter.class);
+
+    private static final String INSERT_ALERT =
+            "INSERT INTO security_alert (agent_id, alert_type, alert_level, alert_title, alert_content, anomaly_type, " +
+            "baseline_item, current_item, alert_status, fingerprint, correlation_key, occurrence_count, last_seen_at, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SEGMENT_PREFIX = "alerts-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AlertDeduplicationService deduplicationService;
+    private final ObjectMapper objectMapper;
+    private final AlertCounterService counterService;
+    private final EventBroadcaster eventBroadcaster;
+    private final NotificationDispatcher notificationDispatcher;
+    private final IncidentCorrelationService incidentCorrelationService;
+
+    // Every queued alert is also appended to the open journal segment. A segment is deleted only
+    // once all of its alerts are committed, so a crash replays them (at-least-once) on startup.
+    // Memory is bounded: past queue-capacity alerts are only journaled, and a segment that would push
+    // the retry list past retry-capacity is left on disk as pending and read back once retry drains.
+    private final Object journalLock = new Object();
+    private final Object flushLock = new Object();
+    private final List<SecurityAlert> queue = new ArrayList<>();
+    private final List<SecurityAlert> retry = new ArrayList<>();
+    // segments whose alerts are all in retry; deleted when it drains
+    private final List<Path> closedSegments = new ArrayList<>();
+    // segments whose alerts are only on disk, oldest first
+    private final Deque<Path> pendingSegments = new ArrayDeque<>();
+    private Path journalDir;
+    private Path openSegment;
+    private BufferedWriter journal;
+    private long segmentSequence;
+    private int segmentAlerts;
+    // some alerts of the open segment were journaled without being queued
+    private boolean segmentSpilled;
+    private Thread writerThread;
+    private volatile boolean running = true;
+
+    // Flush barrier: enqueue numbers every alert, and the writer publishes the number it has written up to
+    private final Object flushedLock = new Object();
+    private long enqueuedSequence;
+    private long flushedSequence;
+
+    @Value("${monitor.alert.journal-dir:data/alert-journal}")
+    private String journalDirectory;
+
+    @Value("${monitor.alert.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${monitor.alert.retry-capacity:50000}")
+    private int retryCapacity;
+
+    @Value("${monitor.alert.batch-size:500}")
+    private int batchSize;
+
+    @Value("${monitor.alert.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    public AlertWriter(JdbcTemplate jdbcTemplate,
+                       AlertDeduplicationService deduplicationService,
+                       ObjectMapper objectMapper,
+                       AlertCounterService counterService,
+                       EventBroadcaster eventBroadcaster,
+                       NotificationDispatcher notificationDispatcher,
+                       IncidentCorrelationService incidentCorrelationService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deduplicationService = deduplicationService;
+        this.objectMapper = objectMapper;
+        this.counterService = counterService;
+        this.eventBroadcaster = eventBroadcaster;
+        this.notificationDispatcher = notificationDispatcher;
+        this.incidentCorrelationService = incidentCorrelationService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        journalDir = Paths.get(journalDirectory);
+        Files.createDirectories(journalDir);
+        replayJournal();
+        openSegment();
+
+        writerThread = new Thread(this::run, "alert-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Hands the alert to the background writer and never writes on the caller's thread. With the
+    // queue full the alert is kept in the journal only.
+    public void enqueue(SecurityAlert alert) {
+        synchronized (journalLock) {
+            enqueuedSequence++;
+            if (queue.size() < queueCapacity) {
+                appendToJournal(alert);
+                queue.add(alert);
+            } else if (journal != null && appendToJournal(alert)) {
+                // stays registered with deduplication, so repeats still fold into it until it is read back
+                segmentSpilled = true;
+                if (segmentAlerts >= retryCapacity) {
+                    spillSegment();
+                }
+            } else {
+                logger.error("Alert queue full and journal unavailable, dropping alert '{}' for agent {}",
+                        alert.getAlertTitle(), alert.getAgentId());
+                deduplicationService.dropped(alert);
+            }
+            if (queue.size() >= batchSize) {
+                journalLock.notifyAll();
+            }
+        }
+    }
+
+    // Wakes the writer and waits until everything enqueued before the call is written, for callers that
+    // must see those alerts in the database. Returns false on timeout, e.g. while the database is down.
+    public boolean awaitFlushed(long timeoutMs) throws InterruptedException {
+        long target;
+        synchronized (journalLock) {
+            target = enqueuedSequence;
+            journalLock.notifyAll();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (flushedLock) {
+            while (flushedSequence < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                flushedLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    public int getQueuedCount() {
+        synchronized (journalLock) {
+            return queue.size();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                synchronized (journalLock) {
+                    if (queue.size() < batchSize) {
+                        journalLock.wait(flushIntervalMs);
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Alert writer loop failed", e);
+            }
+        }
+    }
+
+    // Runs on the writer thread, and at startup and shutdown; never on a caller's thread
+    private void flush() {
+        synchronized (flushLock) {
+            long target;
+            synchronized (journalLock) {
+                target = enqueuedSequence;
+                if (queue.isEmpty() && retry.isEmpty() && pendingSegments.isEmpty() && !segmentSpilled) {
+                    markFlushed(target);
+                    return;
+                }
+                if (segmentSpilled || retry.size() + queue.size() > retryCapacity) {
+                    spillSegment();
+                } else if (openSegment != null) {
+                    retry.addAll(queue);
+                    queue.clear();
+                    closedSegments.add(closeSegment());
+                    openSegment();
+                } else {
+                    // no journal to spill to; keep what fits
+                    int room = Math.max(0, retryCapacity - retry.size());
+                    List<SecurityAlert> kept = queue.subList(0, Math.min(room, queue.size()));
+                    retry.addAll(kept);
+                    kept.clear();
+                    if (!queue.isEmpty()) {
+                        logger.error("Alert retry list full and journal unavailable, dropping {} alerts", queue.size());
+                        queue.forEach(deduplicationService::dropped);
+                        queue.clear();
+                    }
+                }
+            }
+
+            try {
+                while (true) {
+                    while (!retry.isEmpty()) {
+                        List<SecurityAlert> chunk = new ArrayList<>(retry.subList(0, Math.min(batchSize, retry.size())));
+                        insert(chunk);
+                        retry.subList(0, chunk.size()).clear();
+                    }
+                    deleteClosedSegments();
+                    Path next;
+                    synchronized (journalLock) {
+                        next = pendingSegments.poll();
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    retry.addAll(readSegment(next));
+                    closedSegments.add(next);
+                }
+                markFlushed(target);
+            } catch (Exception e) {
+                logger.error("Failed to write {} queued alerts, will retry", retry.size(), e);
+            }
+        }
+    }
+
+    private void markFlushed(long sequence) {
+        synchronized (flushedLock) {
+            if (sequence > flushedSequence) {
+                flushedSequence = sequence;
+                flushedLock.notifyAll();
+            }
+        }
+    }
+
+    // Caller holds the journal lock. Everything in the open segment is left to be read back from
+    // disk; deduplication keeps the dropped copies, which replace their lines when read back.
+    private void spillSegment() {
+        if (openSegment == null) {
+            return;
+        }
+        queue.clear();
+        pendingSegments.add(closeSegment());
+        openSegment();
+    }
+
+    private void deleteClosedSegments() {
+        for (Path segment : closedSegments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                logger.warn("Could not delete alert journal segment {}", segment, e);
+            }
+        }
+        closedSegments.clear();
+    }
+
+    private void insert(List<SecurityAlert> alerts) {
+        List<Integer> writtenCounts = new ArrayList<>(alerts.size());
+        List<Long> ids;
+        try {
+            ids = insertBatch(alerts, writtenCounts);
+        } catch (DataIntegrityViolationException e) {
+            // one bad row must not block the rest of the queue forever
+            logger.warn("Batch insert of {} alerts rejected, retrying row by row", alerts.size());
+            insertIndividually(alerts);
+            return;
+        }
+        for (int i = 0; i < alerts.size(); i++) {
+            deduplicationService.inserted(alerts.get(i), ids.get(i), writtenCounts.get(i));
+            afterInsert(alerts.get(i));
+        }
+        logger.debug("Inserted {} alerts in one batch", alerts.size());
+    }
+
+    // Only committed alerts reach correlation, so an incident never counts an alert that was dropped
+    private void afterInsert(SecurityAlert alert) {
+        counterService.onCreated(alert);
+        incidentCorrelationService.observe(alert, alert.getItemKey());
+        eventBroadcaster.publish(EventBroadcaster.ALERT, alert.getAgentId(), alert.getAlertLevel(), alert.getAlertType(), alert);
+        notificationDispatcher.dispatch(alert);
+    }
+
+    private void insertIndividually(List<SecurityAlert> alerts) {
+        for (SecurityAlert alert : alerts) {
+            List<Integer> writtenCounts = new ArrayList<>(1);
+            try {
+                Long id = insertBatch(List.of(alert), writtenCounts).get(0);
+                deduplicationService.inserted(alert, id, writtenCounts.get(0));
+                afterInsert(alert);
+            } catch (DataIntegrityViolationException e) {
+                logger.error("Dropping alert '{}' for agent {}: {}", alert.getAlertTitle(), alert.getAgentId(), e.getMessage());
+                deduplicationService.dropped(alert);
+            }
+        }
+    }
+
+    // With rewriteBatchedStatements the batch is sent as multi-row INSERTs; keys come back in order
+    private List<Long> insertBatch(List<SecurityAlert> alerts, List<Integer> writtenCounts) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ALERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (SecurityAlert alert : alerts) {
+                    int occurrences;
+                    LocalDateTime lastSeen;
+                    synchronized (alert) {
+                        occurrences = alert.getOccurrenceCount() != null ? alert.getOccurrenceCount() : 1;
+                        lastSeen = alert.getLastSeenAt() != null ? alert.getLastSeenAt() : alert.getCreatedAt();
+                    }
+                    writtenCounts.add(occurrences);
+                    ps.setString(1, alert.getAgentId());
+                    ps.setString(2, alert.getAlertType());
+                    ps.setString(3, alert.getAlertLevel());
+                    ps.setString(4, alert.getAlertTitle());
+                    ps.setString(5, alert.getAlertContent());
+                    ps.setString(6, alert.getAnomalyType());
+                    ps.setString(7, alert.getBaselineItem());
+                    ps.setString(8, alert.getCurrentItem());
+                    ps.setString(9, alert.getAlertStatus());
+                    ps.setString(10, alert.getFingerprint());
+                    ps.setString(11, alert.getCorrelationKey());
+                    ps.setInt(12, occurrences);
+                    setTimestamp(ps, 13, lastSeen);
+                    setTimestamp(ps, 14, alert.getCreatedAt());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> ids = new ArrayList<>(alerts.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws java.sql.SQLException {
+        if (value != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+
+    private boolean appendToJournal(SecurityAlert alert) {
+        if (journal == null) {
+            return false;
+        }
+        try {
+            journal.write(objectMapper.writeValueAsString(alert));
+            journal.newLine();
+            // reaches the OS on every alert, so a JVM crash does not lose the queue
+            journal.flush();
+            segmentAlerts++;
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not journal alert for agent {}: {}", alert.getAgentId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void openSegment() {
+        segmentAlerts = 0;
+        segmentSpilled = false;
+        openSegment = journalDir.resolve(String.format("%s%d-%06d%s",
+                SEGMENT_PREFIX, System.currentTimeMillis(), ++segmentSequence, SEGMENT_SUFFIX));
+        try {
+            journal = Files.newBufferedWriter(openSegment, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("Could not open alert journal {}, queued alerts are kept in memory only", openSegment, e);
+            journal = null;
+        }
+    }
+
+    private Path closeSegment() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.warn("Could not close alert journal {}", openSegment, e);
+            }
+        }
+        Path closed = openSegment;
+        journal = null;
+        openSegment = null;
+        return closed;
+    }
+
+    private void replayJournal() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            segments = files
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+        // read back one segment at a time by the flush, like spilled ones
+        pendingSegments.addAll(segments);
+        logger.info("Replaying {} alert journal segments", segments.size());
+        flush();
+    }
+
+    private List<SecurityAlert> readSegment(Path segment) throws IOException {
+        List<SecurityAlert> alerts = new ArrayList<>();
+        for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                SecurityAlert alert = objectMapper.readValue(line, SecurityAlert.class);
+                alert.setId(null);
+                SecurityAlert replayed = deduplicationService.replayed(alert);
+                if (replayed != null) {
+                    alerts.add(replayed);
+                }
+            } catch (IOException e) {
+                // a torn last line from the crash
+                logger.warn("Skipping unreadable alert journal entry in {}", segment);
+            }
+        }
+        return alerts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+        }
+        flush();
+        synchronized (journalLock) {
+            if (journal != null && queue.isEmpty() && retry.isEmpty() && pendingSegments.isEmpty()
+                    && !segmentSpilled) {
+                closedSegments.add(closeSegment());
+                closedSegments.forEach(segment -> {
+                    try {
+                        Files.deleteIfExists(segment);
+                    } catch (IOException ignored) {
+                        // replayed and skipped as empty next time
+                    }
+                });
+            }
+        }
+    }
+}
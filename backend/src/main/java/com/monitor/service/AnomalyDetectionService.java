@@ -1,39 +1,40 @@
 package com.monitor.service;
 
-import com.monitor.entity.BaselineItem;
-import com.monitor.entity.BaselineConfig;
-import com.monitor.entity.SecurityAlert;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.monitor.entity.dto.AnomalyDTO;
 import com.monitor.entity.dto.BaselineCompareResult;
-import com.monitor.repository.BaselineConfigRepository;
-import com.monitor.repository.BaselineItemRepository;
-import com.monitor.repository.BaselineSnapshotRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class AnomalyDetectionService {
 
     private static final Logger logger = LoggerFactory.getLogger(AnomalyDetectionService.class);
 
-    private final BaselineConfigRepository configRepository;
-    private final BaselineSnapshotRepository snapshotRepository;
-    private final BaselineItemRepository itemRepository;
+    private final BaselineCache baselineCache;
+    private final BaselineDiffEngine diffEngine;
     private final AlertService alertService;
-
-    public AnomalyDetectionService(BaselineConfigRepository configRepository,
-                                   BaselineSnapshotRepository snapshotRepository,
-                                   BaselineItemRepository itemRepository,
-                                   AlertService alertService) {
-        this.configRepository = configRepository;
-        this.snapshotRepository = snapshotRepository;
-        this.itemRepository = itemRepository;
+    private final FleetRarityService fleetRarityService;
+    private final ObjectMapper objectMapper;
+    private final AlertRuleEngine ruleEngine;
+
+    public AnomalyDetectionService(BaselineCache baselineCache,
+                                   BaselineDiffEngine diffEngine,
+                                   AlertService alertService,
+                                   FleetRarityService fleetRarityService,
+                                   ObjectMapper objectMapper,
+                                   AlertRuleEngine ruleEngine) {
+        this.baselineCache = baselineCache;
+        this.diffEngine = diffEngine;
         this.alertService = alertService;
+        this.fleetRarityService = fleetRarityService;
+        this.objectMapper = objectMapper;
+        this.ruleEngine = ruleEngine;
     }
 
     @Transactional
@@ -42,78 +43,60 @@ public class AnomalyDetectionService {
             return;
         }
 
-        Optional<BaselineConfig> configOpt = configRepository.findByAgentIdAndBaselineType(agentId, dataType);
-        if (configOpt.isEmpty() || !"ACTIVE".equals(configOpt.get().getStatus())) {
+        Optional<BaselineCache.CompiledBaseline> baseline = baselineCache.getActiveBaseline(agentId, dataType);
+        if (baseline.isEmpty()) {
             logger.debug("No active baseline for agent {} type {}", agentId, dataType);
             return;
         }
 
-        BaselineCompareResult result = compareData(agentId, dataType, data);
+        BaselineCompareResult result = compareData(dataType, baseline.get(), data);
         if (result != null && result.hasAnomalies()) {
             generateAlerts(agentId, dataType, result);
         }
     }
 
-    public BaselineCompareResult compareData(String agentId, String dataType, List<?> data) {
-        List<BaselineItem> baselineItems = getLatestBaselineItems(agentId, dataType);
-        if (baselineItems.isEmpty()) {
-            return null;
-        }
-
-        Map<String, BaselineItem> baselineMap = baselineItems.stream()
-                .collect(Collectors.toMap(BaselineItem::getItemKey, i -> i, (a, b) -> a));
-
-        List<AnomalyDTO> newItems = new ArrayList<>();
-        List<AnomalyDTO> missingItems = new ArrayList<>();
-        List<AnomalyDTO> modifiedItems = new ArrayList<>();
-
-        Set<String> currentKeys = new HashSet<>();
-
-        for (Object item : data) {
-            Map<String, Object> itemMap = convertToMap(item);
-            String key = extractKey(dataType, itemMap);
-            if (key == null) continue;
-
-            currentKeys.add(key);
-
-            BaselineItem baseline = baselineMap.get(key);
-            if (baseline == null) {
-                AnomalyDTO anomaly = createAnomaly("NEW", key, null, itemMap, dataType);
-                newItems.add(anomaly);
-            } else {
-                String currentValue = extractValue(dataType, itemMap);
-                if (!Objects.equals(baseline.getItemValue(), currentValue)) {
-                    AnomalyDTO anomaly = createAnomaly("MODIFIED", key, 
-                            convertBaselineToMap(baseline), itemMap, dataType);
-                    modifiedItems.add(anomaly);
-                }
+    // Independent of baselines: flags processes and software this agent just gained that almost no other host runs
+    @Transactional
+    public void detectFleetRare(String agentId) {
+        List<FleetRarityService.RareItem> rareItems = fleetRarityService.drainRareAdditions(agentId);
+        int created = 0;
+        for (FleetRarityService.RareItem item : rareItems) {
+            String dataType = FleetRarityService.PROCESS.equals(item.getKind()) ? "PROCESS" : "SOFTWARE";
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("name", item.getName());
+            fields.put("hostCount", item.getHostCount());
+            fields.put("fleetSize", item.getFleetSize());
+            AlertRuleEngine.Decision decision = ruleEngine.evaluate(dataType, "FLEET_RARE", item.getName(), fields);
+            if (decision != null && decision.isSuppressed()) {
+                continue;
             }
+            String title = String.format("[%s] %s: %s", getTypeLabel(dataType), getAnomalyLabel("FLEET_RARE"), item.getName());
+            String content = "检测到全网罕见项\n" +
+                    "类型: " + getTypeLabel(dataType) + "\n" +
+                    "项目: " + item.getName() + "\n" +
+                    "运行主机数(估计): " + item.getHostCount() + " / " + item.getFleetSize();
+            alertService.createAlert(agentId, dataType, decision != null ? decision.getAlertLevel() : "MEDIUM",
+                    title, content, "FLEET_RARE", item.getName(), null, toJson(item));
+            created++;
         }
-
-        for (BaselineItem baseline : baselineItems) {
-            if (!currentKeys.contains(baseline.getItemKey())) {
-                AnomalyDTO anomaly = createAnomaly("MISSING", baseline.getItemKey(),
-                        convertBaselineToMap(baseline), null, dataType);
-                missingItems.add(anomaly);
-            }
+        if (created > 0) {
+            logger.info("Generated {} fleet-rare alerts for agent {}", created, agentId);
         }
+    }
 
-        BaselineCompareResult result = new BaselineCompareResult();
-        result.setBaselineType(dataType);
-        result.setNewItemsCount(newItems.size());
-        result.setMissingItemsCount(missingItems.size());
-        result.setModifiedItemsCount(modifiedItems.size());
-        result.setNewItems(newItems);
-        result.setMissingItems(missingItems);
-        result.setModifiedItems(modifiedItems);
-
-        return result;
+    public BaselineCompareResult compareData(String agentId, String dataType, List<?> data) {
+        return baselineCache.getActiveBaseline(agentId, dataType)
+                .map(baseline -> compareData(dataType, baseline, data))
+                .orElse(null);
     }
 
-    private List<BaselineItem> getLatestBaselineItems(String agentId, String baselineType) {
-        return snapshotRepository.findFirstByAgentIdAndBaselineTypeOrderByCreatedAtDesc(agentId, baselineType)
-                .map(snapshot -> itemRepository.findBySnapshotId(snapshot.getId()))
-                .orElse(Collections.emptyList());
+    // data holds the parsed upload entities, mapped to item keys the same way snapshots are built
+    private BaselineCompareResult compareData(String dataType, BaselineCache.CompiledBaseline baseline, List<?> data) {
+        if (baseline.getIndex().isEmpty()) {
+            return null;
+        }
+        return diffEngine.diff(dataType, baseline.getIndex(), diffEngine.toItemMaps(data),
+                anomalyType -> determineAlertLevel(dataType, anomalyType));
     }
 
     private void generateAlerts(String agentId, String dataType, BaselineCompareResult result) {
@@ -136,12 +119,29 @@ public class AnomalyDetectionService {
     private void createAlertForAnomaly(String agentId, String dataType, AnomalyDTO anomaly) {
         String title = buildAlertTitle(dataType, anomaly);
         String content = buildAlertContent(dataType, anomaly);
-        String level = determineAlertLevel(dataType, anomaly.getAnomalyType());
+        // Enabled rules of the type decide severity or suppress the alert; without a match the defaults apply
+        AlertRuleEngine.Decision decision = ruleEngine.evaluate(dataType, anomaly.getAnomalyType(), anomaly.getItemKey(),
+                anomaly.getCurrentValue() != null ? anomaly.getCurrentValue() : anomaly.getBaselineValue());
+        if (decision != null && decision.isSuppressed()) {
+            return;
+        }
+        String level = decision != null ? decision.getAlertLevel() : determineAlertLevel(dataType, anomaly.getAnomalyType());
 
-        alertService.createAlert(agentId, dataType, level, title, content, 
-                anomaly.getAnomalyType(), 
-                anomaly.getBaselineValue() != null ? anomaly.getBaselineValue().toString() : null,
-                anomaly.getCurrentValue() != null ? anomaly.getCurrentValue().toString() : null);
+        alertService.createAlert(agentId, dataType, level, title, content,
+                anomaly.getAnomalyType(), anomaly.getItemKey(),
+                toJson(anomaly.getBaselineValue()), toJson(anomaly.getCurrentValue()));
+    }
+
+    // baseline_item and current_item are JSON columns
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
     }
 
     private String buildAlertTitle(String dataType, AnomalyDTO anomaly) {
@@ -187,106 +187,6 @@ public class AnomalyDetectionService {
         return "LOW";
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> convertToMap(Object item) {
-        if (item instanceof Map) {
-            return (Map<String, Object>) item;
-        }
-        return new HashMap<>();
-    }
-
-    private String extractKey(String dataType, Map<String, Object> item) {
-        switch (dataType) {
-            case "PROCESS":
-                Object pid = item.get("pid");
-                Object name = item.get("name");
-                if (pid != null && name != null) {
-                    return name + ":" + pid;
-                }
-                return name != null ? name.toString() : null;
-            case "PORT":
-                Object port = item.get("port");
-                Object protocol = item.get("protocol");
-                if (port != null) {
-                    return protocol != null ? protocol + ":" + port : port.toString();
-                }
-                return null;
-            case "USB":
-                Object serial = item.get("serialNumber");
-                if (serial != null) return serial.toString();
-                Object vid = item.get("vendorId");
-                Object pidUsb = item.get("productId");
-                if (vid != null && pidUsb != null) {
-                    return vid + ":" + pidUsb;
-                }
-                return item.get("deviceName") != null ? item.get("deviceName").toString() : null;
-            case "LOGIN":
-                Object username = item.get("username");
-                Object loginType = item.get("loginType");
-                if (username != null) {
-                    return loginType != null ? username + ":" + loginType : username.toString();
-                }
-                return null;
-            case "SOFTWARE":
-                Object swName = item.get("name");
-                Object swVersion = item.get("version");
-                if (swName != null) {
-                    return swVersion != null ? swName + ":" + swVersion : swName.toString();
-                }
-                return null;
-            default:
-                return null;
-        }
-    }
-
-    private String extractValue(String dataType, Map<String, Object> item) {
-        try {
-            return toJson(item);
-        } catch (Exception e) {
-            return item.toString();
-        }
-    }
-
-    private String toJson(Map<String, Object> map) {
-        StringBuilder sb = new StringBuilder("{");
-        boolean first = true;
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first) sb.append(",");
-            sb.append("\"").append(entry.getKey()).append("\":");
-            if (entry.getValue() == null) {
-                sb.append("null");
-            } else if (entry.getValue() instanceof String) {
-                sb.append("\"").append(entry.getValue()).append("\"");
-            } else {
-                sb.append(entry.getValue());
-            }
-            first = false;
-        }
-        sb.append("}");
-        return sb.toString();
-    }
-
-    private Map<String, Object> convertBaselineToMap(BaselineItem item) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", item.getItemKey());
-        map.put("itemValue", item.getItemValue());
-        map.put("itemType", item.getItemType());
-        return map;
-    }
-
-    private AnomalyDTO createAnomaly(String anomalyType, String itemKey,
-                                     Map<String, Object> baselineValue,
-                                     Map<String, Object> currentValue,
-                                     String dataType) {
-        AnomalyDTO dto = new AnomalyDTO();
-        dto.setAnomalyType(anomalyType);
-        dto.setItemKey(itemKey);
-        dto.setBaselineValue(baselineValue);
-        dto.setCurrentValue(currentValue);
-        dto.setAlertLevel(determineAlertLevel(dataType, anomalyType));
-        return dto;
-    }
-
     private String getTypeLabel(String dataType) {
         Map<String, String> labels = new HashMap<>();
         labels.put("PROCESS", "进程");
@@ -302,6 +202,7 @@ public class AnomalyDetectionService {
         labels.put("NEW", "新增");
         labels.put("MISSING", "缺失");
         labels.put("MODIFIED", "修改");
+        labels.put("FLEET_RARE", "全网罕见");
         return labels.getOrDefault(anomalyType, anomalyType);
     }
 }
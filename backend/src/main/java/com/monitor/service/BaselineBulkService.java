@@ -0,0 +1,239 @@
+package com.monitor.service;
+
+import com.monitor.entity.dto.BulkBaselineRequest;
+import com.monitor.repository.AgentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Service
+public class BaselineBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaselineBulkService.class);
+
+    private final BaselineService baselineService;
+    private final AgentRepository agentRepository;
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    @Value("${monitor.baseline.bulk-job-retention-minutes:60}")
+    private int jobRetentionMinutes;
+
+    @Value("${monitor.baseline.bulk-copy-chunk-size:200}")
+    private int copyChunkSize;
+
+    public BaselineBulkService(BaselineService baselineService,
+                               AgentRepository agentRepository,
+                               @Value("${monitor.baseline.bulk-parallelism:8}") int parallelism) {
+        this.baselineService = baselineService;
+        this.agentRepository = agentRepository;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "baseline-bulk-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public BulkJob importFromCurrent(String type, BulkBaselineRequest request) {
+        return submit("IMPORT", type, resolveAgents(request), agentId -> baselineService.importFromCurrent(agentId, type));
+    }
+
+    // The source is read once; targets are then written a chunk per transaction, all pointing at the
+    // same shared item set. A chunk that fails is retried agent by agent so one bad target only fails itself.
+    public BulkJob copyFromAgent(String type, BulkBaselineRequest request) {
+        String sourceAgentId = request.getSourceAgentId();
+        if (sourceAgentId == null || sourceAgentId.isBlank()) {
+            throw new IllegalArgumentException("sourceAgentId is required");
+        }
+        if (agentRepository.findIdsByIdInAndStatusNot(List.of(sourceAgentId), AgentPurgeService.DELETED_STATUS).isEmpty()) {
+            throw new IllegalArgumentException("Unknown or deleted source agent: " + sourceAgentId);
+        }
+        List<String> agentIds = resolveAgents(request).stream()
+                .filter(agentId -> !agentId.equals(sourceAgentId))
+                .collect(Collectors.toList());
+        List<Map<String, Object>> itemsData = baselineService.loadCopySource(sourceAgentId, type);
+        return submit("COPY", type, agentIds, copyChunkSize,
+                chunk -> baselineService.applyBaselineToAll(chunk, type, itemsData, "COPY", sourceAgentId),
+                agentId -> baselineService.applyBaseline(agentId, type, itemsData, "COPY", sourceAgentId));
+    }
+
+    public BulkJob startLearning(String type, BulkBaselineRequest request) {
+        String mode = request.getMode() != null ? request.getMode().toUpperCase() : "STANDARD";
+        int days = request.getDays() != null ? request.getDays() : 0;
+        return submit("LEARN_" + mode, type, resolveAgents(request), agentId -> {
+            switch (mode) {
+                case "QUICK":
+                    baselineService.startQuickLearn(agentId, type);
+                    break;
+                case "CUSTOM":
+                    baselineService.startCustomLearn(agentId, type, days);
+                    break;
+                default:
+                    baselineService.startStandardLearn(agentId, type);
+            }
+        });
+    }
+
+    public BulkJob deleteBaselines(String type, BulkBaselineRequest request) {
+        return submit("DELETE", type, resolveAgents(request), agentId -> baselineService.deleteBaseline(agentId, type));
+    }
+
+    public Optional<BulkJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public List<BulkJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(BulkJob::getCreatedAt).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private BulkJob submit(String operation, String type, List<String> agentIds, Consumer<String> action) {
+        return submit(operation, type, agentIds, 1, null, action);
+    }
+
+    private BulkJob submit(String operation, String type, List<String> agentIds, int chunkSize,
+                           Consumer<List<String>> chunkAction, Consumer<String> action) {
+        evictFinishedJobs();
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), operation, type, agentIds.size());
+        jobs.put(job.getJobId(), job);
+        logger.info("Bulk baseline job {} ({} {}) started for {} agents", job.getJobId(), operation, type, agentIds.size());
+
+        List<CompletableFuture<?>> tasks = new ArrayList<>();
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < agentIds.size(); from += size) {
+            List<String> chunk = agentIds.subList(from, Math.min(from + size, agentIds.size()));
+            tasks.add(CompletableFuture.runAsync(() -> runChunk(job, chunk, chunkAction, action), executor));
+        }
+
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            job.finish();
+            logger.info("Bulk baseline job {} finished: {} succeeded, {} failed",
+                    job.getJobId(), job.getSucceeded(), job.getFailed());
+        });
+        return job;
+    }
+
+    private void runChunk(BulkJob job, List<String> chunk, Consumer<List<String>> chunkAction, Consumer<String> action) {
+        if (chunkAction != null && chunk.size() > 1) {
+            try {
+                chunkAction.accept(chunk);
+                chunk.forEach(job::succeed);
+                return;
+            } catch (Exception e) {
+                logger.warn("Bulk baseline job {} chunk of {} agents failed, retrying one by one: {}",
+                        job.getJobId(), chunk.size(), e.getMessage());
+            }
+        }
+        for (String agentId : chunk) {
+            try {
+                action.accept(agentId);
+                job.succeed(agentId);
+            } catch (Exception e) {
+                job.fail(agentId, e.getMessage());
+                logger.warn("Bulk baseline job {} failed for agent {}: {}", job.getJobId(), agentId, e.getMessage());
+            }
+        }
+    }
+
+    // Explicit ids must all name live agents; otherwise the filter runs in the database
+    private List<String> resolveAgents(BulkBaselineRequest request) {
+        if (request.getAgentIds() != null && !request.getAgentIds().isEmpty()) {
+            List<String> agentIds = request.getAgentIds().stream().distinct().collect(Collectors.toList());
+            Set<String> live = new HashSet<>(agentRepository.findIdsByIdInAndStatusNot(agentIds, AgentPurgeService.DELETED_STATUS));
+            List<String> unknown = agentIds.stream().filter(id -> !live.contains(id)).collect(Collectors.toList());
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("Unknown or deleted agents: "
+                        + unknown.stream().limit(20).collect(Collectors.joining(", "))
+                        + (unknown.size() > 20 ? " and " + (unknown.size() - 20) + " more" : ""));
+            }
+            return agentIds;
+        }
+        return agentRepository.findIdsForBulk(AgentPurgeService.DELETED_STATUS,
+                lower(request.getPlatform()), lower(request.getStatus()), likePattern(request.getKeyword()));
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase() : null;
+    }
+
+    private static String likePattern(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String escaped = keyword.toLowerCase().replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static class BulkJob {
+        private final String jobId;
+        private final String operation;
+        private final String baselineType;
+        private final int total;
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Map<String, String> results = new ConcurrentHashMap<>();
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile String state;
+        private volatile LocalDateTime finishedAt;
+
+        public BulkJob(String jobId, String operation, String baselineType, int total) {
+            this.jobId = jobId;
+            this.operation = operation;
+            this.baselineType = baselineType;
+            this.total = total;
+            this.state = total > 0 ? "RUNNING" : "COMPLETED";
+            this.finishedAt = total > 0 ? null : createdAt;
+        }
+
+        void succeed(String agentId) {
+            results.put(agentId, "SUCCESS");
+            succeeded.incrementAndGet();
+        }
+
+        void fail(String agentId, String error) {
+            results.put(agentId, "FAILED: " + error);
+            failed.incrementAndGet();
+        }
+
+        void finish() {
+            state = failed.get() > 0 ? "COMPLETED_WITH_ERRORS" : "COMPLETED";
+            finishedAt = LocalDateTime.now();
+        }
+
+        public String getJobId() { return jobId; }
+        public String getOperation() { return operation; }
+        public String getBaselineType() { return baselineType; }
+        public int getTotal() { return total; }
+        public int getCompleted() { return succeeded.get() + failed.get(); }
+        public int getSucceeded() { return succeeded.get(); }
+        public int getFailed() { return failed.get(); }
+        public Map<String, String> getResults() { return results; }
+        public String getState() { return state; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+    }
+}
@@ -0,0 +1,174 @@
+package com.monitor.service;
+
+import com.monitor.entity.BaselineConfig;
+import com.monitor.entity.BaselineItem;
+import com.monitor.entity.BaselineSnapshot;
+import com.monitor.repository.BaselineConfigRepository;
+import com.monitor.repository.BaselineItemRepository;
+import com.monitor.repository.BaselineSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class BaselineCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaselineCache.class);
+
+    private static final Binding INACTIVE = new Binding(null, null);
+
+    private final Map<String, Binding> bindings = new ConcurrentHashMap<>();
+    // Keyed by item set, so every agent sharing a set shares one compiled copy
+    private final Map<String, CompiledBaseline> compiled = new ConcurrentHashMap<>();
+    // Latest snapshot id of any baseline, active or not; NO_SNAPSHOT when there is none
+    private final Map<String, Long> latestSnapshots = new ConcurrentHashMap<>();
+
+    private static final Long NO_SNAPSHOT = 0L;
+
+    private final BaselineConfigRepository configRepository;
+    private final BaselineSnapshotRepository snapshotRepository;
+    private final BaselineItemRepository itemRepository;
+    private final BaselineDiffEngine diffEngine;
+    private final BaselineItemStore itemStore;
+
+    public BaselineCache(BaselineConfigRepository configRepository,
+                         BaselineSnapshotRepository snapshotRepository,
+                         BaselineItemRepository itemRepository,
+                         BaselineDiffEngine diffEngine,
+                         BaselineItemStore itemStore) {
+        this.configRepository = configRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.itemRepository = itemRepository;
+        this.diffEngine = diffEngine;
+        this.itemStore = itemStore;
+    }
+
+    // Empty when the agent has no ACTIVE baseline of this type or the baseline has no snapshot yet
+    public Optional<CompiledBaseline> getActiveBaseline(String agentId, String type) {
+        Binding binding = bindings.computeIfAbsent(bindingKey(agentId, type), k -> loadBinding(agentId, type));
+        if (binding.snapshotId == null) {
+            return Optional.empty();
+        }
+        return Optional.of(compiled.computeIfAbsent(binding.compiledKey(), k -> compile(binding)));
+    }
+
+    // Backs the baseline ETags, so polling an unchanged baseline does not query the snapshot table
+    public Optional<Long> getLatestSnapshotId(String agentId, String type) {
+        Long snapshotId = latestSnapshots.computeIfAbsent(bindingKey(agentId, type), k ->
+                snapshotRepository.findFirstByAgentIdAndBaselineTypeOrderByCreatedAtDesc(agentId, type)
+                        .map(BaselineSnapshot::getId)
+                        .orElse(NO_SNAPSHOT));
+        return NO_SNAPSHOT.equals(snapshotId) ? Optional.empty() : Optional.of(snapshotId);
+    }
+
+    // Called after a config or snapshot change; deferred to commit so a reload can't see the old rows
+    public void invalidate(String agentId, String type) {
+        runAfterCommit(() -> {
+            latestSnapshots.remove(bindingKey(agentId, type));
+            Binding removed = bindings.remove(bindingKey(agentId, type));
+            if (removed != null) {
+                releaseIfUnused(removed);
+            }
+            logger.debug("Baseline cache invalidated for agent {} type {}", agentId, type);
+        });
+    }
+
+    public void invalidateAgent(String agentId) {
+        runAfterCommit(() -> {
+            String prefix = agentId + "|";
+            latestSnapshots.keySet().removeIf(key -> key.startsWith(prefix));
+            List<Binding> removed = new ArrayList<>();
+            bindings.entrySet().removeIf(entry -> {
+                if (!entry.getKey().startsWith(prefix)) {
+                    return false;
+                }
+                removed.add(entry.getValue());
+                return true;
+            });
+            removed.forEach(this::releaseIfUnused);
+        });
+    }
+
+    private void releaseIfUnused(Binding binding) {
+        if (binding.snapshotId == null) {
+            return;
+        }
+        String key = binding.compiledKey();
+        boolean stillUsed = bindings.values().stream()
+                .anyMatch(b -> b.snapshotId != null && key.equals(b.compiledKey()));
+        if (!stillUsed) {
+            compiled.remove(key);
+        }
+    }
+
+    public int getCompiledCount() {
+        return compiled.size();
+    }
+
+    private Binding loadBinding(String agentId, String type) {
+        Optional<BaselineConfig> config = configRepository.findByAgentIdAndBaselineType(agentId, type);
+        if (config.isEmpty() || !"ACTIVE".equals(config.get().getStatus())) {
+            return INACTIVE;
+        }
+        return snapshotRepository.findFirstByAgentIdAndBaselineTypeOrderByCreatedAtDesc(agentId, type)
+                .map(snapshot -> new Binding(snapshot.getId(), snapshot.getItemSetId()))
+                .orElse(INACTIVE);
+    }
+
+    private CompiledBaseline compile(Binding binding) {
+        List<BaselineItem> items = binding.itemSetId != null
+                ? itemStore.reconstruct(binding.itemSetId)
+                : itemRepository.findBySnapshotId(binding.snapshotId);
+        logger.debug("Compiled baseline {} with {} items", binding.compiledKey(), items.size());
+        return new CompiledBaseline(binding.snapshotId, diffEngine.index(items));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String bindingKey(String agentId, String type) {
+        return agentId + "|" + type;
+    }
+
+    private static class Binding {
+        private final Long snapshotId;
+        private final Long itemSetId;
+
+        Binding(Long snapshotId, Long itemSetId) {
+            this.snapshotId = snapshotId;
+            this.itemSetId = itemSetId;
+        }
+
+        String compiledKey() {
+            return itemSetId != null ? "set:" + itemSetId : "snapshot:" + snapshotId;
+        }
+    }
+
+    public static class CompiledBaseline {
+        private final Long snapshotId;
+        private final BaselineDiffEngine.ItemIndex index;
+
+        CompiledBaseline(Long snapshotId, BaselineDiffEngine.ItemIndex index) {
+            this.snapshotId = snapshotId;
+            this.index = index;
+        }
+
+        public Long getSnapshotId() { return snapshotId; }
+        public BaselineDiffEngine.ItemIndex getIndex() { return index; }
+    }
+}
@@ -0,0 +1,235 @@
+package com.monitor.service;
+
+import com.monitor.entity.*;
+import com.monitor.entity.dto.AnomalyDTO;
+import com.monitor.entity.dto.BaselineCompareResult;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+@Service
+public class BaselineDiffEngine {
+
+    // ===== 基线项提取 =====
+    // Snapshots, manual comparison and upload-time detection all go through these, so keys line up
+    public List<Map<String, Object>> toItemMaps(List<?> rows) {
+        List<Map<String, Object>> maps = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Map<String, Object> map = toItemMap(row);
+            if (map != null) {
+                maps.add(map);
+            }
+        }
+        return maps;
+    }
+
+    public Map<String, Object> toItemMap(Object row) {
+        if (row instanceof BaselineItem) {
+            BaselineItem b = (BaselineItem) row;
+            return item(b.getItemKey(), b.getItemValue(), b.getItemType());
+        }
+        if (row instanceof CurrentProcessInfo) {
+            CurrentProcessInfo p = (CurrentProcessInfo) row;
+            return processItem(p.getPid(), p.getName(), p.getCpuPercent(), p.getMemoryPercent());
+        }
+        if (row instanceof ProcessHistory) {
+            ProcessHistory p = (ProcessHistory) row;
+            Map<String, Object> map = processItem(p.getPid(), p.getName(), p.getCpuPercent(), p.getMemoryPercent());
+            map.put("collectionRound", p.getCollectionRound());
+            return map;
+        }
+        if (row instanceof ProcessInfo) {
+            ProcessInfo p = (ProcessInfo) row;
+            return processItem(p.getPid(), p.getName(), p.getCpuPercent(), p.getMemoryPercent());
+        }
+        if (row instanceof CurrentPortInfo) {
+            CurrentPortInfo p = (CurrentPortInfo) row;
+            return portItem(p.getPort(), p.getProtocol(), p.getStatus(), p.getProcessName());
+        }
+        if (row instanceof PortHistory) {
+            PortHistory p = (PortHistory) row;
+            Map<String, Object> map = portItem(p.getPort(), p.getProtocol(), p.getStatus(), p.getProcessName());
+            map.put("collectionRound", p.getCollectionRound());
+            return map;
+        }
+        if (row instanceof PortInfo) {
+            PortInfo p = (PortInfo) row;
+            return portItem(p.getPort(), p.getProtocol(), p.getStatus(), p.getProcessName());
+        }
+        if (row instanceof UsbDevice) {
+            UsbDevice u = (UsbDevice) row;
+            return item(u.getDeviceName() + ":" + u.getSerialNumber(),
+                    u.getDeviceName() + "|" + u.getDeviceType() + "|" + u.getManufacturer() + "|" + u.getSerialNumber(),
+                    "usb");
+        }
+        if (row instanceof LoginLog) {
+            LoginLog l = (LoginLog) row;
+            return item(l.getUsername() + ":" + l.getLoginType(),
+                    l.getUsername() + "|" + l.getLoginType() + "|" + l.getLoginIp() + "|" + l.getLoginTime(),
+                    "login");
+        }
+        if (row instanceof InstalledSoftware) {
+            InstalledSoftware s = (InstalledSoftware) row;
+            return item(s.getSoftwareName(),
+                    s.getSoftwareName() + "|" + s.getVersion() + "|" + s.getPublisher(),
+                    "software");
+        }
+        return null;
+    }
+
+    // cpu and memory change on every upload, so they ride along for display but stay out of the value
+    // (and its hash); otherwise every baselined process would be reported MODIFIED each time
+    public Map<String, Object> processItem(Integer pid, String name, Double cpu, Double memory) {
+        Map<String, Object> map = item(pid + ":" + name, name + "|" + pid, "process");
+        map.put("cpuPercent", cpu);
+        map.put("memoryPercent", memory);
+        return map;
+    }
+
+    public Map<String, Object> portItem(Integer port, String protocol, String status, String processName) {
+        return item(port + ":" + protocol, port + "|" + protocol + "|" + status + "|" + processName, "port");
+    }
+
+    private Map<String, Object> item(String key, String value, String type) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("itemKey", key);
+        map.put("itemValue", value);
+        map.put("itemType", type);
+        return map;
+    }
+
+    // ===== 差异比较 =====
+    public ItemIndex index(List<BaselineItem> items) {
+        return new ItemIndex(items);
+    }
+
+    // Single pass over the current items plus one over the baseline: O(n + m)
+    public BaselineCompareResult diff(String type, ItemIndex baseline, List<Map<String, Object>> current,
+                                      Function<String, String> levelResolver) {
+        List<AnomalyDTO> newItems = new ArrayList<>();
+        List<AnomalyDTO> missingItems = new ArrayList<>();
+        List<AnomalyDTO> modifiedItems = new ArrayList<>();
+
+        boolean[] seen = new boolean[baseline.size()];
+        Set<Long> currentKeys = new HashSet<>(current.size() * 2);
+
+        for (Map<String, Object> entry : current) {
+            Object key = entry.get("itemKey");
+            if (key == null) continue;
+            long keyHash = hash64(key.toString());
+            if (!currentKeys.add(keyHash)) continue;
+
+            int position = baseline.positionOf(keyHash);
+            if (position < 0) {
+                newItems.add(anomaly("NEW", key.toString(), null, entry, levelResolver));
+                continue;
+            }
+            seen[position] = true;
+            Object value = entry.get("itemValue");
+            if (baseline.valueHashAt(position) != valueHash(entry.get("itemType"), value)) {
+                modifiedItems.add(anomaly("MODIFIED", key.toString(),
+                        baselineValue(baseline.itemAt(position)), entry, levelResolver));
+            }
+        }
+
+        for (int i = 0; i < seen.length; i++) {
+            if (!seen[i]) {
+                BaselineItem item = baseline.itemAt(i);
+                missingItems.add(anomaly("MISSING", item.getItemKey(), baselineValue(item), null, levelResolver));
+            }
+        }
+
+        BaselineCompareResult result = new BaselineCompareResult();
+        result.setBaselineType(type);
+        result.setNewItemsCount(newItems.size());
+        result.setMissingItemsCount(missingItems.size());
+        result.setModifiedItemsCount(modifiedItems.size());
+        result.setNewItems(newItems);
+        result.setMissingItems(missingItems);
+        result.setModifiedItems(modifiedItems);
+        return result;
+    }
+
+    private AnomalyDTO anomaly(String anomalyType, String itemKey,
+                               Map<String, Object> baselineValue, Map<String, Object> currentValue,
+                               Function<String, String> levelResolver) {
+        AnomalyDTO dto = new AnomalyDTO();
+        dto.setAnomalyType(anomalyType);
+        dto.setItemKey(itemKey);
+        dto.setBaselineValue(baselineValue);
+        dto.setCurrentValue(currentValue);
+        dto.setAlertLevel(levelResolver.apply(anomalyType));
+        return dto;
+    }
+
+    private Map<String, Object> baselineValue(BaselineItem item) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("itemKey", item.getItemKey());
+        map.put("itemValue", item.getItemValue());
+        map.put("itemType", item.getItemType());
+        return map;
+    }
+
+    // Process values used to end in "|cpu|memory" (or learned averages of them); snapshots taken then
+    // are compared on the leading "name|pid" only, so they need not be re-learned
+    static long valueHash(Object type, Object value) {
+        String text = value != null ? value.toString() : null;
+        if (text != null && type != null && "process".equalsIgnoreCase(type.toString())) {
+            int first = text.indexOf('|');
+            int second = first >= 0 ? text.indexOf('|', first + 1) : -1;
+            if (second >= 0) {
+                text = text.substring(0, second);
+            }
+        }
+        return hash64(text);
+    }
+
+    // FNV-1a over UTF-8; strings are hashed once and only fingerprints are compared afterwards
+    public static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        if (value == null) {
+            return hash;
+        }
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Immutable key-hash index over a snapshot's items; the first item wins for duplicate keys
+    public static class ItemIndex {
+        private final List<BaselineItem> items;
+        private final Map<Long, Integer> positions;
+        private final long[] valueHashes;
+
+        ItemIndex(List<BaselineItem> source) {
+            Map<Long, Integer> byKey = new HashMap<>(source.size() * 2);
+            List<BaselineItem> unique = new ArrayList<>(source.size());
+            List<Long> hashes = new ArrayList<>(source.size());
+            for (BaselineItem item : source) {
+                if (byKey.putIfAbsent(hash64(item.getItemKey()), unique.size()) == null) {
+                    unique.add(item);
+                    hashes.add(valueHash(item.getItemType(), item.getItemValue()));
+                }
+            }
+            this.items = List.copyOf(unique);
+            this.positions = byKey;
+            this.valueHashes = hashes.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        public int size() { return items.size(); }
+        public boolean isEmpty() { return items.isEmpty(); }
+        public List<BaselineItem> getItems() { return items; }
+
+        int positionOf(long keyHash) {
+            Integer position = positions.get(keyHash);
+            return position != null ? position : -1;
+        }
+
+        BaselineItem itemAt(int position) { return items.get(position); }
+        long valueHashAt(int position) { return valueHashes[position]; }
+    }
+}
@@ -1,5 +1,7 @@
 package com.monitor.service;
 
+import com.monitor.entity.CurrentPortInfo;
+import com.monitor.entity.CurrentProcessInfo;
 import com.monitor.entity.ProcessBaseline;
 import com.monitor.entity.ProcessHistory;
 import com.monitor.entity.PortBaseline;
@@ -10,11 +12,14 @@ import com.monitor.repository.PortBaselineRepository;
 import com.monitor.repository.PortHistoryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,151 +31,208 @@ public class BaselineFeatureService {
     private static final double COMMON_THRESHOLD = 0.50;
     private static final double RARE_THRESHOLD = 0.10;
 
+    private static final String UPSERT_PROCESS_BASELINE =
+            "INSERT INTO process_baseline (agent_id, process_name, frequency, frequency_category, first_seen, last_seen, " +
+            "total_appearances, avg_cpu_percent, avg_memory_percent, cpu_stddev, memory_stddev, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE frequency = VALUES(frequency), frequency_category = VALUES(frequency_category), " +
+            "first_seen = VALUES(first_seen), last_seen = VALUES(last_seen), total_appearances = VALUES(total_appearances), " +
+            "avg_cpu_percent = VALUES(avg_cpu_percent), avg_memory_percent = VALUES(avg_memory_percent), " +
+            "cpu_stddev = VALUES(cpu_stddev), memory_stddev = VALUES(memory_stddev), updated_at = NOW()";
+
+    private static final String UPSERT_PORT_BASELINE =
+            "INSERT INTO port_baseline (agent_id, port, protocol, frequency, frequency_category, first_seen, last_seen, " +
+            "total_appearances, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE frequency = VALUES(frequency), frequency_category = VALUES(frequency_category), " +
+            "first_seen = VALUES(first_seen), last_seen = VALUES(last_seen), total_appearances = VALUES(total_appearances), " +
+            "updated_at = NOW()";
+
     private final ProcessHistoryRepository processHistoryRepository;
     private final PortHistoryRepository portHistoryRepository;
     private final ProcessBaselineRepository processBaselineRepository;
     private final PortBaselineRepository portBaselineRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Counters of agents currently learning, fed by every upload until the baseline is completed
+    private final Map<String, LearningCounters> processLearning = new ConcurrentHashMap<>();
+    private final Map<String, LearningCounters> portLearning = new ConcurrentHashMap<>();
 
     public BaselineFeatureService(ProcessHistoryRepository processHistoryRepository,
                                 PortHistoryRepository portHistoryRepository,
                                 ProcessBaselineRepository processBaselineRepository,
-                                PortBaselineRepository portBaselineRepository) {
+                                PortBaselineRepository portBaselineRepository,
+                                JdbcTemplate jdbcTemplate) {
         this.processHistoryRepository = processHistoryRepository;
         this.portHistoryRepository = portHistoryRepository;
         this.processBaselineRepository = processBaselineRepository;
         this.portBaselineRepository = portBaselineRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ===== 流式学习 =====
+    public void startLearning(String agentId, String type) {
+        Map<String, LearningCounters> learning = learningFor(type);
+        if (learning != null) {
+            learning.put(agentId, new LearningCounters());
+            logger.info("Streaming {} feature learning started for agent {}", type, agentId);
+        }
+    }
+
+    public void cancelLearning(String agentId, String type) {
+        Map<String, LearningCounters> learning = learningFor(type);
+        if (learning != null) {
+            learning.remove(agentId);
+        }
+    }
+
+    public void discardAgent(String agentId) {
+        processLearning.remove(agentId);
+        portLearning.remove(agentId);
+    }
+
+    public boolean isLearning(String agentId, String type) {
+        Map<String, LearningCounters> learning = learningFor(type);
+        return learning != null && learning.containsKey(agentId);
+    }
+
+    public void recordProcesses(String agentId, List<CurrentProcessInfo> processes, LocalDateTime collectedAt) {
+        LearningCounters counters = processLearning.get(agentId);
+        if (counters == null) {
+            return;
+        }
+        counters.beginRound();
+        for (CurrentProcessInfo p : processes) {
+            if (p.getName() != null) {
+                counters.observe(p.getName(), null, null, collectedAt, p.getCpuPercent(), p.getMemoryPercent());
+            }
+        }
+    }
+
+    public void recordPorts(String agentId, List<CurrentPortInfo> ports, LocalDateTime collectedAt) {
+        LearningCounters counters = portLearning.get(agentId);
+        if (counters == null) {
+            return;
+        }
+        counters.beginRound();
+        for (CurrentPortInfo p : ports) {
+            if (p.getPort() != null) {
+                counters.observe(p.getPort() + ":" + p.getProtocol(), p.getPort(), p.getProtocol(),
+                        collectedAt, null, null);
+            }
+        }
     }
 
+    // Flushes the streamed counters; after a restart they are gone, so the history is re-scanned instead
+    public int completeLearning(String agentId, String type, int fallbackRounds) {
+        Map<String, LearningCounters> learning = learningFor(type);
+        if (learning == null) {
+            return 0;
+        }
+        LearningCounters counters = learning.remove(agentId);
+        boolean process = "PROCESS".equalsIgnoreCase(type);
+        if (counters == null || counters.getRounds() == 0) {
+            logger.info("No streamed counters for agent {} type {}, rebuilding from {} history rounds",
+                    agentId, type, fallbackRounds);
+            return process ? buildProcessBaseline(agentId, fallbackRounds) : buildPortBaseline(agentId, fallbackRounds);
+        }
+        return process ? flushProcessCounters(agentId, counters) : flushPortCounters(agentId, counters);
+    }
+
+    private Map<String, LearningCounters> learningFor(String type) {
+        if ("PROCESS".equalsIgnoreCase(type)) return processLearning;
+        if ("PORT".equalsIgnoreCase(type)) return portLearning;
+        return null;
+    }
+
+    // ===== 历史重建 =====
     @Transactional
-    public void buildProcessBaseline(String agentId, int rounds) {
+    public int buildProcessBaseline(String agentId, int rounds) {
         logger.info("Building process baseline for agent {} using {} rounds", agentId, rounds);
 
         List<Integer> recentRounds = processHistoryRepository.findRecentRounds(agentId, rounds);
         if (recentRounds.isEmpty()) {
             logger.warn("No history data found for agent {}", agentId);
-            return;
+            return 0;
         }
 
         List<ProcessHistory> history = processHistoryRepository.findByAgentIdAndCollectionRoundIn(agentId, recentRounds);
-        int totalRounds = recentRounds.size();
-
-        Map<String, List<ProcessHistory>> groupedByName = history.stream()
-                .collect(Collectors.groupingBy(ProcessHistory::getName));
-
-        for (Map.Entry<String, List<ProcessHistory>> entry : groupedByName.entrySet()) {
-            String processName = entry.getKey();
-            List<ProcessHistory> processList = entry.getValue();
-
-            double frequency = (double) processList.size() / totalRounds;
-            String category = categorizeFrequency(frequency);
-
-            LocalDateTime firstSeen = processList.stream()
-                    .map(ProcessHistory::getCollectedAt)
-                    .min(LocalDateTime::compareTo)
-                    .orElse(LocalDateTime.now());
-
-            LocalDateTime lastSeen = processList.stream()
-                    .map(ProcessHistory::getCollectedAt)
-                    .max(LocalDateTime::compareTo)
-                    .orElse(LocalDateTime.now());
-
-            Double avgCpu = processList.stream()
-                    .map(ProcessHistory::getCpuPercent)
-                    .filter(Objects::nonNull)
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
-
-            Double avgMemory = processList.stream()
-                    .map(ProcessHistory::getMemoryPercent)
-                    .filter(Objects::nonNull)
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
-
-            Optional<ProcessBaseline> existing = processBaselineRepository
-                    .findByAgentIdAndProcessName(agentId, processName);
-
-            ProcessBaseline baseline;
-            if (existing.isPresent()) {
-                baseline = existing.get();
-            } else {
-                baseline = new ProcessBaseline();
-                baseline.setAgentId(agentId);
-                baseline.setProcessName(processName);
+        Map<Integer, List<ProcessHistory>> byRound = history.stream()
+                .collect(Collectors.groupingBy(ProcessHistory::getCollectionRound));
+
+        LearningCounters counters = new LearningCounters();
+        for (Integer round : recentRounds) {
+            counters.beginRound();
+            for (ProcessHistory p : byRound.getOrDefault(round, Collections.emptyList())) {
+                if (p.getName() != null) {
+                    counters.observe(p.getName(), null, null, p.getCollectedAt(), p.getCpuPercent(), p.getMemoryPercent());
+                }
             }
-
-            baseline.setFrequency(frequency);
-            baseline.setFrequencyCategory(category);
-            baseline.setFirstSeen(firstSeen);
-            baseline.setLastSeen(lastSeen);
-            baseline.setTotalAppearances(processList.size());
-            baseline.setAvgCpuPercent(avgCpu);
-            baseline.setAvgMemoryPercent(avgMemory);
-
-            processBaselineRepository.save(baseline);
         }
-
-        logger.info("Process baseline built for agent {} with {} entries", agentId, groupedByName.size());
+        return flushProcessCounters(agentId, counters);
     }
 
     @Transactional
-    public void buildPortBaseline(String agentId, int rounds) {
+    public int buildPortBaseline(String agentId, int rounds) {
         logger.info("Building port baseline for agent {} using {} rounds", agentId, rounds);
 
         List<Integer> recentRounds = portHistoryRepository.findRecentRounds(agentId, rounds);
         if (recentRounds.isEmpty()) {
             logger.warn("No port history data found for agent {}", agentId);
-            return;
+            return 0;
         }
 
         List<PortHistory> history = portHistoryRepository.findByAgentIdAndCollectionRoundIn(agentId, recentRounds);
-        int totalRounds = recentRounds.size();
-
-        Map<String, List<PortHistory>> groupedByKey = history.stream()
-                .collect(Collectors.groupingBy(h -> h.getPort() + ":" + h.getProtocol()));
-
-        for (Map.Entry<String, List<PortHistory>> entry : groupedByKey.entrySet()) {
-            String key = entry.getKey();
-            List<PortHistory> portList = entry.getValue();
-
-            PortHistory first = portList.get(0);
-            double frequency = (double) portList.size() / totalRounds;
-            String category = categorizeFrequency(frequency);
-
-            LocalDateTime firstSeen = portList.stream()
-                    .map(PortHistory::getCollectedAt)
-                    .min(LocalDateTime::compareTo)
-                    .orElse(LocalDateTime.now());
-
-            LocalDateTime lastSeen = portList.stream()
-                    .map(PortHistory::getCollectedAt)
-                    .max(LocalDateTime::compareTo)
-                    .orElse(LocalDateTime.now());
-
-            Optional<PortBaseline> existing = portBaselineRepository
-                    .findByAgentIdAndPortAndProtocol(agentId, first.getPort(), first.getProtocol());
-
-            PortBaseline baseline;
-            if (existing.isPresent()) {
-                baseline = existing.get();
-            } else {
-                baseline = new PortBaseline();
-                baseline.setAgentId(agentId);
-                baseline.setPort(first.getPort());
-                baseline.setProtocol(first.getProtocol());
+        Map<Integer, List<PortHistory>> byRound = history.stream()
+                .collect(Collectors.groupingBy(PortHistory::getCollectionRound));
+
+        LearningCounters counters = new LearningCounters();
+        for (Integer round : recentRounds) {
+            counters.beginRound();
+            for (PortHistory p : byRound.getOrDefault(round, Collections.emptyList())) {
+                if (p.getPort() != null) {
+                    counters.observe(p.getPort() + ":" + p.getProtocol(), p.getPort(), p.getProtocol(),
+                            p.getCollectedAt(), null, null);
+                }
             }
+        }
+        return flushPortCounters(agentId, counters);
+    }
 
-            baseline.setFrequency(frequency);
-            baseline.setFrequencyCategory(category);
-            baseline.setFirstSeen(firstSeen);
-            baseline.setLastSeen(lastSeen);
-            baseline.setTotalAppearances(portList.size());
+    // ===== 批量写入 =====
+    private int flushProcessCounters(String agentId, LearningCounters counters) {
+        int totalRounds = counters.getRounds();
+        List<Object[]> rows = new ArrayList<>();
+        for (FeatureCounter c : counters.snapshot()) {
+            double frequency = (double) c.appearances / totalRounds;
+            rows.add(new Object[]{
+                    agentId, c.key, frequency, categorizeFrequency(frequency),
+                    toTimestamp(c.firstSeen), toTimestamp(c.lastSeen), c.appearances,
+                    c.cpu.mean(), c.memory.mean(), c.cpu.stddev(), c.memory.stddev()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_PROCESS_BASELINE, rows);
+        logger.info("Process baseline built for agent {} with {} entries over {} rounds", agentId, rows.size(), totalRounds);
+        return rows.size();
+    }
 
-            portBaselineRepository.save(baseline);
+    private int flushPortCounters(String agentId, LearningCounters counters) {
+        int totalRounds = counters.getRounds();
+        List<Object[]> rows = new ArrayList<>();
+        for (FeatureCounter c : counters.snapshot()) {
+            double frequency = (double) c.appearances / totalRounds;
+            rows.add(new Object[]{
+                    agentId, c.port, c.protocol, frequency, categorizeFrequency(frequency),
+                    toTimestamp(c.firstSeen), toTimestamp(c.lastSeen), c.appearances
+            });
         }
+        jdbcTemplate.batchUpdate(UPSERT_PORT_BASELINE, rows);
+        logger.info("Port baseline built for agent {} with {} entries over {} rounds", agentId, rows.size(), totalRounds);
+        return rows.size();
+    }
 
-        logger.info("Port baseline built for agent {} with {} entries", agentId, groupedByKey.size());
+    private Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
     }
 
     private String categorizeFrequency(double frequency) {
@@ -187,4 +249,80 @@ public class BaselineFeatureService {
     public List<PortBaseline> getPortBaseline(String agentId) {
         return portBaselineRepository.findByAgentId(agentId);
     }
+
+    // Per-agent counters; an item's appearances count the rounds it was present in, not its instances
+    static class LearningCounters {
+        private final Map<String, FeatureCounter> features = new HashMap<>();
+        private int rounds;
+
+        synchronized void beginRound() {
+            rounds++;
+        }
+
+        synchronized void observe(String key, Integer port, String protocol, LocalDateTime seenAt,
+                                  Double cpu, Double memory) {
+            FeatureCounter counter = features.computeIfAbsent(key, k -> new FeatureCounter(k, port, protocol));
+            if (counter.lastRound != rounds) {
+                counter.lastRound = rounds;
+                counter.appearances++;
+            }
+            if (seenAt != null) {
+                if (counter.firstSeen == null || seenAt.isBefore(counter.firstSeen)) counter.firstSeen = seenAt;
+                if (counter.lastSeen == null || seenAt.isAfter(counter.lastSeen)) counter.lastSeen = seenAt;
+            }
+            counter.cpu.add(cpu);
+            counter.memory.add(memory);
+        }
+
+        synchronized int getRounds() {
+            return rounds;
+        }
+
+        synchronized List<FeatureCounter> snapshot() {
+            return new ArrayList<>(features.values());
+        }
+    }
+
+    static class FeatureCounter {
+        private final String key;
+        private final Integer port;
+        private final String protocol;
+        private int appearances;
+        private int lastRound;
+        private LocalDateTime firstSeen;
+        private LocalDateTime lastSeen;
+        private final RunningStats cpu = new RunningStats();
+        private final RunningStats memory = new RunningStats();
+
+        FeatureCounter(String key, Integer port, String protocol) {
+            this.key = key;
+            this.port = port;
+            this.protocol = protocol;
+        }
+    }
+
+    // Welford's online mean/variance, so no samples are kept
+    static class RunningStats {
+        private long count;
+        private double mean;
+        private double m2;
+
+        void add(Double value) {
+            if (value == null) {
+                return;
+            }
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        double mean() {
+            return count > 0 ? mean : 0.0;
+        }
+
+        double stddev() {
+            return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+        }
+    }
 }
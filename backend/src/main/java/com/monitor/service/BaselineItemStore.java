@@ -0,0 +1,322 @@
+package com.monitor.service;
+
+import com.monitor.entity.BaselineItem;
+import com.monitor.entity.BaselineItemSet;
+import com.monitor.entity.BaselineSnapshot;
+import com.monitor.repository.BaselineItemRepository;
+import com.monitor.repository.BaselineItemSetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class BaselineItemStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaselineItemStore.class);
+
+    public static final String OP_PUT = "PUT";
+    public static final String OP_REMOVE = "REMOVE";
+
+    private final BaselineItemSetRepository itemSetRepository;
+    private final BaselineItemRepository itemRepository;
+    // New sets are written in their own transaction, see resolve
+    private final TransactionTemplate setTransaction;
+
+    // Sets are immutable once written, so their metadata can be cached until they are deleted
+    private final Map<Long, BaselineItemSet> setCache = new ConcurrentHashMap<>();
+
+    @Value("${monitor.baseline.checkpoint-interval:10}")
+    private int checkpointInterval;
+
+    @Value("${monitor.baseline.orphan-grace-minutes:30}")
+    private long orphanGraceMinutes;
+
+    @Value("${monitor.baseline.orphan-sweep-batch:1000}")
+    private int orphanSweepBatch;
+
+    public BaselineItemStore(BaselineItemSetRepository itemSetRepository,
+                             BaselineItemRepository itemRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.itemSetRepository = itemSetRepository;
+        this.itemRepository = itemRepository;
+        this.setTransaction = new TransactionTemplate(transactionManager);
+        this.setTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Order-independent content hash: identical baselines on different agents map to the same set
+    public String computeSetHash(String type, List<BaselineItem> items) {
+        List<String> entries = new ArrayList<>(items.size());
+        for (BaselineItem item : dedupe(items)) {
+            entries.add(item.getItemType() + "\u0000" + item.getItemKey() + "\u0000" + item.getItemValue());
+        }
+        Collections.sort(entries);
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(type.toUpperCase().getBytes(StandardCharsets.UTF_8));
+            for (String entry : entries) {
+                md.update((byte) '\n');
+                md.update(entry.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    // Reuses the set when the content already exists. Otherwise the items are written once, either
+    // as a delta against parentSetId or, every checkpointInterval versions or when the delta would
+    // not be smaller, as a full checkpoint. Sets are never modified, so divergence is copy-on-write.
+    // A new set and its items commit in their own transaction. Two agents creating the same content at
+    // once then race on uk_baseline_item_set_hash without failing either caller's transaction: the
+    // loser re-reads the winner's set, which is complete because it committed as a unit. A set left
+    // behind by a caller that rolls back is an orphan the sweep removes, or is reused by the next match.
+    // Call inside the transaction that saves the referencing snapshot: every set handed out (and a delta's
+    // parent) is touched there, which keeps the orphan sweep off it until that snapshot has committed.
+    public BaselineItemSet resolve(String type, String setHash, List<BaselineItem> items,
+                                   Long ownerSnapshotId, Long parentSetId) {
+        Optional<BaselineItemSet> existing = itemSetRepository.findBySetHash(setHash);
+        if (existing.isPresent() && touch(existing.get().getId())) {
+            logger.debug("Reusing baseline item set {} ({} items)", existing.get().getId(), existing.get().getItemCount());
+            return existing.get();
+        }
+
+        List<BaselineItem> full = dedupe(items);
+        BaselineItemSet parent = parentSetId != null ? getSet(parentSetId) : null;
+        if (parent != null && !touch(parent.getId())) {
+            parent = null;
+        }
+        List<BaselineItem> rows = full;
+        if (parent != null && depthOf(parent) + 1 < checkpointInterval) {
+            List<BaselineItem> delta = computeDelta(reconstruct(parent.getId()), full);
+            if (delta.size() * 2 < full.size()) {
+                rows = delta;
+            } else {
+                full.forEach(item -> item.setDeltaOp(null));
+                parent = null;
+            }
+        } else {
+            parent = null;
+        }
+
+        BaselineItemSet newSet = new BaselineItemSet();
+        newSet.setSetHash(setHash);
+        newSet.setBaselineType(type);
+        newSet.setItemCount(full.size());
+        newSet.setParentSetId(parent != null ? parent.getId() : null);
+        newSet.setDepth(parent != null ? depthOf(parent) + 1 : 0);
+        newSet.setDeltaCount(parent != null ? rows.size() : null);
+
+        List<BaselineItem> written = rows;
+        BaselineItemSet itemSet;
+        try {
+            itemSet = setTransaction.execute(status -> {
+                BaselineItemSet saved = itemSetRepository.saveAndFlush(newSet);
+                for (BaselineItem item : written) {
+                    item.setSnapshotId(ownerSnapshotId);
+                    item.setItemSetId(saved.getId());
+                }
+                itemRepository.saveAll(written);
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // a fresh transaction, so the read is not pinned to a snapshot taken before the winner committed
+            BaselineItemSet winner = setTransaction.execute(status -> itemSetRepository.findBySetHash(setHash).orElse(null));
+            if (winner == null || !touch(winner.getId())) {
+                throw e;
+            }
+            logger.debug("Baseline item set {} was created concurrently, reusing set {}", setHash, winner.getId());
+            return winner;
+        }
+        setCache.put(itemSet.getId(), itemSet);
+
+        if (parent != null) {
+            logger.debug("Created delta item set {} on {} with {} changes ({} items)",
+                    itemSet.getId(), parent.getId(), rows.size(), full.size());
+        } else {
+            logger.debug("Created checkpoint item set {} with {} items", itemSet.getId(), full.size());
+        }
+        return itemSet;
+    }
+
+    public List<BaselineItem> loadItems(BaselineSnapshot snapshot) {
+        if (snapshot.getItemSetId() != null) {
+            return reconstruct(snapshot.getItemSetId());
+        }
+        return itemRepository.findBySnapshotId(snapshot.getId());
+    }
+
+    // Walks back to the nearest checkpoint, fetches the whole chain in one query and replays the deltas
+    public List<BaselineItem> reconstruct(Long itemSetId) {
+        Deque<Long> chain = new ArrayDeque<>();
+        BaselineItemSet current = getSet(itemSetId);
+        while (current != null) {
+            chain.addFirst(current.getId());
+            current = current.getParentSetId() != null ? getSet(current.getParentSetId()) : null;
+        }
+        if (chain.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, List<BaselineItem>> rowsBySet = new HashMap<>();
+        for (BaselineItem row : itemRepository.findByItemSetIdIn(chain)) {
+            rowsBySet.computeIfAbsent(row.getItemSetId(), k -> new ArrayList<>()).add(row);
+        }
+
+        Map<String, BaselineItem> items = new LinkedHashMap<>();
+        for (Long setId : chain) {
+            for (BaselineItem row : rowsBySet.getOrDefault(setId, Collections.emptyList())) {
+                if (OP_REMOVE.equals(row.getDeltaOp())) {
+                    items.remove(row.getItemKey());
+                } else {
+                    items.put(row.getItemKey(), row);
+                }
+            }
+        }
+        return new ArrayList<>(items.values());
+    }
+
+    // Call after the referencing snapshots are gone; sets still used by a snapshot or a delta are kept,
+    // and so are sets used within the grace period. Those are left to the periodic sweep.
+    public int deleteIfOrphaned(Collection<Long> setIds, int chunkSize) {
+        LocalDateTime cutoff = graceCutoff();
+        int removed = 0;
+        Collection<Long> candidates = setIds;
+        while (!candidates.isEmpty()) {
+            List<Long> orphans = itemSetRepository.findOrphanIdsIn(candidates, cutoff);
+            if (orphans.isEmpty()) {
+                break;
+            }
+            // removing a delta can leave its parent unreferenced, so walk up the chain
+            candidates = itemSetRepository.findParentIds(orphans);
+            removed += deleteSets(orphans, chunkSize, cutoff);
+        }
+        return removed;
+    }
+
+    // Removes up to limit unreferenced sets of any agent and returns how many were removed
+    public int deleteOrphanBatch(int limit) {
+        LocalDateTime cutoff = graceCutoff();
+        int removed = 0;
+        while (removed < limit) {
+            List<Long> orphans = itemSetRepository.findOrphanIds(cutoff, limit - removed);
+            if (orphans.isEmpty()) {
+                break;
+            }
+            int deleted = deleteSets(orphans, limit, cutoff);
+            if (deleted == 0) {
+                break;
+            }
+            removed += deleted;
+        }
+        return removed;
+    }
+
+    // Catches sets left behind by rolled-back snapshots, interrupted purges and the grace period
+    @Scheduled(fixedDelayString = "${monitor.baseline.orphan-sweep-interval-ms:3600000}")
+    public void sweepOrphans() {
+        int removed;
+        do {
+            removed = deleteOrphanBatch(orphanSweepBatch);
+        } while (removed >= orphanSweepBatch);
+    }
+
+    // Set rows go first, each re-checked by the delete itself; only items of sets actually gone follow
+    private int deleteSets(List<Long> setIds, int chunkSize, LocalDateTime cutoff) {
+        int removed = itemSetRepository.deleteUnusedByIdIn(setIds, cutoff);
+        int deleted;
+        do {
+            deleted = itemRepository.deleteBatchOfDeletedSets(setIds, chunkSize);
+        } while (deleted >= chunkSize);
+        setIds.forEach(setCache::remove);
+        if (removed > 0) {
+            logger.info("Deleted {} unreferenced baseline item sets", removed);
+        }
+        return removed;
+    }
+
+    private boolean touch(Long itemSetId) {
+        if (itemSetRepository.touch(itemSetId, LocalDateTime.now()) > 0) {
+            return true;
+        }
+        // swept between the lookup and here
+        setCache.remove(itemSetId);
+        return false;
+    }
+
+    private LocalDateTime graceCutoff() {
+        return LocalDateTime.now().minusMinutes(orphanGraceMinutes);
+    }
+
+    private BaselineItemSet getSet(Long itemSetId) {
+        BaselineItemSet cached = setCache.get(itemSetId);
+        if (cached != null) {
+            return cached;
+        }
+        return itemSetRepository.findById(itemSetId)
+                .map(set -> {
+                    setCache.put(set.getId(), set);
+                    return set;
+                })
+                .orElse(null);
+    }
+
+    private int depthOf(BaselineItemSet set) {
+        return set.getDepth() != null ? set.getDepth() : 0;
+    }
+
+    private List<BaselineItem> computeDelta(List<BaselineItem> parentItems, List<BaselineItem> items) {
+        Map<String, BaselineItem> parentByKey = new HashMap<>(parentItems.size() * 2);
+        for (BaselineItem item : parentItems) {
+            parentByKey.put(item.getItemKey(), item);
+        }
+
+        List<BaselineItem> delta = new ArrayList<>();
+        Set<String> keys = new HashSet<>(items.size() * 2);
+        for (BaselineItem item : items) {
+            keys.add(item.getItemKey());
+            BaselineItem previous = parentByKey.get(item.getItemKey());
+            if (previous == null
+                    || !Objects.equals(previous.getItemValue(), item.getItemValue())
+                    || !Objects.equals(previous.getItemType(), item.getItemType())) {
+                item.setDeltaOp(OP_PUT);
+                delta.add(item);
+            }
+        }
+        for (BaselineItem previous : parentItems) {
+            if (!keys.contains(previous.getItemKey())) {
+                BaselineItem tombstone = new BaselineItem();
+                tombstone.setItemKey(previous.getItemKey());
+                tombstone.setItemType(previous.getItemType());
+                tombstone.setDeltaOp(OP_REMOVE);
+                delta.add(tombstone);
+            }
+        }
+        return delta;
+    }
+
+    // Keys are unique within a set; the first item wins, as in detection
+    private List<BaselineItem> dedupe(List<BaselineItem> items) {
+        Map<String, BaselineItem> byKey = new LinkedHashMap<>();
+        for (BaselineItem item : items) {
+            byKey.putIfAbsent(item.getItemKey(), item);
+        }
+        return new ArrayList<>(byKey.values());
+    }
+}
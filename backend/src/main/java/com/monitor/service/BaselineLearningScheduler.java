@@ -0,0 +1,172 @@
+package com.monitor.service;
+
+import com.monitor.entity.BaselineConfig;
+import com.monitor.repository.BaselineConfigRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class BaselineLearningScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaselineLearningScheduler.class);
+
+    // Entries are never removed from the middle of the queue; a rescheduled or cancelled
+    // config just no longer matches its deadline in pending and is skipped when polled.
+    private final PriorityQueue<Deadline> queue = new PriorityQueue<>(Comparator.comparing(Deadline::getLearnEnd));
+    private final Map<String, LocalDateTime> pending = new HashMap<>();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final BaselineConfigRepository configRepository;
+    private final ObjectProvider<BaselineService> baselineService;
+    private final ExecutorService executor;
+
+    @Value("${monitor.learning.retry-delay-ms:300000}")
+    private long retryDelayMs;
+
+    public BaselineLearningScheduler(BaselineConfigRepository configRepository,
+                                     ObjectProvider<BaselineService> baselineService,
+                                     @Value("${monitor.learning.parallelism:4}") int parallelism) {
+        this.configRepository = configRepository;
+        this.baselineService = baselineService;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "baseline-learning-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        List<BaselineConfig> learning = configRepository.findByStatus("LEARNING");
+        for (BaselineConfig config : learning) {
+            schedule(config);
+        }
+        logger.info("Loaded {} learning baselines into the completion queue", learning.size());
+    }
+
+    public void schedule(BaselineConfig config) {
+        if (!"LEARNING".equals(config.getStatus()) || config.getLearnEnd() == null) {
+            return;
+        }
+        enqueue(config.getAgentId(), config.getBaselineType(), config.getLearnEnd());
+    }
+
+    private void enqueue(String agentId, String type, LocalDateTime learnEnd) {
+        synchronized (queue) {
+            pending.put(key(agentId, type), learnEnd);
+            queue.add(new Deadline(agentId, type, learnEnd));
+        }
+    }
+
+    // Puts a deadline back unless the key was rescheduled meanwhile; a completion that finds the
+    // config no longer LEARNING does nothing
+    private void requeue(Deadline deadline) {
+        String key = key(deadline.getAgentId(), deadline.getBaselineType());
+        synchronized (queue) {
+            if (!pending.containsKey(key)) {
+                pending.put(key, deadline.getLearnEnd());
+                queue.add(deadline);
+            }
+        }
+    }
+
+    public void cancel(String agentId, String type) {
+        synchronized (queue) {
+            pending.remove(key(agentId, type));
+        }
+    }
+
+    public void cancelAgent(String agentId) {
+        String prefix = agentId + "|";
+        synchronized (queue) {
+            pending.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (queue) {
+            return pending.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.learning.check-interval-ms:10000}")
+    public void completeDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Deadline> due = new ArrayList<>();
+        synchronized (queue) {
+            while (!queue.isEmpty() && !queue.peek().getLearnEnd().isAfter(now)) {
+                Deadline deadline = queue.poll();
+                String key = key(deadline.getAgentId(), deadline.getBaselineType());
+                if (deadline.getLearnEnd().equals(pending.get(key))) {
+                    pending.remove(key);
+                    due.add(deadline);
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        logger.info("{} learning baselines reached their end, completing with bounded parallelism", due.size());
+        for (Deadline deadline : due) {
+            String key = key(deadline.getAgentId(), deadline.getBaselineType());
+            if (!running.add(key)) {
+                // a completion for the key is still in flight; look again on a later tick
+                requeue(deadline);
+                continue;
+            }
+            executor.submit(() -> {
+                try {
+                    baselineService.getObject().completeLearning(deadline.getAgentId(), deadline.getBaselineType());
+                } catch (Exception e) {
+                    logger.error("Auto-completion failed for agent {} type {}, retrying in {} ms",
+                            deadline.getAgentId(), deadline.getBaselineType(), retryDelayMs, e);
+                    enqueue(deadline.getAgentId(), deadline.getBaselineType(),
+                            LocalDateTime.now().plusNanos(retryDelayMs * 1_000_000));
+                } finally {
+                    running.remove(key);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String key(String agentId, String type) {
+        return agentId + "|" + type;
+    }
+
+    private static class Deadline {
+        private final String agentId;
+        private final String baselineType;
+        private final LocalDateTime learnEnd;
+
+        Deadline(String agentId, String baselineType, LocalDateTime learnEnd) {
+            this.agentId = agentId;
+            this.baselineType = baselineType;
+            this.learnEnd = learnEnd;
+        }
+
+        String getAgentId() { return agentId; }
+        String getBaselineType() { return baselineType; }
+        LocalDateTime getLearnEnd() { return learnEnd; }
+    }
+}
@@ -7,8 +7,11 @@ import com.monitor.repository.ProcessHistoryRepository;
 import com.monitor.repository.PortHistoryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -26,36 +29,45 @@ public class BaselineService {
     private final BaselineSnapshotRepository snapshotRepository;
     private final BaselineItemRepository itemRepository;
     private final HostInfoRepository hostInfoRepository;
-    private final CurrentProcessInfoRepository currentProcessInfoRepository;
-    private final CurrentPortInfoRepository currentPortInfoRepository;
     private final ProcessHistoryRepository processHistoryRepository;
     private final PortHistoryRepository portHistoryRepository;
-    private final UsbDeviceRepository usbDeviceRepository;
     private final LoginLogRepository loginLogRepository;
-    private final InstalledSoftwareRepository installedSoftwareRepository;
+    private final AgentStateStore agentStateStore;
+    private final BaselineCache baselineCache;
+    private final BaselineDiffEngine diffEngine;
+    private final BaselineFeatureService featureService;
+    private final BaselineLearningScheduler learningScheduler;
+    private final BaselineItemStore itemStore;
+
+    @Value("${monitor.learning.fallback-rounds:100}")
+    private int fallbackRounds;
 
     public BaselineService(BaselineConfigRepository configRepository,
                           BaselineSnapshotRepository snapshotRepository,
                           BaselineItemRepository itemRepository,
                           HostInfoRepository hostInfoRepository,
-                          CurrentProcessInfoRepository currentProcessInfoRepository,
-                          CurrentPortInfoRepository currentPortInfoRepository,
                           ProcessHistoryRepository processHistoryRepository,
                           PortHistoryRepository portHistoryRepository,
-                          UsbDeviceRepository usbDeviceRepository,
                           LoginLogRepository loginLogRepository,
-                          InstalledSoftwareRepository installedSoftwareRepository) {
+                          AgentStateStore agentStateStore,
+                          BaselineCache baselineCache,
+                          BaselineDiffEngine diffEngine,
+                          BaselineFeatureService featureService,
+                          BaselineLearningScheduler learningScheduler,
+                          BaselineItemStore itemStore) {
         this.configRepository = configRepository;
         this.snapshotRepository = snapshotRepository;
         this.itemRepository = itemRepository;
         this.hostInfoRepository = hostInfoRepository;
-        this.currentProcessInfoRepository = currentProcessInfoRepository;
-        this.currentPortInfoRepository = currentPortInfoRepository;
         this.processHistoryRepository = processHistoryRepository;
         this.portHistoryRepository = portHistoryRepository;
-        this.usbDeviceRepository = usbDeviceRepository;
         this.loginLogRepository = loginLogRepository;
-        this.installedSoftwareRepository = installedSoftwareRepository;
+        this.agentStateStore = agentStateStore;
+        this.baselineCache = baselineCache;
+        this.diffEngine = diffEngine;
+        this.featureService = featureService;
+        this.learningScheduler = learningScheduler;
+        this.itemStore = itemStore;
     }
 
     // ===== 学习模式 =====
@@ -95,10 +107,17 @@ public class BaselineService {
             config.setLearnEnd(LocalDateTime.now().plusDays(config.getLearningDays()));
         }
 
-        return configRepository.save(config);
+        config = configRepository.save(config);
+        baselineCache.invalidate(agentId, type);
+        featureService.startLearning(agentId, type);
+        learningScheduler.schedule(config);
+        return config;
     }
 
     // ===== 手动创建 =====
+    // The entry points are transactional so the config, the item set reference and the snapshot
+    // commit together; createSnapshot is self-invoked from here and would not start its own
+    @Transactional
     public BaselineConfig importFromCurrent(String agentId, String type) {
         logger.info("Importing current data as baseline for agent {} type {}", agentId, type);
 
@@ -107,9 +126,15 @@ public class BaselineService {
         return createManualBaseline(agentId, type, currentData, "IMPORT", null);
     }
 
+    @Transactional
     public BaselineConfig copyFromAgent(String sourceAgentId, String targetAgentId, String type) {
         logger.info("Copying baseline from agent {} to {} type {}", sourceAgentId, targetAgentId, type);
 
+        return applyBaseline(targetAgentId, type, loadCopySource(sourceAgentId, type), "COPY", sourceAgentId);
+    }
+
+    // The copy hashes to the source's item set, so no item rows are duplicated on the targets
+    public List<Map<String, Object>> loadCopySource(String sourceAgentId, String type) {
         Optional<BaselineSnapshot> sourceSnapshot = snapshotRepository
                 .findFirstByAgentIdAndBaselineTypeOrderByCreatedAtDesc(sourceAgentId, type);
 
@@ -117,8 +142,8 @@ public class BaselineService {
             throw new RuntimeException("Source agent has no baseline for type: " + type);
         }
 
-        List<BaselineItem> sourceItems = itemRepository.findBySnapshotId(sourceSnapshot.get().getId());
-        List<Map<String, Object>> itemsData = sourceItems.stream()
+        List<BaselineItem> sourceItems = itemStore.loadItems(sourceSnapshot.get());
+        return sourceItems.stream()
                 .map(item -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("itemKey", item.getItemKey());
@@ -127,10 +152,9 @@ public class BaselineService {
                     return map;
                 })
                 .collect(Collectors.toList());
-
-        return createManualBaseline(targetAgentId, type, itemsData, "COPY", sourceAgentId);
     }
 
+    @Transactional
     public BaselineConfig manualCreate(String agentId, String type, List<BaselineItemDTO> items) {
         logger.info("Manual baseline creation for agent {} type {} with {} items", agentId, type, items.size());
 
@@ -147,47 +171,111 @@ public class BaselineService {
         return createManualBaseline(agentId, type, itemsData, "MANUAL", null);
     }
 
+    @Transactional
+    public BaselineConfig applyBaseline(String agentId, String type, List<Map<String, Object>> itemsData,
+                                        String createdType, String sourceAgentId) {
+        return createManualBaseline(agentId, type, itemsData, createdType, sourceAgentId);
+    }
+
+    // Bulk copy: every target's config and snapshot is written with saveAll in one transaction, and all
+    // the snapshots point at the one item set the copied content resolves to
+    @Transactional
+    public void applyBaselineToAll(List<String> agentIds, String type, List<Map<String, Object>> itemsData,
+                                   String createdType, String sourceAgentId) {
+        if (agentIds.isEmpty()) {
+            return;
+        }
+        Map<String, BaselineConfig> existing = configRepository.findByBaselineTypeAndAgentIdIn(type, agentIds).stream()
+                .collect(Collectors.toMap(BaselineConfig::getAgentId, c -> c, (a, b) -> a));
+        List<BaselineConfig> configs = new ArrayList<>(agentIds.size());
+        for (String agentId : agentIds) {
+            BaselineConfig config = existing.get(agentId);
+            if (config == null) {
+                config = new BaselineConfig();
+                config.setAgentId(agentId);
+                config.setBaselineType(type);
+            }
+            setManual(config, createdType, sourceAgentId);
+            configs.add(config);
+        }
+        configs = configRepository.saveAll(configs);
+
+        List<BaselineItem> items = toItems(type, itemsData);
+        String snapshotHash = itemStore.computeSetHash(type, items);
+        List<BaselineSnapshot> snapshots = new ArrayList<>(configs.size());
+        for (BaselineConfig config : configs) {
+            snapshots.add(newSnapshot(config.getAgentId(), type, config.getId(), snapshotHash, items.size()));
+        }
+        // the first snapshot owns the item rows in case the content has no set yet
+        snapshots.set(0, snapshotRepository.save(snapshots.get(0)));
+        BaselineItemSet itemSet = itemStore.resolve(type, snapshotHash, items, snapshots.get(0).getId(), null);
+        snapshots.forEach(snapshot -> snapshot.setItemSetId(itemSet.getId()));
+        snapshotRepository.saveAll(snapshots);
+
+        for (String agentId : agentIds) {
+            featureService.cancelLearning(agentId, type);
+            learningScheduler.cancel(agentId, type);
+        }
+        runAfterCommit(() -> agentIds.forEach(agentId -> baselineCache.invalidate(agentId, type)));
+        logger.info("Baseline copied to {} agents type {} with {} items in item set {}",
+                agentIds.size(), type, items.size(), itemSet.getId());
+    }
+
     private BaselineConfig createManualBaseline(String agentId, String type,
                                                 List<Map<String, Object>> itemsData,
                                                 String createdType, String sourceAgentId) {
-        Optional<BaselineConfig> existingConfig = configRepository.findByAgentIdAndBaselineType(agentId, type);
-
-        BaselineConfig config;
-        if (existingConfig.isPresent()) {
-            config = existingConfig.get();
-            config.setStatus("ACTIVE");
-            config.setLearningMode("MANUAL");
-            config.setCreatedType(createdType);
-            config.setSourceAgentId(sourceAgentId);
-            config.setLearnStart(LocalDateTime.now());
-            config.setLearnEnd(LocalDateTime.now());
-        } else {
-            config = new BaselineConfig();
-            config.setAgentId(agentId);
-            config.setBaselineType(type);
-            config.setStatus("ACTIVE");
-            config.setLearningMode("MANUAL");
-            config.setCreatedType(createdType);
-            config.setSourceAgentId(sourceAgentId);
-            config.setLearnStart(LocalDateTime.now());
-            config.setLearnEnd(LocalDateTime.now());
-        }
+        BaselineConfig config = configRepository.findByAgentIdAndBaselineType(agentId, type).orElseGet(() -> {
+            BaselineConfig created = new BaselineConfig();
+            created.setAgentId(agentId);
+            created.setBaselineType(type);
+            return created;
+        });
+        setManual(config, createdType, sourceAgentId);
 
         config = configRepository.save(config);
+        featureService.cancelLearning(agentId, type);
+        learningScheduler.cancel(agentId, type);
 
         createSnapshot(agentId, type, config.getId(), itemsData);
 
         return config;
     }
 
+    private static void setManual(BaselineConfig config, String createdType, String sourceAgentId) {
+        config.setStatus("ACTIVE");
+        config.setLearningMode("MANUAL");
+        config.setCreatedType(createdType);
+        config.setSourceAgentId(sourceAgentId);
+        config.setLearnStart(LocalDateTime.now());
+        config.setLearnEnd(LocalDateTime.now());
+    }
+
     // ===== 快照管理 =====
     @Transactional
     public BaselineSnapshot createSnapshot(String agentId, String type, Long configId, List<Map<String, Object>> itemsData) {
         logger.info("Creating snapshot for agent {} type {}", agentId, type);
 
-        List<BaselineItem> items = new ArrayList<>();
-        StringBuilder hashContent = new StringBuilder();
+        List<BaselineItem> items = toItems(type, itemsData);
+
+        String snapshotHash = itemStore.computeSetHash(type, items);
+        Long parentSetId = snapshotRepository.findFirstByAgentIdAndBaselineTypeOrderByCreatedAtDesc(agentId, type)
+                .map(BaselineSnapshot::getItemSetId)
+                .orElse(null);
 
+        BaselineSnapshot snapshot = newSnapshot(agentId, type, configId, snapshotHash, items.size());
+        snapshot = snapshotRepository.save(snapshot);
+
+        BaselineItemSet itemSet = itemStore.resolve(type, snapshotHash, items, snapshot.getId(), parentSetId);
+        snapshot.setItemSetId(itemSet.getId());
+        snapshot = snapshotRepository.save(snapshot);
+        runAfterCommit(() -> baselineCache.invalidate(agentId, type));
+
+        logger.info("Snapshot created with {} items in item set {}, hash: {}", items.size(), itemSet.getId(), snapshotHash);
+        return snapshot;
+    }
+
+    private List<BaselineItem> toItems(String type, List<Map<String, Object>> itemsData) {
+        List<BaselineItem> items = new ArrayList<>(itemsData.size());
         for (Map<String, Object> itemData : itemsData) {
             String itemKey = String.valueOf(itemData.get("itemKey"));
             String itemValue = String.valueOf(itemData.getOrDefault("itemValue", ""));
@@ -201,38 +289,35 @@ public class BaselineService {
             item.setItemHash(computeHash(itemKey + itemValue));
 
             items.add(item);
-            hashContent.append(itemKey).append(itemValue);
         }
+        return items;
+    }
 
-        String snapshotHash = computeHash(hashContent.toString());
-
+    private static BaselineSnapshot newSnapshot(String agentId, String type, Long configId, String snapshotHash, int itemCount) {
         BaselineSnapshot snapshot = new BaselineSnapshot();
         snapshot.setAgentId(agentId);
         snapshot.setBaselineType(type);
         snapshot.setConfigId(configId);
         snapshot.setSnapshotHash(snapshotHash);
-        snapshot.setItemCount(items.size());
+        snapshot.setItemCount(itemCount);
         snapshot.setValidFrom(LocalDateTime.now());
-
-        snapshot = snapshotRepository.save(snapshot);
-
-        for (BaselineItem item : items) {
-            item.setSnapshotId(snapshot.getId());
-        }
-        itemRepository.saveAll(items);
-
-        logger.info("Snapshot created with {} items, hash: {}", items.size(), snapshotHash);
         return snapshot;
     }
 
+    // The snapshot is built before the config turns ACTIVE, in one transaction: if anything fails the
+    // config stays LEARNING and the scheduler's retry completes it again instead of finding it done
+    @Transactional
     public void completeLearning(String agentId, String type) {
         configRepository.findByAgentIdAndBaselineType(agentId, type).ifPresent(config -> {
             if ("LEARNING".equals(config.getStatus())) {
+                createSnapshotFromHistory(agentId, type, config.getId());
+
+                featureService.completeLearning(agentId, type, fallbackRounds);
+
                 config.setStatus("ACTIVE");
                 configRepository.save(config);
+                runAfterCommit(() -> baselineCache.invalidate(agentId, type));
                 logger.info("Learning completed for agent {} type {}", agentId, type);
-
-                createSnapshotFromHistory(agentId, type, config.getId());
             }
         });
     }
@@ -250,6 +335,19 @@ public class BaselineService {
         });
     }
 
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     // ===== 查询方法 =====
     public List<BaselineConfig> getBaselineConfigs(String agentId) {
         return configRepository.findByAgentId(agentId);
@@ -267,80 +365,43 @@ public class BaselineService {
         Optional<BaselineSnapshot> snapshot = snapshotRepository
                 .findFirstByAgentIdAndBaselineTypeOrderByCreatedAtDesc(agentId, type);
         if (snapshot.isPresent()) {
-            return itemRepository.findBySnapshotId(snapshot.get().getId());
+            return itemStore.loadItems(snapshot.get());
         }
         return Collections.emptyList();
     }
 
-    public BaselineCompareResult compareWithBaseline(String agentId, String type) {
-        List<Map<String, Object>> currentData = getCurrentData(agentId, type);
-        List<BaselineItem> baselineItems = getBaselineItems(agentId, type);
-
-        Set<String> baselineKeys = baselineItems.stream()
-                .map(BaselineItem::getItemKey)
-                .collect(Collectors.toSet());
-
-        Map<String, BaselineItem> baselineMap = baselineItems.stream()
-                .collect(Collectors.toMap(BaselineItem::getItemKey, i -> i));
-
-        List<AnomalyDTO> newItems = new ArrayList<>();
-        List<AnomalyDTO> missingItems = new ArrayList<>();
-        List<AnomalyDTO> modifiedItems = new ArrayList<>();
-
-        for (Map<String, Object> current : currentData) {
-            String itemKey = String.valueOf(current.get("itemKey"));
-            BaselineItem baseline = baselineMap.get(itemKey);
-
-            if (baseline == null) {
-                AnomalyDTO anomaly = new AnomalyDTO();
-                anomaly.setAnomalyType("NEW");
-                anomaly.setItemKey(itemKey);
-                anomaly.setCurrentValue(current);
-                anomaly.setAlertLevel("MEDIUM");
-                newItems.add(anomaly);
-            } else if (!Objects.equals(current.get("itemValue"), baseline.getItemValue())) {
-                AnomalyDTO anomaly = new AnomalyDTO();
-                anomaly.setAnomalyType("MODIFIED");
-                anomaly.setItemKey(itemKey);
-                anomaly.setCurrentValue(current);
-
-                Map<String, Object> baselineValue = new HashMap<>();
-                baselineValue.put("itemValue", baseline.getItemValue());
-                baselineValue.put("itemType", baseline.getItemType());
-                anomaly.setBaselineValue(baselineValue);
-                anomaly.setAlertLevel("LOW");
-                modifiedItems.add(anomaly);
-            }
-        }
+    // NEW/MISSING/MODIFIED relative to the "from" snapshot
+    public BaselineCompareResult diffSnapshots(String agentId, String type, Long fromSnapshotId, Long toSnapshotId) {
+        BaselineSnapshot from = getOwnedSnapshot(agentId, type, fromSnapshotId);
+        BaselineSnapshot to = getOwnedSnapshot(agentId, type, toSnapshotId);
 
-        for (BaselineItem baseline : baselineItems) {
-            boolean exists = currentData.stream()
-                    .anyMatch(c -> String.valueOf(c.get("itemKey")).equals(baseline.getItemKey()));
-
-            if (!exists) {
-                AnomalyDTO anomaly = new AnomalyDTO();
-                anomaly.setAnomalyType("MISSING");
-                anomaly.setItemKey(baseline.getItemKey());
-
-                Map<String, Object> baselineValue = new HashMap<>();
-                baselineValue.put("itemValue", baseline.getItemValue());
-                baselineValue.put("itemType", baseline.getItemType());
-                anomaly.setBaselineValue(baselineValue);
-                anomaly.setAlertLevel("LOW");
-                missingItems.add(anomaly);
-            }
-        }
+        BaselineDiffEngine.ItemIndex fromIndex = diffEngine.index(itemStore.loadItems(from));
+        List<Map<String, Object>> toItems = from.getItemSetId() != null && from.getItemSetId().equals(to.getItemSetId())
+                ? diffEngine.toItemMaps(fromIndex.getItems())
+                : diffEngine.toItemMaps(itemStore.loadItems(to));
 
-        BaselineCompareResult result = new BaselineCompareResult();
-        result.setBaselineType(type);
-        result.setNewItemsCount(newItems.size());
-        result.setMissingItemsCount(missingItems.size());
-        result.setModifiedItemsCount(modifiedItems.size());
-        result.setNewItems(newItems);
-        result.setMissingItems(missingItems);
-        result.setModifiedItems(modifiedItems);
+        return diffEngine.diff(type, fromIndex, toItems,
+                anomalyType -> "NEW".equals(anomalyType) ? "MEDIUM" : "LOW");
+    }
+
+    // Lets the diff endpoint refuse someone else's snapshot ids before it answers a conditional request
+    public void checkSnapshotsOwned(String agentId, String type, Long fromSnapshotId, Long toSnapshotId) {
+        getOwnedSnapshot(agentId, type, fromSnapshotId);
+        getOwnedSnapshot(agentId, type, toSnapshotId);
+    }
 
-        return result;
+    private BaselineSnapshot getOwnedSnapshot(String agentId, String type, Long snapshotId) {
+        return snapshotRepository.findById(snapshotId)
+                .filter(s -> s.getAgentId().equals(agentId) && s.getBaselineType().equalsIgnoreCase(type))
+                .orElseThrow(() -> new RuntimeException("Snapshot not found: " + snapshotId));
+    }
+
+    public BaselineCompareResult compareWithBaseline(String agentId, String type) {
+        List<Map<String, Object>> currentData = getCurrentData(agentId, type);
+        BaselineDiffEngine.ItemIndex baseline = diffEngine.index(getBaselineItems(agentId, type));
+
+        return diffEngine.diff(type, baseline, currentData,
+                anomalyType -> "NEW".equals(anomalyType) ? "MEDIUM" : "LOW");
     }
 
     // ===== 删除基线 =====
@@ -348,11 +409,19 @@ public class BaselineService {
         Optional<BaselineConfig> config = configRepository.findByAgentIdAndBaselineType(agentId, type);
         if (config.isPresent()) {
             List<BaselineSnapshot> snapshots = snapshotRepository.findByAgentIdAndBaselineType(agentId, type);
+            Set<Long> itemSetIds = new HashSet<>();
             for (BaselineSnapshot snapshot : snapshots) {
                 itemRepository.deleteBySnapshotId(snapshot.getId());
+                if (snapshot.getItemSetId() != null) {
+                    itemSetIds.add(snapshot.getItemSetId());
+                }
             }
             snapshotRepository.deleteByAgentIdAndBaselineType(agentId, type);
+            itemStore.deleteIfOrphaned(itemSetIds, 1000);
             configRepository.delete(config.get());
+            baselineCache.invalidate(agentId, type);
+            featureService.cancelLearning(agentId, type);
+            learningScheduler.cancel(agentId, type);
             logger.info("Baseline deleted for agent {} type {}", agentId, type);
         }
     }
@@ -361,29 +430,29 @@ public class BaselineService {
     private List<Map<String, Object>> getCurrentData(String agentId, String type) {
         switch (type.toUpperCase()) {
             case "PROCESS":
-                return currentProcessInfoRepository.findByAgentIdOrderByCollectedAtDesc(agentId).stream()
+                return agentStateStore.getProcesses(agentId).stream()
                         .limit(500)
-                        .map(this::currentProcessToMap)
+                        .map(diffEngine::toItemMap)
                         .collect(Collectors.toList());
             case "PORT":
-                return currentPortInfoRepository.findByAgentIdOrderByCollectedAtDesc(agentId).stream()
+                return agentStateStore.getPorts(agentId).stream()
                         .limit(500)
-                        .map(this::currentPortToMap)
+                        .map(diffEngine::toItemMap)
                         .collect(Collectors.toList());
             case "USB":
-                return usbDeviceRepository.findByAgentIdOrderByCollectedAtDesc(agentId).stream()
+                return agentStateStore.getUsbDevices(agentId).stream()
                         .limit(500)
-                        .map(this::usbToMap)
+                        .map(diffEngine::toItemMap)
                         .collect(Collectors.toList());
             case "LOGIN":
                 return loginLogRepository.findByAgentIdOrderByLoginTimeDesc(agentId).stream()
                         .limit(500)
-                        .map(this::loginToMap)
+                        .map(diffEngine::toItemMap)
                         .collect(Collectors.toList());
             case "SOFTWARE":
-                return installedSoftwareRepository.findByAgentIdOrderByCollectedAtDesc(agentId).stream()
+                return agentStateStore.getInstalledSoftware(agentId).stream()
                         .limit(500)
-                        .map(this::softwareToMap)
+                        .map(diffEngine::toItemMap)
                         .collect(Collectors.toList());
             default:
                 return Collections.emptyList();
@@ -392,93 +461,32 @@ public class BaselineService {
 
     private List<Map<String, Object>> getHistoricalData(String agentId, String type, LocalDateTime since) {
         switch (type.toUpperCase()) {
+            // Aggregated in the database, so only distinct items cross the wire whatever the window length
             case "PROCESS":
-                return processHistoryRepository.findByAgentId(agentId).stream()
-                        .filter(p -> p.getCollectedAt() != null && p.getCollectedAt().isAfter(since))
-                        .map(this::historyProcessToMap)
+                return processHistoryRepository.aggregateItemsSince(agentId, since).stream()
+                        .map(row -> withStats(diffEngine.processItem((Integer) row[0], (String) row[1],
+                                toDouble(row[2]), toDouble(row[3])), row))
                         .collect(Collectors.toList());
             case "PORT":
-                return portHistoryRepository.findByAgentId(agentId).stream()
-                        .filter(p -> p.getCollectedAt() != null && p.getCollectedAt().isAfter(since))
-                        .map(this::historyPortToMap)
+                return portHistoryRepository.aggregateItemsSince(agentId, since).stream()
+                        .map(row -> withStats(diffEngine.portItem((Integer) row[0], (String) row[1],
+                                (String) row[2], (String) row[3]), row))
                         .collect(Collectors.toList());
             default:
                 return getCurrentData(agentId, type);
         }
     }
 
-    private Map<String, Object> processToMap(ProcessInfo p) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", p.getPid() + ":" + p.getName());
-        map.put("itemValue", p.getName() + "|" + p.getPid() + "|" + p.getCpuPercent() + "|" + p.getMemoryPercent());
-        map.put("itemType", "process");
-        return map;
-    }
-
-    private Map<String, Object> portToMap(PortInfo p) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", p.getPort() + ":" + p.getProtocol());
-        map.put("itemValue", p.getPort() + "|" + p.getProtocol() + "|" + p.getStatus() + "|" + p.getProcessName());
-        map.put("itemType", "port");
-        return map;
-    }
-
-    private Map<String, Object> usbToMap(UsbDevice u) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", u.getDeviceName() + ":" + u.getSerialNumber());
-        map.put("itemValue", u.getDeviceName() + "|" + u.getDeviceType() + "|" + u.getManufacturer() + "|" + u.getSerialNumber());
-        map.put("itemType", "usb");
-        return map;
-    }
-
-    private Map<String, Object> loginToMap(LoginLog l) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", l.getUsername() + ":" + l.getLoginType());
-        map.put("itemValue", l.getUsername() + "|" + l.getLoginType() + "|" + l.getLoginIp() + "|" + l.getLoginTime());
-        map.put("itemType", "login");
-        return map;
-    }
-
-    private Map<String, Object> currentProcessToMap(CurrentProcessInfo p) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", p.getPid() + ":" + p.getName());
-        map.put("itemValue", p.getName() + "|" + p.getPid() + "|" + p.getCpuPercent() + "|" + p.getMemoryPercent());
-        map.put("itemType", "process");
-        return map;
-    }
-
-    private Map<String, Object> currentPortToMap(CurrentPortInfo p) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", p.getPort() + ":" + p.getProtocol());
-        map.put("itemValue", p.getPort() + "|" + p.getProtocol() + "|" + p.getStatus() + "|" + p.getProcessName());
-        map.put("itemType", "port");
-        return map;
-    }
-
-    private Map<String, Object> historyProcessToMap(ProcessHistory p) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", p.getPid() + ":" + p.getName());
-        map.put("itemValue", p.getName() + "|" + p.getPid() + "|" + p.getCpuPercent() + "|" + p.getMemoryPercent());
-        map.put("itemType", "process");
-        map.put("collectionRound", p.getCollectionRound());
-        return map;
-    }
-
-    private Map<String, Object> historyPortToMap(PortHistory p) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", p.getPort() + ":" + p.getProtocol());
-        map.put("itemValue", p.getPort() + "|" + p.getProtocol() + "|" + p.getStatus() + "|" + p.getProcessName());
-        map.put("itemType", "port");
-        map.put("collectionRound", p.getCollectionRound());
-        return map;
+    // Columns 4-6 of both history aggregates: sample count, first seen, last seen
+    private Map<String, Object> withStats(Map<String, Object> item, Object[] row) {
+        item.put("occurrences", row[4]);
+        item.put("firstSeen", row[5]);
+        item.put("lastSeen", row[6]);
+        return item;
     }
 
-    private Map<String, Object> softwareToMap(InstalledSoftware s) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("itemKey", s.getSoftwareName());
-        map.put("itemValue", s.getSoftwareName() + "|" + s.getVersion() + "|" + s.getPublisher());
-        map.put("itemType", "software");
-        return map;
+    private Double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
     }
 
     private String computeHash(String content) {
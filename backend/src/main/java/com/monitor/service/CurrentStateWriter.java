@@ -0,0 +1,132 @@
+package com.monitor.service;
+
+import com.monitor.entity.CurrentPortInfo;
+import com.monitor.entity.CurrentProcessInfo;
+import com.monitor.entity.HostInfo;
+import com.monitor.entity.InstalledSoftware;
+import com.monitor.entity.UsbDevice;
+import com.monitor.repository.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class CurrentStateWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrentStateWriter.class);
+
+    private final AgentStateStore stateStore;
+    private final AgentRepository agentRepository;
+    private final CurrentProcessInfoRepository currentProcessInfoRepository;
+    private final CurrentPortInfoRepository currentPortInfoRepository;
+    private final HostInfoRepository hostInfoRepository;
+    private final UsbDeviceRepository usbDeviceRepository;
+    private final InstalledSoftwareRepository installedSoftwareRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CurrentStateWriter(AgentStateStore stateStore,
+                              AgentRepository agentRepository,
+                              CurrentProcessInfoRepository currentProcessInfoRepository,
+                              CurrentPortInfoRepository currentPortInfoRepository,
+                              HostInfoRepository hostInfoRepository,
+                              UsbDeviceRepository usbDeviceRepository,
+                              InstalledSoftwareRepository installedSoftwareRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.stateStore = stateStore;
+        this.agentRepository = agentRepository;
+        this.currentProcessInfoRepository = currentProcessInfoRepository;
+        this.currentPortInfoRepository = currentPortInfoRepository;
+        this.hostInfoRepository = hostInfoRepository;
+        this.usbDeviceRepository = usbDeviceRepository;
+        this.installedSoftwareRepository = installedSoftwareRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // The current tables only exist to rebuild the in-memory state after a restart,
+    // so several uploads of the same agent are coalesced into one rewrite. An agent that is
+    // deleted (and so being purged) or already gone is skipped, or its rows would come back.
+    @Scheduled(fixedDelayString = "${monitor.state.flush-interval-ms:30000}")
+    public void flush() {
+        Map<String, Set<AgentStateStore.Section>> pending = stateStore.drainDirty();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int written = 0;
+        for (Map.Entry<String, Set<AgentStateStore.Section>> entry : pending.entrySet()) {
+            String agentId = entry.getKey();
+            try {
+                Boolean persisted = stateStore.getCachedState(agentId)
+                        .map(state -> transactionTemplate.execute(status -> persistIfLive(state, entry.getValue())))
+                        .orElse(false);
+                if (Boolean.TRUE.equals(persisted)) {
+                    written++;
+                }
+            } catch (Exception e) {
+                logger.error("Failed to persist current state for agent {}, will retry", agentId, e);
+                stateStore.markDirty(agentId, entry.getValue());
+            }
+        }
+        logger.debug("Persisted current state for {} agents", written);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // The share lock holds off deleteAgent's status update until this transaction ends, and the
+    // purge only starts after that update, so it cannot run between the check and the rewrite
+    private boolean persistIfLive(AgentStateStore.AgentState state, Set<AgentStateStore.Section> sections) {
+        Optional<String> status = agentRepository.findStatusForShare(state.getAgentId());
+        if (status.isEmpty() || AgentPurgeService.DELETED_STATUS.equals(status.get())) {
+            logger.debug("Skipping current state of deleted agent {}", state.getAgentId());
+            return false;
+        }
+        persist(state, sections);
+        return true;
+    }
+
+    // The published state is shared with readers, so rows are persisted from fresh copies
+    private void persist(AgentStateStore.AgentState state, Set<AgentStateStore.Section> sections) {
+        String agentId = state.getAgentId();
+
+        if (sections.contains(AgentStateStore.Section.PROCESSES)) {
+            currentProcessInfoRepository.deleteAllByAgentId(agentId);
+            currentProcessInfoRepository.saveAll(state.getProcesses().stream()
+                    .map(AgentStateStore::copyProcess)
+                    .collect(Collectors.toList()));
+        }
+        if (sections.contains(AgentStateStore.Section.PORTS)) {
+            currentPortInfoRepository.deleteAllByAgentId(agentId);
+            currentPortInfoRepository.saveAll(state.getPorts().stream()
+                    .map(AgentStateStore::copyPort)
+                    .collect(Collectors.toList()));
+        }
+        if (sections.contains(AgentStateStore.Section.HOST_INFO) && state.getHostInfo() != null) {
+            hostInfoRepository.deleteAllByAgentId(agentId);
+            hostInfoRepository.save(AgentStateStore.copyHostInfo(state.getHostInfo()));
+        }
+        if (sections.contains(AgentStateStore.Section.USB_DEVICES)) {
+            usbDeviceRepository.deleteAllByAgentId(agentId);
+            usbDeviceRepository.saveAll(state.getUsbDevices().stream()
+                    .map(AgentStateStore::copyUsbDevice)
+                    .collect(Collectors.toList()));
+        }
+        if (sections.contains(AgentStateStore.Section.INSTALLED_SOFTWARE)) {
+            installedSoftwareRepository.deleteAllByAgentId(agentId);
+            installedSoftwareRepository.saveAll(state.getInstalledSoftware().stream()
+                    .map(AgentStateStore::copySoftware)
+                    .collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.monitor.service;
+
+import com.monitor.entity.Agent;
+import com.monitor.entity.SecurityIncident;
+import com.monitor.entity.dto.AlertSearchRequest;
+import com.monitor.entity.dto.AlertSummaryDTO;
+import com.monitor.repository.AgentRepository;
+import com.monitor.repository.SecurityIncidentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class DashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
+    private final AgentRepository agentRepository;
+    private final AlertService alertService;
+    private final AlertQueryService alertQueryService;
+    private final SecurityIncidentRepository incidentRepository;
+
+    // One summary shared by every viewer; at most one computation runs at a time
+    private volatile Summary cached;
+    private final AtomicReference<CompletableFuture<Summary>> inflight = new AtomicReference<>();
+
+    @Value("${monitor.dashboard.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${monitor.dashboard.recent-alerts:10}")
+    private int recentAlerts;
+
+    @Value("${monitor.dashboard.recent-agents:20}")
+    private int recentAgents;
+
+    @Value("${monitor.dashboard.open-incidents:10}")
+    private int openIncidents;
+
+    public DashboardService(AgentRepository agentRepository,
+                            AlertService alertService,
+                            AlertQueryService alertQueryService,
+                            SecurityIncidentRepository incidentRepository) {
+        this.agentRepository = agentRepository;
+        this.alertService = alertService;
+        this.alertQueryService = alertQueryService;
+        this.incidentRepository = incidentRepository;
+    }
+
+    // Fresh summaries are served from memory. When one expires, the first caller recomputes it;
+    // concurrent callers get the previous summary, or wait for the same computation on a cold start.
+    public Summary getSummary() {
+        Summary current = cached;
+        if (current != null && System.currentTimeMillis() - current.computedAtMillis < ttlMs) {
+            return current;
+        }
+        CompletableFuture<Summary> mine = new CompletableFuture<>();
+        CompletableFuture<Summary> running = inflight.compareAndExchange(null, mine);
+        if (running != null) {
+            if (current != null) {
+                return current;
+            }
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            Summary fresh = compute();
+            cached = fresh;
+            mine.complete(fresh);
+            return fresh;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.set(null);
+        }
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    // Four indexed queries per refresh; alert statistics come from the in-memory counters
+    private Summary compute() {
+        long start = System.currentTimeMillis();
+        Summary summary = new Summary();
+
+        long online = 0;
+        long offline = 0;
+        for (Object[] row : agentRepository.countGroupByStatus()) {
+            long count = ((Number) row[1]).longValue();
+            if ("online".equals(row[0])) {
+                online = count;
+            } else if ("offline".equals(row[0])) {
+                offline = count;
+            }
+        }
+        Map<String, Object> fleet = new HashMap<>();
+        fleet.put("online", online);
+        fleet.put("offline", offline);
+        fleet.put("total", online + offline);
+        summary.setFleet(fleet);
+
+        summary.setRecentAgents(agentRepository.findByStatusNotOrderByUpdatedAtDesc(
+                AgentPurgeService.DELETED_STATUS, PageRequest.of(0, Math.max(1, recentAgents))));
+        summary.setAlertStats(alertService.getAlertStats());
+
+        AlertSearchRequest request = new AlertSearchRequest();
+        request.setLimit(Math.max(1, recentAlerts));
+        summary.setRecentAlerts(alertQueryService.search(request).getItems());
+        summary.setOpenIncidents(incidentRepository.findByIncidentStatusOrderByLastSeenAtDesc(
+                IncidentCorrelationService.OPEN, PageRequest.of(0, Math.max(1, openIncidents))));
+
+        summary.setGeneratedAt(LocalDateTime.now());
+        summary.computedAtMillis = System.currentTimeMillis();
+        logger.debug("Dashboard summary computed in {} ms", summary.computedAtMillis - start);
+        return summary;
+    }
+
+    public static class Summary {
+        private Map<String, Object> fleet;
+        private List<Agent> recentAgents;
+        private AlertService.AlertStats alertStats;
+        private List<AlertSummaryDTO> recentAlerts;
+        private List<SecurityIncident> openIncidents;
+        private LocalDateTime generatedAt;
+        private long computedAtMillis;
+
+        public Map<String, Object> getFleet() { return fleet; }
+        public void setFleet(Map<String, Object> fleet) { this.fleet = fleet; }
+        public List<Agent> getRecentAgents() { return recentAgents; }
+        public void setRecentAgents(List<Agent> recentAgents) { this.recentAgents = recentAgents; }
+        public AlertService.AlertStats getAlertStats() { return alertStats; }
+        public void setAlertStats(AlertService.AlertStats alertStats) { this.alertStats = alertStats; }
+        public List<AlertSummaryDTO> getRecentAlerts() { return recentAlerts; }
+        public void setRecentAlerts(List<AlertSummaryDTO> recentAlerts) { this.recentAlerts = recentAlerts; }
+        public List<SecurityIncident> getOpenIncidents() { return openIncidents; }
+        public void setOpenIncidents(List<SecurityIncident> openIncidents) { this.openIncidents = openIncidents; }
+        public LocalDateTime getGeneratedAt() { return generatedAt; }
+        public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+    }
+}
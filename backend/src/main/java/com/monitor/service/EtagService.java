@@ -0,0 +1,96 @@
+package com.monitor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+@Service
+public class EtagService {
+
+    private final AgentStateStore agentStateStore;
+    private final BaselineCache baselineCache;
+    private final ObjectMapper objectMapper;
+
+    public EtagService(AgentStateStore agentStateStore,
+                       BaselineCache baselineCache,
+                       ObjectMapper objectMapper) {
+        this.agentStateStore = agentStateStore;
+        this.baselineCache = baselineCache;
+        this.objectMapper = objectMapper;
+    }
+
+    // The tag is a hash of the serialized section and is kept on the in-memory state, so an unchanged
+    // section is answered from the tag alone. A re-upload with identical content hashes to the same tag.
+    public SectionRead readSection(String agentId, AgentStateStore.Section section, String ifNoneMatch) {
+        AgentStateStore.AgentState state = agentStateStore.getState(agentId);
+        String etag = state.getEtag(section);
+        if (etag != null && matches(ifNoneMatch, etag)) {
+            return new SectionRead(etag, null);
+        }
+        byte[] body = serialize(state.getSection(section));
+        etag = contentEtag(body);
+        state.setEtag(section, etag);
+        return new SectionRead(etag, matches(ifNoneMatch, etag) ? null : body);
+    }
+
+    // Snapshots are immutable, so the latest snapshot id identifies both the item list and the snapshot list
+    public String baselineEtag(String agentId, String type) {
+        return baselineCache.getLatestSnapshotId(agentId, type)
+                .map(id -> "\"snapshot-" + id + "\"")
+                .orElse("\"snapshot-none\"");
+    }
+
+    // If-None-Match uses the weak comparison, so a W/ prefix from an intermediary still matches
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] serialize(Object content) {
+        try {
+            return objectMapper.writeValueAsBytes(content);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize section", e);
+        }
+    }
+
+    private static String contentEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class SectionRead {
+        private final String etag;
+        private final byte[] body;
+
+        SectionRead(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+
+        public String getEtag() { return etag; }
+        // JSON of the section; null when the client's copy is current
+        public byte[] getBody() { return body; }
+        public boolean isNotModified() { return body == null; }
+    }
+}
@@ -0,0 +1,306 @@
+package com.monitor.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class EventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBroadcaster.class);
+
+    public static final String ALERT = "alert";
+    public static final String ALERT_STATUS = "alert-status";
+    public static final String ALERT_BULK_STATUS = "alert-bulk-status";
+    public static final String AGENT_STATUS = "agent-status";
+    public static final String INCIDENT = "incident";
+
+    // Starts at the boot time so ids keep increasing across restarts: a Last-Event-ID from before the
+    // restart is then older than the ring and the client is told to reset instead of silently skipping
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+
+    // Recent events for Last-Event-ID resume; ids are dense, so the slot is id % size
+    private final Event[] ring;
+
+    @Value("${monitor.events.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    @Value("${monitor.events.timeout-ms:0}")
+    private long emitterTimeoutMs;
+
+    @Value("${monitor.events.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    public EventBroadcaster(@Value("${monitor.events.replay-size:1000}") int replaySize,
+                            @Value("${monitor.events.sender-threads:2}") int senderThreads) {
+        this.ring = new Event[Math.max(1, replaySize)];
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Grows to one thread per subscriber with a drain in flight, so a send blocked on a slow client
+        // never holds up another subscriber; senderThreads stay warm, the rest exit when idle
+        this.sender = new ThreadPoolExecutor(Math.max(1, senderThreads), Integer.MAX_VALUE,
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "event-sender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void publish(String name, String agentId, String level, String type, Object data) {
+        // Offering never blocks, so fan-out stays under the lock and every subscriber sees ids in order
+        synchronized (ring) {
+            Event event = new Event(sequence.incrementAndGet(), name, agentId, level, type, data);
+            ring[(int) (event.getId() % ring.length)] = event;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.filter.matches(event)) {
+                    subscriber.offer(event);
+                }
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Filter filter, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, filter, subscriberBuffer);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Registered and replayed under the ring lock, so the replay is queued ahead of any later event
+        synchronized (ring) {
+            subscribers.add(subscriber);
+            if (lastEventId != null) {
+                List<Event> missed = replaySince(lastEventId);
+                if (missed == null) {
+                    subscriber.offer(new Event(0, "reset", null, null, null, Map.of("reason", "history unavailable")));
+                } else {
+                    missed.stream().filter(filter::matches).forEach(subscriber::offer);
+                }
+            }
+        }
+        logger.debug("Event subscriber added ({} active)", subscribers.size());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Caller holds the ring lock. Returns null when the requested id has already been overwritten,
+    // or is ahead of anything this server has published (an id from another server or clock).
+    private List<Event> replaySince(long lastEventId) {
+        long latest = sequence.get();
+        if (lastEventId > latest) {
+            return null;
+        }
+        if (lastEventId == latest) {
+            return Collections.emptyList();
+        }
+        if (latest - lastEventId > ring.length) {
+            return null;
+        }
+        List<Event> events = new ArrayList<>();
+        for (long id = lastEventId + 1; id <= latest; id++) {
+            Event event = ring[(int) (id % ring.length)];
+            if (event != null && event.getId() == id) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    // Keeps idle connections open through proxies and drops clients that went away, including
+    // ones whose socket has stopped accepting writes for longer than the send timeout
+    @Scheduled(fixedDelayString = "${monitor.events.keepalive-ms:15000}")
+    public void keepAlive() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStartedAt;
+            if (started > 0 && now - started > sendTimeoutMs) {
+                logger.warn("Event subscriber blocked on a send for {} ms, disconnecting", now - started);
+                subscriber.close();
+                continue;
+            }
+            subscriber.offer(Event.KEEPALIVE);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    // Each subscriber has its own bounded buffer and at most one drain task in flight, so a slow
+    // client never delays the others. A client that falls a full buffer behind is disconnected;
+    // EventSource reconnects with Last-Event-ID and catches up from the ring.
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<Event> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long lastSentId;
+        // when the send in progress started, 0 while idle
+        private volatile long sendStartedAt;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Filter filter, int capacity) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                logger.warn("Event subscriber fell {} events behind, disconnecting", buffer.size());
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!closed && (event = buffer.poll()) != null) {
+                    if (event.getId() > 0 && event.getId() <= lastSentId) {
+                        continue;
+                    }
+                    send(event);
+                }
+            } finally {
+                draining.set(false);
+            }
+            // an event offered after the last poll but before the flag was cleared
+            if (!closed && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void send(Event event) {
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                if (event == Event.KEEPALIVE) {
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                    return;
+                }
+                SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                        .name(event.getName())
+                        .data(event.getData(), MediaType.APPLICATION_JSON);
+                if (event.getId() > 0) {
+                    builder.id(String.valueOf(event.getId()));
+                    lastSentId = event.getId();
+                }
+                emitter.send(builder);
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // already completed by the container
+            }
+        }
+    }
+
+    public static class Filter {
+        private final Set<String> agentIds;
+        private final Set<String> levels;
+        private final Set<String> types;
+        private final Set<String> events;
+
+        public Filter(Collection<String> agentIds, Collection<String> levels,
+                      Collection<String> types, Collection<String> events) {
+            this.agentIds = normalize(agentIds, false);
+            this.levels = normalize(levels, true);
+            this.types = normalize(types, true);
+            this.events = normalize(events, false);
+        }
+
+        // Level and type only narrow events that carry them, e.g. agent status has neither
+        boolean matches(Event event) {
+            return (events == null || events.contains(event.getName()))
+                    && (agentIds == null || event.getAgentId() == null || agentIds.contains(event.getAgentId()))
+                    && (levels == null || event.getLevel() == null || levels.contains(event.getLevel().toUpperCase(Locale.ROOT)))
+                    && (types == null || event.getType() == null || types.contains(event.getType().toUpperCase(Locale.ROOT)));
+        }
+
+        private static Set<String> normalize(Collection<String> values, boolean upperCase) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            Set<String> result = new HashSet<>();
+            for (String value : values) {
+                for (String part : value.split(",")) {
+                    if (!part.isBlank()) {
+                        result.add(upperCase ? part.trim().toUpperCase(Locale.ROOT) : part.trim());
+                    }
+                }
+            }
+            return result.isEmpty() ? null : result;
+        }
+    }
+
+    public static class Event {
+        static final Event KEEPALIVE = new Event(0, "keepalive", null, null, null, null);
+
+        private final long id;
+        private final String name;
+        private final String agentId;
+        private final String level;
+        private final String type;
+        private final Object data;
+
+        Event(long id, String name, String agentId, String level, String type, Object data) {
+            this.id = id;
+            this.name = name;
+            this.agentId = agentId;
+            this.level = level;
+            this.type = type;
+            this.data = data;
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public String getAgentId() { return agentId; }
+        public String getLevel() { return level; }
+        public String getType() { return type; }
+        public Object getData() { return data; }
+    }
+}
@@ -0,0 +1,326 @@
+package com.monitor.service;
+
+import com.monitor.entity.CurrentPortInfo;
+import com.monitor.entity.CurrentProcessInfo;
+import com.monitor.entity.InstalledSoftware;
+import com.monitor.entity.UsbDevice;
+import com.monitor.repository.CurrentPortInfoRepository;
+import com.monitor.repository.CurrentProcessInfoRepository;
+import com.monitor.repository.InstalledSoftwareRepository;
+import com.monitor.repository.UsbDeviceRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class FleetIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetIndexService.class);
+
+    public static final String PROCESS = "process";
+    public static final String PORT = "port";
+    public static final String SOFTWARE = "software";
+    public static final String USB = "usb";
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final List<String> agentIds = new ArrayList<>();
+    private final Map<String, AgentBitmap> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // agentId -> the state the postings reflect; only written under the write lock
+    private final Map<String, AgentStateStore.AgentState> indexed = new ConcurrentHashMap<>();
+
+    private final CurrentProcessInfoRepository currentProcessInfoRepository;
+    private final CurrentPortInfoRepository currentPortInfoRepository;
+    private final InstalledSoftwareRepository installedSoftwareRepository;
+    private final UsbDeviceRepository usbDeviceRepository;
+
+    public FleetIndexService(CurrentProcessInfoRepository currentProcessInfoRepository,
+                             CurrentPortInfoRepository currentPortInfoRepository,
+                             InstalledSoftwareRepository installedSoftwareRepository,
+                             UsbDeviceRepository usbDeviceRepository) {
+        this.currentProcessInfoRepository = currentProcessInfoRepository;
+        this.currentPortInfoRepository = currentPortInfoRepository;
+        this.installedSoftwareRepository = installedSoftwareRepository;
+        this.usbDeviceRepository = usbDeviceRepository;
+    }
+
+    // Rebuild from the persisted current tables so fleet search works before every agent has uploaded again.
+    // Runs while the context starts, before the web server accepts uploads, so no live diff is applied
+    // first and then counted again by the rebuild.
+    @PostConstruct
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int entries = 0;
+        entries += indexRows(currentProcessInfoRepository.findDistinctAgentIdAndName(), PROCESS);
+        entries += indexRows(currentPortInfoRepository.findDistinctAgentIdPortAndProtocol(), PORT);
+        entries += indexRows(installedSoftwareRepository.findDistinctAgentIdNameAndVersion(), SOFTWARE);
+        entries += indexRows(usbDeviceRepository.findDistinctAgentIdVendorAndProduct(), USB);
+        logger.info("Fleet index rebuilt with {} postings for {} agents in {} ms",
+                entries, ordinals.size(), System.currentTimeMillis() - start);
+    }
+
+    private int indexRows(List<Object[]> rows, String kind) {
+        lock.writeLock().lock();
+        try {
+            int count = 0;
+            for (Object[] row : rows) {
+                int ordinal = ordinalFor((String) row[0]);
+                for (String term : termsFor(kind, row)) {
+                    postings.computeIfAbsent(term, t -> new AgentBitmap()).add(ordinal);
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called after the store has published next, outside its per-key lock, so two updates of one agent
+    // can arrive in either order. The diff is taken from the state the postings last reflected (the
+    // caller's previous only for the first one), and a state older than that is skipped.
+    public void onStateChanged(AgentStateStore.AgentState previous, AgentStateStore.AgentState next) {
+        Set<String> newTerms = termsOf(next);
+        while (true) {
+            AgentStateStore.AgentState last = indexed.get(next.getAgentId());
+            if (last != null && last.getVersion() >= next.getVersion()) {
+                return;
+            }
+            Set<String> oldTerms = termsOf(last != null ? last : previous);
+
+            lock.writeLock().lock();
+            try {
+                if (indexed.get(next.getAgentId()) != last) {
+                    continue;
+                }
+                int ordinal = ordinalFor(next.getAgentId());
+                for (String term : oldTerms) {
+                    if (!newTerms.contains(term)) {
+                        AgentBitmap bitmap = postings.get(term);
+                        if (bitmap != null && bitmap.remove(ordinal) && bitmap.isEmpty()) {
+                            postings.remove(term);
+                        }
+                    }
+                }
+                for (String term : newTerms) {
+                    if (!oldTerms.contains(term)) {
+                        postings.computeIfAbsent(term, t -> new AgentBitmap()).add(ordinal);
+                    }
+                }
+                indexed.put(next.getAgentId(), next);
+                return;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void removeAgent(String agentId) {
+        Integer ordinal = ordinals.get(agentId);
+        if (ordinal == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexed.remove(agentId);
+            postings.values().removeIf(bitmap -> bitmap.remove(ordinal) && bitmap.isEmpty());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every non-null criterion must match; the result is the intersection of their postings
+    public List<String> search(Map<String, String> criteria) {
+        List<String> terms = new ArrayList<>();
+        for (Map.Entry<String, String> entry : criteria.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isBlank()) {
+                terms.add(term(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            for (String term : terms) {
+                AgentBitmap bitmap = postings.get(term);
+                if (bitmap == null) {
+                    return Collections.emptyList();
+                }
+                if (result == null) {
+                    result = bitmap.toBitSet();
+                } else {
+                    result.and(bitmap.toBitSet());
+                }
+            }
+            List<String> matches = new ArrayList<>(result.cardinality());
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                matches.add(agentIds.get(i));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countAgents(String kind, String value) {
+        lock.readLock().lock();
+        try {
+            AgentBitmap bitmap = postings.get(term(kind, value));
+            return bitmap != null ? bitmap.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getAgentCount() {
+        return ordinals.size();
+    }
+
+    // Ordinals are never reused, so a purged agent only leaves a hole in the id table
+    private int ordinalFor(String agentId) {
+        Integer ordinal = ordinals.get(agentId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (agentIds) {
+            return ordinals.computeIfAbsent(agentId, id -> {
+                agentIds.add(id);
+                return agentIds.size() - 1;
+            });
+        }
+    }
+
+    private Set<String> termsOf(AgentStateStore.AgentState state) {
+        Set<String> terms = new HashSet<>();
+        if (state == null) {
+            return terms;
+        }
+        for (CurrentProcessInfo p : state.getProcesses()) {
+            terms.addAll(termsFor(PROCESS, new Object[]{null, p.getName()}));
+        }
+        for (CurrentPortInfo p : state.getPorts()) {
+            terms.addAll(termsFor(PORT, new Object[]{null, p.getPort(), p.getProtocol()}));
+        }
+        for (InstalledSoftware s : state.getInstalledSoftware()) {
+            terms.addAll(termsFor(SOFTWARE, new Object[]{null, s.getSoftwareName(), s.getVersion()}));
+        }
+        for (UsbDevice u : state.getUsbDevices()) {
+            terms.addAll(termsFor(USB, new Object[]{null, u.getVendorId(), u.getProductId()}));
+        }
+        return terms;
+    }
+
+    // row[0] is the agent id; the remaining columns are the indexed attributes
+    private List<String> termsFor(String kind, Object[] row) {
+        switch (kind) {
+            case PROCESS:
+                return row[1] != null ? List.of(term(PROCESS, row[1].toString())) : List.of();
+            case PORT:
+                if (row[1] == null) return List.of();
+                String protocol = row[2] != null ? row[2].toString() : "";
+                return List.of(term(PORT, row[1] + "/" + protocol), term(PORT, row[1].toString()));
+            case SOFTWARE:
+                if (row[1] == null) return List.of();
+                if (row[2] == null) return List.of(term(SOFTWARE, row[1].toString()));
+                return List.of(term(SOFTWARE, row[1].toString()), term(SOFTWARE, row[1] + "@" + row[2]));
+            case USB:
+                if (row[1] == null || row[2] == null) return List.of();
+                return List.of(term(USB, row[1] + ":" + row[2]));
+            default:
+                return List.of();
+        }
+    }
+
+    private String term(String kind, String value) {
+        return kind + "|" + value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Sorted int array while sparse, switching to a BitSet once it holds enough ordinals
+    static class AgentBitmap {
+        private static final int DENSE_THRESHOLD = 2048;
+
+        private int[] sparse = new int[4];
+        private int size;
+        private BitSet dense;
+
+        void add(int ordinal) {
+            if (dense != null) {
+                if (!dense.get(ordinal)) {
+                    dense.set(ordinal);
+                    size++;
+                }
+                return;
+            }
+            int pos = Arrays.binarySearch(sparse, 0, size, ordinal);
+            if (pos >= 0) {
+                return;
+            }
+            int insert = -pos - 1;
+            if (size == sparse.length) {
+                sparse = Arrays.copyOf(sparse, size * 2);
+            }
+            System.arraycopy(sparse, insert, sparse, insert + 1, size - insert);
+            sparse[insert] = ordinal;
+            size++;
+            if (size > DENSE_THRESHOLD) {
+                dense = toBitSet();
+                sparse = null;
+            }
+        }
+
+        boolean remove(int ordinal) {
+            if (dense != null) {
+                if (!dense.get(ordinal)) {
+                    return false;
+                }
+                dense.clear(ordinal);
+                size--;
+                return true;
+            }
+            int pos = Arrays.binarySearch(sparse, 0, size, ordinal);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(sparse, pos + 1, sparse, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        BitSet toBitSet() {
+            if (dense != null) {
+                return (BitSet) dense.clone();
+            }
+            BitSet bits = new BitSet();
+            for (int i = 0; i < size; i++) {
+                bits.set(sparse[i]);
+            }
+            return bits;
+        }
+    }
+}
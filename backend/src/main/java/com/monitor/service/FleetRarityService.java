@@ -0,0 +1,398 @@
+package com.monitor.service;
+
+import com.monitor.entity.CurrentProcessInfo;
+import com.monitor.entity.InstalledSoftware;
+import com.monitor.repository.CurrentProcessInfoRepository;
+import com.monitor.repository.InstalledSoftwareRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class FleetRarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetRarityService.class);
+
+    public static final String PROCESS = "process";
+    public static final String SOFTWARE = "software";
+
+    // All structures are fixed-size, whatever the number of agents or distinct items. The fleet size
+    // is not sketched: it comes from the registry, which also shrinks when agents are deleted.
+    private final CountMinSketch hostCounts = new CountMinSketch(1 << 16, 4);
+    private final DecayedCountMinSketch recentSightings = new DecayedCountMinSketch(1 << 16, 4);
+    private final Map<String, HyperLogLog> distinctItems = Map.of(
+            PROCESS, new HyperLogLog(14),
+            SOFTWARE, new HyperLogLog(14));
+    private final Map<String, Boolean> candidates;
+    private final Map<String, Set<String>> pendingAdds = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private volatile long seededAgents;
+
+    private final CurrentProcessInfoRepository currentProcessInfoRepository;
+    private final InstalledSoftwareRepository installedSoftwareRepository;
+    private final AgentRegistry agentRegistry;
+
+    @Value("${monitor.fleet.rare-max-hosts:1}")
+    private int rareMaxHosts;
+
+    @Value("${monitor.fleet.rare-ratio:0.001}")
+    private double rareRatio;
+
+    @Value("${monitor.fleet.min-fleet-size:50}")
+    private int minFleetSize;
+
+    public FleetRarityService(CurrentProcessInfoRepository currentProcessInfoRepository,
+                              InstalledSoftwareRepository installedSoftwareRepository,
+                              AgentRegistry agentRegistry,
+                              @Value("${monitor.fleet.half-life-hours:24}") double halfLifeHours,
+                              @Value("${monitor.fleet.rare-candidates:10000}") int candidateCapacity) {
+        this.currentProcessInfoRepository = currentProcessInfoRepository;
+        this.installedSoftwareRepository = installedSoftwareRepository;
+        this.agentRegistry = agentRegistry;
+        this.recentSightings.setHalfLifeMillis((long) (halfLifeHours * 3_600_000L));
+        // Bounded LRU of items that were rare when last added; the rarest list is ranked from these
+        this.candidates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > candidateCapacity;
+            }
+        };
+    }
+
+    // Seeded while the context starts, before the web server accepts uploads, so a live diff is never
+    // applied first and then counted a second time by the seed
+    @PostConstruct
+    public void seed() {
+        long start = System.currentTimeMillis();
+        Map<String, Set<String>> itemsByAgent = new HashMap<>();
+        for (Object[] row : currentProcessInfoRepository.findDistinctAgentIdAndName()) {
+            if (row[1] != null) {
+                itemsByAgent.computeIfAbsent((String) row[0], k -> new HashSet<>()).add(item(PROCESS, (String) row[1]));
+            }
+        }
+        for (Object[] row : installedSoftwareRepository.findDistinctAgentIdNameAndVersion()) {
+            if (row[1] != null) {
+                itemsByAgent.computeIfAbsent((String) row[0], k -> new HashSet<>()).add(item(SOFTWARE, (String) row[1]));
+            }
+        }
+        synchronized (lock) {
+            seededAgents = itemsByAgent.size();
+            for (Set<String> items : itemsByAgent.values()) {
+                for (String item : items) {
+                    addHost(item);
+                }
+            }
+        }
+        logger.info("Fleet rarity sketches seeded from {} agents in {} ms",
+                itemsByAgent.size(), System.currentTimeMillis() - start);
+    }
+
+    // Called on every state change, after the store has published it; host counts only move when an
+    // agent gains or loses an item. The counts are sums of +1/-1 deltas, so two changes of one agent
+    // applied in either order end in the same counts.
+    public void onStateChanged(AgentStateStore.AgentState previous, AgentStateStore.AgentState next) {
+        Set<String> before = itemsOf(previous);
+        Set<String> after = itemsOf(next);
+        Set<String> added = new HashSet<>();
+        synchronized (lock) {
+            for (String item : after) {
+                recentSightings.add(item, 1);
+                if (!before.contains(item)) {
+                    addHost(item);
+                    added.add(item);
+                }
+            }
+            for (String item : before) {
+                if (!after.contains(item)) {
+                    hostCounts.add(item, -1);
+                }
+            }
+        }
+        if (!added.isEmpty() && previous != null && !previous.isEmpty()) {
+            pendingAdds.merge(next.getAgentId(), added, (a, b) -> {
+                Set<String> merged = new HashSet<>(a);
+                merged.addAll(b);
+                return merged;
+            });
+        }
+    }
+
+    public void onAgentRemoved(AgentStateStore.AgentState state) {
+        if (state == null) {
+            return;
+        }
+        synchronized (lock) {
+            for (String item : itemsOf(state)) {
+                hostCounts.add(item, -1);
+            }
+        }
+        pendingAdds.remove(state.getAgentId());
+    }
+
+    // Items this agent gained since the last call that are run by almost no other host
+    public List<RareItem> drainRareAdditions(String agentId) {
+        Set<String> added = pendingAdds.remove(agentId);
+        if (added == null) {
+            return Collections.emptyList();
+        }
+        List<RareItem> rare = new ArrayList<>();
+        synchronized (lock) {
+            long fleetSize = fleetSize();
+            if (fleetSize < minFleetSize) {
+                return Collections.emptyList();
+            }
+            long threshold = rareThreshold(fleetSize);
+            for (String item : added) {
+                long hosts = hostCounts.estimate(item);
+                if (hosts <= threshold) {
+                    rare.add(toRareItem(item, hosts, fleetSize));
+                }
+            }
+        }
+        return rare;
+    }
+
+    public List<RareItem> getRarestItems(String kind, int limit) {
+        synchronized (lock) {
+            long fleetSize = fleetSize();
+            List<RareItem> items = new ArrayList<>();
+            for (String item : new ArrayList<>(candidates.keySet())) {
+                if (kind != null && !item.startsWith(kind + "|")) {
+                    continue;
+                }
+                long hosts = hostCounts.estimate(item);
+                if (hosts > 0) {
+                    items.add(toRareItem(item, hosts, fleetSize));
+                }
+            }
+            items.sort(Comparator.comparingLong(RareItem::getHostCount)
+                    .thenComparing(RareItem::getRecentSightings));
+            return items.subList(0, Math.min(Math.max(limit, 0), items.size()));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (lock) {
+            stats.put("fleetSize", fleetSize());
+            stats.put("distinctProcesses", distinctItems.get(PROCESS).estimate());
+            stats.put("distinctSoftware", distinctItems.get(SOFTWARE).estimate());
+            stats.put("rareThreshold", rareThreshold(fleetSize()));
+            stats.put("trackedCandidates", candidates.size());
+        }
+        return stats;
+    }
+
+    private void addHost(String item) {
+        hostCounts.add(item, 1);
+        distinctItems.get(item.substring(0, item.indexOf('|'))).add(item);
+        if (hostCounts.estimate(item) <= 2 * Math.max(1, rareThreshold(fleetSize()))) {
+            candidates.put(item, Boolean.TRUE);
+        }
+    }
+
+    // Live (not deleted) agents; until the registry has loaded, the agents the seed found
+    private long fleetSize() {
+        return agentRegistry.isLoaded() ? agentRegistry.count(Collections.emptyList()) : seededAgents;
+    }
+
+    private long rareThreshold(long fleetSize) {
+        return Math.max(rareMaxHosts, (long) Math.floor(fleetSize * rareRatio));
+    }
+
+    private RareItem toRareItem(String item, long hosts, long fleetSize) {
+        int separator = item.indexOf('|');
+        return new RareItem(item.substring(0, separator), item.substring(separator + 1),
+                hosts, fleetSize, recentSightings.estimate(item));
+    }
+
+    private Set<String> itemsOf(AgentStateStore.AgentState state) {
+        Set<String> items = new HashSet<>();
+        if (state == null) {
+            return items;
+        }
+        for (CurrentProcessInfo p : state.getProcesses()) {
+            if (p.getName() != null) items.add(item(PROCESS, p.getName()));
+        }
+        for (InstalledSoftware s : state.getInstalledSoftware()) {
+            if (s.getSoftwareName() != null) items.add(item(SOFTWARE, s.getSoftwareName()));
+        }
+        return items;
+    }
+
+    private static String item(String kind, String name) {
+        return kind + "|" + name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // 64-bit finalizer from MurmurHash3, applied on top of FNV-1a to spread the bits
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static class RareItem {
+        private final String kind;
+        private final String name;
+        private final long hostCount;
+        private final long fleetSize;
+        private final double recentSightings;
+
+        public RareItem(String kind, String name, long hostCount, long fleetSize, double recentSightings) {
+            this.kind = kind;
+            this.name = name;
+            this.hostCount = hostCount;
+            this.fleetSize = fleetSize;
+            this.recentSightings = recentSightings;
+        }
+
+        public String getKind() { return kind; }
+        public String getName() { return name; }
+        public long getHostCount() { return hostCount; }
+        public long getFleetSize() { return fleetSize; }
+        public double getRecentSightings() { return recentSightings; }
+    }
+
+    // Plain Count-Min Sketch. Host counts are also decremented when an agent drops an item, and conservative
+    // update is only sound for increments, so every row takes every delta; estimates then never undercount.
+    static class CountMinSketch {
+        private final int width;
+        private final int depth;
+        private final int[][] counters;
+
+        CountMinSketch(int width, int depth) {
+            this.width = width;
+            this.depth = depth;
+            this.counters = new int[depth][width];
+        }
+
+        void add(String key, int delta) {
+            long h1 = mix(BaselineDiffEngine.hash64(key));
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+            for (int i = 0; i < depth; i++) {
+                int index = index(h1, h2, i);
+                // floor only matters for a removal that was never counted, e.g. an agent missing from the seed
+                counters[i][index] = Math.max(0, counters[i][index] + delta);
+            }
+        }
+
+        long estimate(String key) {
+            long h1 = mix(BaselineDiffEngine.hash64(key));
+            return estimate(h1, mix(h1 ^ 0x9e3779b97f4a7c15L));
+        }
+
+        private long estimate(long h1, long h2) {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < depth; i++) {
+                min = Math.min(min, counters[i][index(h1, h2, i)]);
+            }
+            return min;
+        }
+
+        private int index(long h1, long h2, int row) {
+            return (int) Math.floorMod(h1 + row * h2, (long) width);
+        }
+    }
+
+    // Forward-decayed counts: weights grow with time instead of decaying every counter,
+    // and everything is rescaled to a new landmark before the weights overflow
+    static class DecayedCountMinSketch {
+        private final int width;
+        private final int depth;
+        private final double[][] counters;
+        private long halfLifeMillis = 24 * 3_600_000L;
+        private long landmark = System.currentTimeMillis();
+
+        DecayedCountMinSketch(int width, int depth) {
+            this.width = width;
+            this.depth = depth;
+            this.counters = new double[depth][width];
+        }
+
+        void setHalfLifeMillis(long halfLifeMillis) {
+            this.halfLifeMillis = Math.max(1, halfLifeMillis);
+        }
+
+        void add(String key, double amount) {
+            double weight = weight(System.currentTimeMillis()) * amount;
+            if (weight > 1e200) {
+                rescale();
+                weight = weight(System.currentTimeMillis()) * amount;
+            }
+            long h1 = mix(BaselineDiffEngine.hash64(key));
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+            for (int i = 0; i < depth; i++) {
+                counters[i][(int) Math.floorMod(h1 + i * h2, (long) width)] += weight;
+            }
+        }
+
+        double estimate(String key) {
+            long h1 = mix(BaselineDiffEngine.hash64(key));
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+            double min = Double.MAX_VALUE;
+            for (int i = 0; i < depth; i++) {
+                min = Math.min(min, counters[i][(int) Math.floorMod(h1 + i * h2, (long) width)]);
+            }
+            return min / weight(System.currentTimeMillis());
+        }
+
+        private double weight(long now) {
+            return Math.pow(2.0, (double) (now - landmark) / halfLifeMillis);
+        }
+
+        private void rescale() {
+            long now = System.currentTimeMillis();
+            double factor = weight(now);
+            for (double[] row : counters) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] /= factor;
+                }
+            }
+            landmark = now;
+        }
+    }
+
+    static class HyperLogLog {
+        private final int precision;
+        private final byte[] registers;
+
+        HyperLogLog(int precision) {
+            this.precision = precision;
+            this.registers = new byte[1 << precision];
+        }
+
+        void add(String value) {
+            long hash = mix(BaselineDiffEngine.hash64(value));
+            int index = (int) (hash >>> (64 - precision));
+            long rest = hash << precision;
+            int rank = rest == 0 ? 64 - precision + 1 : Long.numberOfLeadingZeros(rest) + 1;
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+        }
+
+        long estimate() {
+            int m = registers.length;
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) zeros++;
+            }
+            double alpha = 0.7213 / (1 + 1.079 / m);
+            double estimate = alpha * m * m / sum;
+            if (estimate <= 2.5 * m && zeros > 0) {
+                estimate = m * Math.log((double) m / zeros);
+            }
+            return Math.round(estimate);
+        }
+    }
+}
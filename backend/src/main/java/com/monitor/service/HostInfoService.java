@@ -17,9 +17,12 @@ public class HostInfoService {
     private static final Logger logger = LoggerFactory.getLogger(HostInfoService.class);
 
     private final HostInfoRepository hostInfoRepository;
+    private final AgentStateStore agentStateStore;
 
-    public HostInfoService(HostInfoRepository hostInfoRepository) {
+    public HostInfoService(HostInfoRepository hostInfoRepository,
+                           AgentStateStore agentStateStore) {
         this.hostInfoRepository = hostInfoRepository;
+        this.agentStateStore = agentStateStore;
     }
 
     @Transactional
@@ -100,7 +103,7 @@ public class HostInfoService {
     }
 
     public Optional<HostInfo> getLatestHostInfo(String agentId) {
-        return Optional.ofNullable(hostInfoRepository.findTopByAgentIdOrderByCollectedAtDesc(agentId));
+        return agentStateStore.getHostInfo(agentId);
     }
 
     @Transactional
@@ -0,0 +1,344 @@
+package com.monitor.service;
+
+import com.monitor.entity.SecurityAlert;
+import com.monitor.entity.SecurityIncident;
+import com.monitor.repository.SecurityIncidentRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class IncidentCorrelationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncidentCorrelationService.class);
+
+    public static final String OPEN = "OPEN";
+    public static final String CLOSED = "CLOSED";
+
+    private static final List<String> LEVELS = List.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+
+    private static final String UPDATE_INCIDENT =
+            "UPDATE security_incident SET member_count = member_count + ?, agent_count = ?, " +
+            "last_seen_at = GREATEST(last_seen_at, ?), incident_level = ? WHERE id = ?";
+
+    private static final String CLOSE_INCIDENT =
+            "UPDATE security_incident SET member_count = member_count + ?, agent_count = ?, " +
+            "last_seen_at = GREATEST(last_seen_at, ?), incident_level = ?, incident_status = ?, closed_at = ? WHERE id = ?";
+
+    private final SecurityIncidentRepository incidentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EventBroadcaster eventBroadcaster;
+
+    // correlationKey -> recent sightings; access-ordered so the least recently seen key is evicted first
+    private final LinkedHashMap<String, Window> windows = new LinkedHashMap<>(256, 0.75f, true);
+    // correlationKey -> incident that is absorbing new members
+    private final Map<String, OpenIncident> openIncidents = new ConcurrentHashMap<>();
+
+    @Value("${monitor.incident.window-minutes:5}")
+    private long windowMinutes;
+
+    @Value("${monitor.incident.min-agents:5}")
+    private int minAgents;
+
+    @Value("${monitor.incident.max-keys:10000}")
+    private int maxKeys;
+
+    @Value("${monitor.incident.max-hits-per-key:10000}")
+    private int maxHitsPerKey;
+
+    @Value("${monitor.incident.quiet-minutes:30}")
+    private long quietMinutes;
+
+    public IncidentCorrelationService(SecurityIncidentRepository incidentRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      EventBroadcaster eventBroadcaster) {
+        this.incidentRepository = incidentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventBroadcaster = eventBroadcaster;
+    }
+
+    // Open incidents keep absorbing members across a restart; their agent sets are rebuilt from the alerts.
+    // Loaded before the alert writer starts, since its journal replay already feeds observe.
+    @PostConstruct
+    public void loadOpenIncidents() {
+        for (SecurityIncident incident : incidentRepository.findByIncidentStatus(OPEN)) {
+            Set<String> agents = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT DISTINCT agent_id FROM security_alert WHERE correlation_key = ? AND created_at >= ?",
+                    String.class, incident.getCorrelationKey(), Timestamp.valueOf(incident.getFirstSeenAt())));
+            openIncidents.put(incident.getCorrelationKey(), new OpenIncident(incident.getId(), agents,
+                    levelRank(incident.getIncidentLevel()), toMillis(incident.getLastSeenAt()),
+                    incident.getMemberCount() != null ? incident.getMemberCount() : 0));
+        }
+        logger.info("Loaded {} open incidents", openIncidents.size());
+    }
+
+    // Called by the alert writer once per inserted alert, outside any caller's transaction; repeats folded
+    // by deduplication never get here
+    public void observe(SecurityAlert alert, String itemKey) {
+        String key = alert.getCorrelationKey();
+        if (key == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int level = levelRank(alert.getAlertLevel());
+
+        OpenIncident open = openIncidents.get(key);
+        if (open != null && open.add(alert.getAgentId(), level, now)) {
+            return;
+        }
+
+        Window window;
+        synchronized (windows) {
+            window = windows.computeIfAbsent(key, k -> new Window());
+            if (windows.size() > maxKeys) {
+                Iterator<String> eldest = windows.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        synchronized (window) {
+            // another alert may have opened the incident while this one waited for the lock
+            open = openIncidents.get(key);
+            if (open != null && open.add(alert.getAgentId(), level, now)) {
+                return;
+            }
+            window.add(alert.getAgentId(), level, now, windowMinutes * 60_000L, maxHitsPerKey);
+            if (window.agents.size() < minAgents) {
+                return;
+            }
+            openIncident(key, alert, itemKey, window, now);
+        }
+        synchronized (windows) {
+            windows.remove(key);
+        }
+    }
+
+    // Caller holds the window lock, so two alerts crossing the threshold together open one incident
+    private void openIncident(String key, SecurityAlert alert, String itemKey, Window window, long now) {
+        SecurityIncident incident = new SecurityIncident();
+        incident.setCorrelationKey(key);
+        incident.setAlertType(alert.getAlertType());
+        incident.setAnomalyType(alert.getAnomalyType());
+        incident.setItemKey(truncate(itemKey, 255));
+        incident.setIncidentTitle(truncate(alert.getAlertTitle(), 200));
+        incident.setIncidentLevel(LEVELS.get(window.maxLevel()));
+        incident.setIncidentStatus(OPEN);
+        incident.setMemberCount(window.hits.size());
+        incident.setAgentCount(window.agents.size());
+        incident.setFirstSeenAt(toDateTime(window.hits.peekFirst()[0]));
+        incident.setLastSeenAt(toDateTime(now));
+        incident = incidentRepository.save(incident);
+
+        openIncidents.put(key, new OpenIncident(incident.getId(), new HashSet<>(window.agents.keySet()),
+                window.maxLevel(), now, window.hits.size()));
+        logger.warn("Incident {} opened: '{}' on {} agents within {} minutes",
+                incident.getId(), incident.getIncidentTitle(), incident.getAgentCount(), windowMinutes);
+        eventBroadcaster.publish(EventBroadcaster.INCIDENT, null, incident.getIncidentLevel(),
+                incident.getAlertType(), incident);
+    }
+
+    // Folds member counts into the incident rows, closes incidents that went quiet and drops idle windows.
+    // Synchronized with closeIncident, so a close never takes counts this flush is still writing.
+    @Scheduled(fixedDelayString = "${monitor.incident.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>();
+        List<OpenIncident> flushed = new ArrayList<>();
+        List<Integer> taken = new ArrayList<>();
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (OpenIncident incident : openIncidents.values()) {
+            synchronized (incident) {
+                if (incident.pendingMembers == 0) {
+                    continue;
+                }
+                rows.add(new Object[]{incident.pendingMembers, incident.agents.size(),
+                        Timestamp.valueOf(toDateTime(incident.lastSeen)), LEVELS.get(incident.level), incident.id});
+                flushed.add(incident);
+                taken.add(incident.pendingMembers);
+                events.add(summary(incident, OPEN));
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_INCIDENT, rows);
+            // counts stay pending until written, so a failed batch is retried on the next flush
+            for (int i = 0; i < flushed.size(); i++) {
+                synchronized (flushed.get(i)) {
+                    flushed.get(i).pendingMembers -= taken.get(i);
+                }
+            }
+            events.forEach(e -> eventBroadcaster.publish(EventBroadcaster.INCIDENT, null,
+                    (String) e.get("incidentLevel"), null, e));
+        }
+
+        long quietMillis = quietMinutes * 60_000L;
+        for (Map.Entry<String, OpenIncident> entry : openIncidents.entrySet()) {
+            OpenIncident incident = entry.getValue();
+            synchronized (incident) {
+                if (now - incident.lastSeen < quietMillis || incident.pendingMembers > 0) {
+                    continue;
+                }
+            }
+            close(entry.getKey(), incident);
+        }
+
+        long windowMillis = windowMinutes * 60_000L;
+        synchronized (windows) {
+            windows.values().removeIf(window -> window.isIdle(now, windowMillis));
+        }
+    }
+
+    public synchronized SecurityIncident closeIncident(Long id) {
+        SecurityIncident incident = incidentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Incident not found: " + id));
+        OpenIncident open = openIncidents.get(incident.getCorrelationKey());
+        if (open != null && open.id.equals(id)) {
+            flush();
+            close(incident.getCorrelationKey(), open);
+        } else if (OPEN.equals(incident.getIncidentStatus())) {
+            markClosed(id);
+        }
+        return incidentRepository.findById(id).orElse(incident);
+    }
+
+    // Members added after the last flush are taken under the same lock that closes the incident and
+    // written with the close, so none are lost between the quiet check and here
+    private void close(String key, OpenIncident incident) {
+        int pending;
+        synchronized (incident) {
+            // later sightings start a new window instead of joining a closed incident
+            incident.closed = true;
+            if (!openIncidents.remove(key, incident)) {
+                return;
+            }
+            pending = incident.pendingMembers;
+            incident.pendingMembers = 0;
+        }
+        jdbcTemplate.update(CLOSE_INCIDENT, pending, incident.agents.size(),
+                Timestamp.valueOf(toDateTime(incident.lastSeen)), LEVELS.get(incident.level),
+                CLOSED, Timestamp.valueOf(LocalDateTime.now()), incident.id);
+        logger.info("Incident {} closed with {} agents", incident.id, incident.agents.size());
+        eventBroadcaster.publish(EventBroadcaster.INCIDENT, null, LEVELS.get(incident.level), null,
+                summary(incident, CLOSED));
+    }
+
+    private void markClosed(Long id) {
+        jdbcTemplate.update("UPDATE security_incident SET incident_status = ?, closed_at = ? WHERE id = ?",
+                CLOSED, Timestamp.valueOf(LocalDateTime.now()), id);
+    }
+
+    public int getOpenCount() {
+        return openIncidents.size();
+    }
+
+    public int getTrackedKeyCount() {
+        synchronized (windows) {
+            return windows.size();
+        }
+    }
+
+    private static Map<String, Object> summary(OpenIncident incident, String status) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("id", incident.id);
+        event.put("incidentStatus", status);
+        event.put("incidentLevel", LEVELS.get(incident.level));
+        event.put("agentCount", incident.agents.size());
+        event.put("memberCount", incident.members);
+        event.put("lastSeenAt", toDateTime(incident.lastSeen));
+        return event;
+    }
+
+    private static int levelRank(String level) {
+        int rank = level != null ? LEVELS.indexOf(level.toUpperCase(Locale.ROOT)) : -1;
+        return Math.max(rank, 0);
+    }
+
+    private static String truncate(String value, int max) {
+        return value != null && value.length() > max ? value.substring(0, max) : value;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : System.currentTimeMillis();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    // Sightings of one key inside the sliding window. Both structures are kept in time order,
+    // so expiring old entries only ever looks at the head.
+    private static class Window {
+        private final ArrayDeque<long[]> hits = new ArrayDeque<>();
+        private final LinkedHashMap<String, Long> agents = new LinkedHashMap<>();
+
+        void add(String agentId, int level, long now, long windowMillis, int maxHits) {
+            long cutoff = now - windowMillis;
+            while (!hits.isEmpty() && hits.peekFirst()[0] < cutoff) {
+                hits.pollFirst();
+            }
+            Iterator<Map.Entry<String, Long>> oldest = agents.entrySet().iterator();
+            while (oldest.hasNext() && oldest.next().getValue() < cutoff) {
+                oldest.remove();
+            }
+            if (hits.size() >= maxHits) {
+                hits.pollFirst();
+            }
+            hits.addLast(new long[]{now, level});
+            agents.remove(agentId);
+            agents.put(agentId, now);
+        }
+
+        int maxLevel() {
+            int max = 0;
+            for (long[] hit : hits) {
+                max = Math.max(max, (int) hit[1]);
+            }
+            return max;
+        }
+
+        synchronized boolean isIdle(long now, long windowMillis) {
+            return hits.isEmpty() || hits.peekLast()[0] < now - windowMillis;
+        }
+    }
+
+    private static class OpenIncident {
+        private final Long id;
+        private final Set<String> agents;
+        private int level;
+        private long lastSeen;
+        private int members;
+        private int pendingMembers;
+        private boolean closed;
+
+        OpenIncident(Long id, Set<String> agents, int level, long lastSeen, int members) {
+            this.id = id;
+            this.agents = agents;
+            this.level = level;
+            this.lastSeen = lastSeen;
+            this.members = members;
+        }
+
+        // false once closed; the caller then treats the alert as a fresh sighting
+        synchronized boolean add(String agentId, int memberLevel, long now) {
+            if (closed) {
+                return false;
+            }
+            agents.add(agentId);
+            level = Math.max(level, memberLevel);
+            lastSeen = Math.max(lastSeen, now);
+            members++;
+            pendingMembers++;
+            return true;
+        }
+    }
+}
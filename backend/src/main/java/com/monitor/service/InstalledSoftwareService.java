@@ -20,9 +20,12 @@ public class InstalledSoftwareService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
 
     private final InstalledSoftwareRepository installedSoftwareRepository;
+    private final AgentStateStore agentStateStore;
 
-    public InstalledSoftwareService(InstalledSoftwareRepository installedSoftwareRepository) {
+    public InstalledSoftwareService(InstalledSoftwareRepository installedSoftwareRepository,
+                                    AgentStateStore agentStateStore) {
         this.installedSoftwareRepository = installedSoftwareRepository;
+        this.agentStateStore = agentStateStore;
     }
 
     @Transactional
@@ -63,7 +66,7 @@ public class InstalledSoftwareService {
     }
 
     public List<InstalledSoftware> getInstalledSoftwareHistory(String agentId) {
-        return installedSoftwareRepository.findByAgentIdOrderByCollectedAtDesc(agentId);
+        return agentStateStore.getInstalledSoftware(agentId);
     }
 
     public List<InstalledSoftware> getInstalledSoftwareByType(String agentId, String softwareType) {
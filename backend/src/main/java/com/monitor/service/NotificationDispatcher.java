@@ -0,0 +1,631 @@
+package com.monitor.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitor.config.NotificationProperties;
+import com.monitor.entity.SecurityAlert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    public static final String WEBHOOK = "webhook";
+    public static final String SYSLOG = "syslog";
+    public static final String EMAIL_RELAY = "email-relay";
+
+    private static final List<String> LEVELS = List.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+    private static final int MAX_COALESCED_AGENTS = 20;
+    private static final int SYSLOG_MAX_BYTES = 2048;
+    private static final Pattern TARGET_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private final NotificationProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Channel> channels = new LinkedHashMap<>();
+    private final AtomicLong spillSequence = new AtomicLong();
+    private HttpClient httpClient;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService delivery;
+    private Path spillDir;
+    private String hostname;
+
+    public NotificationDispatcher(NotificationProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled() || properties.getTargets().isEmpty()) {
+            logger.info("Notifications disabled or no targets configured");
+            return;
+        }
+        spillDir = Paths.get(properties.getSpillDir());
+        Files.createDirectories(spillDir);
+        try {
+            hostname = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            hostname = "-";
+        }
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonFactory("notify-scheduler"));
+        delivery = Executors.newFixedThreadPool(Math.max(1, properties.getDeliveryThreads()), daemonFactory("notify-delivery"));
+
+        for (NotificationProperties.Target target : properties.getTargets()) {
+            if (!target.isEnabled()) {
+                continue;
+            }
+            validate(target);
+            Channel channel = new Channel(target);
+            channels.put(target.getName(), channel);
+            long linger = Math.max(50, target.getLingerMs());
+            scheduler.scheduleWithFixedDelay(() -> tick(channel), linger, linger, TimeUnit.MILLISECONDS);
+            logger.info("Notification target '{}' ({}) ready, min level {}", target.getName(), target.getType(), target.getMinLevel());
+        }
+    }
+
+    // Called on the alert writer thread: only a bounded, non-blocking offer per target. When a
+    // target's queue is full the alert goes straight to its spill file instead of waiting.
+    public void dispatch(SecurityAlert alert) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        Notification notification = null;
+        for (Channel channel : channels.values()) {
+            if (!channel.accepts(alert)) {
+                continue;
+            }
+            if (notification == null) {
+                notification = Notification.of(alert);
+            }
+            if (!channel.queue.offer(notification)) {
+                spill(channel, List.of(notification));
+            }
+        }
+    }
+
+    // Starts as many batches as the target's concurrency limit allows; the rest waits in the queue
+    private void tick(Channel channel) {
+        try {
+            while (!channel.queue.isEmpty() && channel.permits.tryAcquire()) {
+                List<Notification> batch = new ArrayList<>(channel.target.getBatchSize());
+                channel.queue.drainTo(batch, Math.max(1, channel.target.getBatchSize()));
+                if (batch.isEmpty()) {
+                    channel.permits.release();
+                    break;
+                }
+                List<Notification> coalesced = coalesce(batch);
+                try {
+                    delivery.execute(() -> deliver(channel, coalesced, 1));
+                } catch (RejectedExecutionException e) {
+                    spill(channel, coalesced);
+                    channel.permits.release();
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Notification tick failed for target '{}'", channel.target.getName(), e);
+        }
+    }
+
+    // The permit is held through the backoff, so a failing target stops taking new batches and
+    // its queue overflows to disk instead of growing or retrying without bound
+    private void deliver(Channel channel, List<Notification> batch, int attempt) {
+        try {
+            send(channel, batch);
+            channel.sent.addAndGet(batch.size());
+            channel.permits.release();
+        } catch (Exception e) {
+            channel.failures.incrementAndGet();
+            NotificationProperties.Target target = channel.target;
+            if (attempt >= target.getMaxAttempts()) {
+                logger.warn("Target '{}' failed {} times, spilling {} notifications: {}",
+                        target.getName(), attempt, batch.size(), e.getMessage());
+                spill(channel, batch);
+                channel.permits.release();
+                return;
+            }
+            long backoff = backoff(target, attempt);
+            logger.debug("Target '{}' attempt {} failed, retrying in {} ms: {}", target.getName(), attempt, backoff, e.getMessage());
+            Retry retry = new Retry(channel, batch, attempt + 1);
+            channel.retries.add(retry);
+            try {
+                scheduler.schedule(retry, backoff, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                abandon(retry);
+            }
+        }
+    }
+
+    // Spills a retry that will not run and gives back its permit; only the first caller wins, so
+    // a retry that shutdown drains and one that fires at the same moment are not spilled twice
+    private void abandon(Retry retry) {
+        if (retry.channel.retries.remove(retry)) {
+            spill(retry.channel, retry.batch);
+            retry.channel.permits.release();
+        }
+    }
+
+    private static long backoff(NotificationProperties.Target target, int attempt) {
+        long base = target.getInitialBackoffMs() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, target.getMaxBackoffMs());
+        // jitter keeps targets that failed together from retrying in lockstep
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    // A burst of the same finding on many hosts becomes one notification with a count
+    private static List<Notification> coalesce(List<Notification> batch) {
+        Map<String, Notification> byKey = new LinkedHashMap<>();
+        for (Notification n : batch) {
+            String key = n.getCorrelationKey() != null ? n.getCorrelationKey() : n.getAlertType() + "|" + n.getTitle();
+            Notification merged = byKey.get(key);
+            if (merged == null) {
+                byKey.put(key, n.copy());
+                continue;
+            }
+            merged.setCount(merged.getCount() + n.getCount());
+            if (LEVELS.indexOf(n.getAlertLevel()) > LEVELS.indexOf(merged.getAlertLevel())) {
+                merged.setAlertLevel(n.getAlertLevel());
+            }
+            for (String agentId : n.getAgentIds()) {
+                if (merged.getAgentIds().size() >= MAX_COALESCED_AGENTS) {
+                    break;
+                }
+                if (!merged.getAgentIds().contains(agentId)) {
+                    merged.getAgentIds().add(agentId);
+                }
+            }
+        }
+        return new ArrayList<>(byKey.values());
+    }
+
+    private void send(Channel channel, List<Notification> batch) throws Exception {
+        NotificationProperties.Target target = channel.target;
+        switch (target.getType()) {
+            case WEBHOOK -> {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("source", "terminal-monitor");
+                body.put("target", target.getName());
+                body.put("notifications", batch);
+                post(target, objectMapper.writeValueAsString(body));
+            }
+            case EMAIL_RELAY -> {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("to", target.getRecipients());
+                body.put("subject", emailSubject(batch));
+                body.put("text", batch.stream().map(NotificationDispatcher::describe).collect(Collectors.joining("\n")));
+                post(target, objectMapper.writeValueAsString(body));
+            }
+            case SYSLOG -> sendSyslog(channel, batch);
+            default -> throw new IllegalStateException("Unknown target type " + target.getType());
+        }
+    }
+
+    private void post(NotificationProperties.Target target, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(target.getUrl()))
+                .timeout(Duration.ofMillis(target.getTimeoutMs()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + target.getUrl());
+        }
+    }
+
+    // RFC 5424 over UDP, one datagram per notification, facility 4 (security/authorization)
+    private void sendSyslog(Channel channel, List<Notification> batch) throws IOException {
+        NotificationProperties.Target target = channel.target;
+        InetAddress address = InetAddress.getByName(target.getHost());
+        try (DatagramSocket socket = new DatagramSocket()) {
+            for (Notification n : batch) {
+                int priority = 4 * 8 + syslogSeverity(n.getAlertLevel());
+                String message = "<" + priority + ">1 " + OffsetDateTime.now() + " " + hostname
+                        + " terminal-monitor - ALERT - " + describe(n);
+                byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+                int length = Math.min(bytes.length, SYSLOG_MAX_BYTES);
+                socket.send(new DatagramPacket(bytes, length, address, target.getPort()));
+            }
+        }
+    }
+
+    private static int syslogSeverity(String level) {
+        return switch (level != null ? level : "") {
+            case "CRITICAL" -> 2;
+            case "HIGH" -> 3;
+            case "MEDIUM" -> 4;
+            default -> 5;
+        };
+    }
+
+    private static String emailSubject(List<Notification> batch) {
+        String top = batch.stream().map(Notification::getAlertLevel)
+                .max(Comparator.comparingInt(LEVELS::indexOf)).orElse("LOW");
+        int total = batch.stream().mapToInt(Notification::getCount).sum();
+        return "[" + top + "] 终端监控: " + total + " 条安全告警";
+    }
+
+    private static String describe(Notification n) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[').append(n.getAlertLevel()).append("] ").append(n.getTitle());
+        if (n.getCount() > 1) {
+            sb.append(" x").append(n.getCount()).append(" on ").append(String.join(",", n.getAgentIds()));
+            if (n.getCount() > n.getAgentIds().size()) {
+                sb.append(",...");
+            }
+        } else {
+            sb.append(" agent=").append(n.getAgentId());
+        }
+        sb.append(" type=").append(n.getAlertType());
+        if (n.getAlertId() != null) {
+            sb.append(" id=").append(n.getAlertId());
+        }
+        return sb.toString();
+    }
+
+    // Each spilled batch is one JSON line in the target's spill files; delivery is at-least-once
+    private void spill(Channel channel, List<Notification> batch) {
+        synchronized (channel.spillLock) {
+            try {
+                if (channel.spillWriter == null) {
+                    channel.spillFile = spillDir.resolve(String.format("%s-%d-%06d.jsonl",
+                            channel.target.getName(), System.currentTimeMillis(), spillSequence.incrementAndGet()));
+                    channel.spillWriter = Files.newBufferedWriter(channel.spillFile, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                channel.spillWriter.write(objectMapper.writeValueAsString(batch));
+                channel.spillWriter.newLine();
+                channel.spillWriter.flush();
+                channel.spilled.addAndGet(batch.size());
+            } catch (IOException e) {
+                channel.dropped.addAndGet(batch.size());
+                logger.error("Could not spill {} notifications for target '{}'", batch.size(), channel.target.getName(), e);
+            }
+        }
+    }
+
+    // Replays spill files once the target answers again, oldest first, one permit per target
+    @Scheduled(fixedDelayString = "${monitor.notify.spill-retry-interval-ms:60000}")
+    public void retrySpilled() {
+        for (Channel channel : channels.values()) {
+            if (!hasSpillFiles(channel) || !channel.permits.tryAcquire()) {
+                continue;
+            }
+            try {
+                delivery.execute(() -> {
+                    try {
+                        replaySpill(channel);
+                    } finally {
+                        channel.permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                channel.permits.release();
+            }
+        }
+    }
+
+    private void replaySpill(Channel channel) {
+        List<Path> files;
+        // batches spilled from here on go to a new file that this pass does not touch
+        synchronized (channel.spillLock) {
+            closeSpillWriter(channel);
+            files = spillFiles(channel);
+        }
+        for (Path file : files) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warn("Could not read spill file {}", file, e);
+                return;
+            }
+            int done = 0;
+            try {
+                for (String line : lines) {
+                    if (!line.isBlank()) {
+                        List<Notification> batch = objectMapper.readValue(line, new TypeReference<List<Notification>>() {});
+                        send(channel, batch);
+                        channel.sent.addAndGet(batch.size());
+                        channel.replayed.addAndGet(batch.size());
+                    }
+                    done++;
+                }
+                Files.deleteIfExists(file);
+            } catch (Exception e) {
+                logger.debug("Target '{}' still failing, {} spilled batches left in {}",
+                        channel.target.getName(), lines.size() - done, file.getFileName());
+                rewriteRemaining(file, lines.subList(done, lines.size()));
+                return;
+            }
+        }
+        logger.info("Target '{}' spill queue drained", channel.target.getName());
+    }
+
+    private void rewriteRemaining(Path file, List<String> remaining) {
+        try {
+            Files.write(file, remaining, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Could not trim spill file {}, already sent batches may repeat", file, e);
+        }
+    }
+
+    private void closeSpillWriter(Channel channel) {
+        if (channel.spillWriter != null) {
+            try {
+                channel.spillWriter.close();
+            } catch (IOException e) {
+                logger.warn("Could not close spill file {}", channel.spillFile, e);
+            }
+            channel.spillWriter = null;
+            channel.spillFile = null;
+        }
+    }
+
+    private boolean hasSpillFiles(Channel channel) {
+        synchronized (channel.spillLock) {
+            return channel.spillFile != null || !spillFiles(channel).isEmpty();
+        }
+    }
+
+    // Exactly <name>-<millis>-<sequence>.jsonl, so target "a" never picks up the files of target "a-b"
+    private List<Path> spillFiles(Channel channel) {
+        Pattern own = Pattern.compile(Pattern.quote(channel.target.getName()) + "-\\d+-\\d+\\.jsonl");
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.filter(p -> own.matcher(p.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    // Sends one synthetic notification right away, bypassing queue and retries
+    public void sendTest(String targetName) throws Exception {
+        Channel channel = channels.get(targetName);
+        if (channel == null) {
+            throw new RuntimeException("Unknown or disabled notification target: " + targetName);
+        }
+        Notification n = new Notification();
+        n.setAgentId("test");
+        n.setAlertType("TEST");
+        n.setAlertLevel(channel.target.getMinLevel());
+        n.setTitle("终端监控通知测试");
+        n.setCreatedAt(LocalDateTime.now());
+        send(channel, List.of(n));
+    }
+
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        channels.forEach((name, channel) -> {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("type", channel.target.getType());
+            s.put("queued", channel.queue.size());
+            s.put("inFlight", channel.target.getMaxConcurrency() - channel.permits.availablePermits());
+            s.put("sent", channel.sent.get());
+            s.put("failedAttempts", channel.failures.get());
+            s.put("spilled", channel.spilled.get());
+            s.put("replayed", channel.replayed.get());
+            s.put("dropped", channel.dropped.get());
+            stats.put(name, s);
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delivery.shutdown();
+        try {
+            delivery.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // whatever is still queued or waiting out a backoff survives the restart on disk
+        for (Channel channel : channels.values()) {
+            for (Retry retry : new ArrayList<>(channel.retries)) {
+                abandon(retry);
+            }
+            List<Notification> pending = new ArrayList<>();
+            channel.queue.drainTo(pending);
+            if (!pending.isEmpty()) {
+                spill(channel, pending);
+            }
+            synchronized (channel.spillLock) {
+                closeSpillWriter(channel);
+            }
+        }
+    }
+
+    private static void validate(NotificationProperties.Target target) {
+        if (target.getName() == null || target.getName().isBlank()) {
+            throw new RuntimeException("Notification target without a name");
+        }
+        // the name is part of the spill file names, so it must not be able to leave the spill directory
+        if (!TARGET_NAME.matcher(target.getName()).matches()) {
+            throw new RuntimeException("Notification target name '" + target.getName()
+                    + "' must start with a letter or digit and contain only letters, digits, '.', '_' and '-'");
+        }
+        switch (target.getType()) {
+            case WEBHOOK, EMAIL_RELAY -> {
+                if (target.getUrl() == null || target.getUrl().isBlank()) {
+                    throw new RuntimeException("Notification target '" + target.getName() + "' needs a url");
+                }
+            }
+            case SYSLOG -> {
+                if (target.getHost() == null || target.getHost().isBlank()) {
+                    throw new RuntimeException("Notification target '" + target.getName() + "' needs a host");
+                }
+            }
+            default -> throw new RuntimeException("Unknown notification target type: " + target.getType());
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Channel {
+        private final NotificationProperties.Target target;
+        private final BlockingQueue<Notification> queue;
+        private final Semaphore permits;
+        private final int minLevel;
+        private final Set<String> types;
+        private final Object spillLock = new Object();
+        private BufferedWriter spillWriter;
+        private Path spillFile;
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong spilled = new AtomicLong();
+        private final AtomicLong replayed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        // batches waiting out a retry backoff; each still holds its permit
+        private final Set<Retry> retries = ConcurrentHashMap.newKeySet();
+
+        Channel(NotificationProperties.Target target) {
+            this.target = target;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, target.getQueueCapacity()));
+            this.permits = new Semaphore(Math.max(1, target.getMaxConcurrency()));
+            this.minLevel = Math.max(0, LEVELS.indexOf(String.valueOf(target.getMinLevel()).toUpperCase(Locale.ROOT)));
+            this.types = target.getTypes().stream().map(t -> t.toUpperCase(Locale.ROOT)).collect(Collectors.toSet());
+        }
+
+        boolean accepts(SecurityAlert alert) {
+            return LEVELS.indexOf(alert.getAlertLevel()) >= minLevel
+                    && (types.isEmpty() || (alert.getAlertType() != null && types.contains(alert.getAlertType().toUpperCase(Locale.ROOT))));
+        }
+    }
+
+    // A scheduled retry; it leaves the channel's set when it starts, so shutdown spills only the
+    // ones that never got to run
+    private class Retry implements Runnable {
+        private final Channel channel;
+        private final List<Notification> batch;
+        private final int attempt;
+
+        Retry(Channel channel, List<Notification> batch, int attempt) {
+            this.channel = channel;
+            this.batch = batch;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            try {
+                delivery.execute(() -> {
+                    if (channel.retries.remove(this)) {
+                        deliver(channel, batch, attempt);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                abandon(this);
+            }
+        }
+    }
+
+    public static class Notification {
+        private Long alertId;
+        private String agentId;
+        private String alertType;
+        private String alertLevel;
+        private String anomalyType;
+        private String title;
+        private String correlationKey;
+        private LocalDateTime createdAt;
+        private int count = 1;
+        private List<String> agentIds = new ArrayList<>();
+
+        public Notification() {}
+
+        static Notification of(SecurityAlert alert) {
+            Notification n = new Notification();
+            n.alertId = alert.getId();
+            n.agentId = alert.getAgentId();
+            n.alertType = alert.getAlertType();
+            n.alertLevel = alert.getAlertLevel();
+            n.anomalyType = alert.getAnomalyType();
+            n.title = alert.getAlertTitle();
+            n.correlationKey = alert.getCorrelationKey();
+            n.createdAt = alert.getCreatedAt();
+            n.agentIds.add(alert.getAgentId());
+            return n;
+        }
+
+        Notification copy() {
+            Notification n = new Notification();
+            n.alertId = alertId;
+            n.agentId = agentId;
+            n.alertType = alertType;
+            n.alertLevel = alertLevel;
+            n.anomalyType = anomalyType;
+            n.title = title;
+            n.correlationKey = correlationKey;
+            n.createdAt = createdAt;
+            n.count = count;
+            n.agentIds = new ArrayList<>(agentIds);
+            return n;
+        }
+
+        public Long getAlertId() { return alertId; }
+        public void setAlertId(Long alertId) { this.alertId = alertId; }
+        public String getAgentId() { return agentId; }
+        public void setAgentId(String agentId) { this.agentId = agentId; }
+        public String getAlertType() { return alertType; }
+        public void setAlertType(String alertType) { this.alertType = alertType; }
+        public String getAlertLevel() { return alertLevel; }
+        public void setAlertLevel(String alertLevel) { this.alertLevel = alertLevel; }
+        public String getAnomalyType() { return anomalyType; }
+        public void setAnomalyType(String anomalyType) { this.anomalyType = anomalyType; }
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public String getCorrelationKey() { return correlationKey; }
+        public void setCorrelationKey(String correlationKey) { this.correlationKey = correlationKey; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+        public List<String> getAgentIds() { return agentIds; }
+        public void setAgentIds(List<String> agentIds) { this.agentIds = agentIds; }
+    }
+}
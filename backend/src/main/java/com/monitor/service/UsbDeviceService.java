@@ -19,9 +19,12 @@ public class UsbDeviceService {
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     private final UsbDeviceRepository usbDeviceRepository;
+    private final AgentStateStore agentStateStore;
 
-    public UsbDeviceService(UsbDeviceRepository usbDeviceRepository) {
+    public UsbDeviceService(UsbDeviceRepository usbDeviceRepository,
+                            AgentStateStore agentStateStore) {
         this.usbDeviceRepository = usbDeviceRepository;
+        this.agentStateStore = agentStateStore;
     }
 
     @Transactional
@@ -59,7 +62,7 @@ public class UsbDeviceService {
     }
 
     public List<UsbDevice> getUsbDevicesHistory(String agentId) {
-        return usbDeviceRepository.findByAgentIdOrderByCollectedAtDesc(agentId);
+        return agentStateStore.getUsbDevices(agentId);
     }
 
     public List<UsbDevice> getUsbDevicesByType(String agentId, String deviceType) {
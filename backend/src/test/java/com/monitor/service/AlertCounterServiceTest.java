@@ -0,0 +1,49 @@
+package com.monitor.service;
+
+import com.monitor.entity.SecurityAlert;
+import com.monitor.repository.SecurityAlertRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AlertCounterServiceTest {
+
+    private final SecurityAlertRepository repository = mock(SecurityAlertRepository.class);
+    private final AlertCounterService counters = new AlertCounterService(repository);
+
+    @Test
+    void incrementsDuringReconcileSurviveTheSwap() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{"NEW", "HIGH", "PORT", "agent-1", 3L});
+        when(repository.countByDimensions()).thenReturn(rows);
+        counters.reconcile();
+
+        // an alert created and acknowledged after the query read its snapshot
+        when(repository.countByDimensions()).thenAnswer(invocation -> {
+            SecurityAlert alert = alert("NEW");
+            counters.onCreated(alert);
+            alert.setAlertStatus("ACKNOWLEDGED");
+            counters.onTransition(alert, "NEW");
+            return rows;
+        });
+        counters.reconcile();
+
+        assertEquals(4, counters.countAll());
+        assertEquals(3, counters.countByStatus("NEW"));
+        assertEquals(1, counters.countByAgentAndStatus("agent-1", "ACKNOWLEDGED"));
+    }
+
+    private static SecurityAlert alert(String status) {
+        SecurityAlert alert = new SecurityAlert();
+        alert.setAgentId("agent-1");
+        alert.setAlertStatus(status);
+        alert.setAlertLevel("HIGH");
+        alert.setAlertType("PORT");
+        return alert;
+    }
+}
@@ -0,0 +1,68 @@
+package com.monitor.service;
+
+import com.monitor.entity.BaselineItem;
+import com.monitor.entity.dto.BaselineCompareResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Upload-time detection at fleet scale: a 10k item process baseline against a current list where
+// 1% of the processes are new, 1% are gone and the rest only moved their cpu and memory numbers.
+// Run with: mvn -Pjmh test-compile exec:exec [-Djmh.include=BaselineDiffEngineBenchmark]
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineDiffEngineBenchmark {
+
+    @Param({"10000"})
+    private int items;
+
+    private BaselineDiffEngine engine;
+    private List<BaselineItem> baselineItems;
+    private BaselineDiffEngine.ItemIndex baseline;
+    private List<Map<String, Object>> current;
+
+    @Setup
+    public void setUp() {
+        engine = new BaselineDiffEngine();
+        baselineItems = new ArrayList<>(items);
+        current = new ArrayList<>(items);
+        int changed = Math.max(1, items / 100);
+        for (int i = 0; i < items; i++) {
+            String name = "proc-" + i;
+            if (i >= changed) {
+                baselineItems.add(baselineItem(engine.processItem(i, name, 1.0, 2.0)));
+            }
+            if (i < items - changed) {
+                current.add(engine.processItem(i, name, (i % 50) / 10.0, (i % 30) / 10.0));
+            }
+        }
+        baseline = engine.index(baselineItems);
+    }
+
+    // The per-upload cost once the baseline index is cached
+    @Benchmark
+    public BaselineCompareResult diffCachedIndex() {
+        return engine.diff("PROCESS", baseline, current, anomalyType -> "MEDIUM");
+    }
+
+    // A cache miss: the snapshot's items are indexed before the diff
+    @Benchmark
+    public BaselineCompareResult indexAndDiff() {
+        return engine.diff("PROCESS", engine.index(baselineItems), current, anomalyType -> "MEDIUM");
+    }
+
+    private static BaselineItem baselineItem(Map<String, Object> map) {
+        BaselineItem item = new BaselineItem();
+        item.setItemKey((String) map.get("itemKey"));
+        item.setItemValue((String) map.get("itemValue"));
+        item.setItemType((String) map.get("itemType"));
+        return item;
+    }
+}
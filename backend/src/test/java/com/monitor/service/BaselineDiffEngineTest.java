@@ -0,0 +1,59 @@
+package com.monitor.service;
+
+import com.monitor.entity.BaselineItem;
+import com.monitor.entity.dto.BaselineCompareResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BaselineDiffEngineTest {
+
+    private final BaselineDiffEngine engine = new BaselineDiffEngine();
+
+    @Test
+    void reportsNewMissingAndModifiedItems() {
+        BaselineDiffEngine.ItemIndex baseline = engine.index(List.of(
+                item("22:tcp", "22|tcp|LISTEN|sshd", "port"),
+                item("80:tcp", "80|tcp|LISTEN|nginx", "port")));
+        List<Map<String, Object>> current = List.of(
+                engine.portItem(22, "tcp", "LISTEN", "dropbear"),
+                engine.portItem(443, "tcp", "LISTEN", "nginx"));
+
+        BaselineCompareResult result = engine.diff("PORT", baseline, current, anomalyType -> "LOW");
+
+        assertEquals(1, result.getNewItemsCount());
+        assertEquals("443:tcp", result.getNewItems().get(0).getItemKey());
+        assertEquals(1, result.getMissingItemsCount());
+        assertEquals("80:tcp", result.getMissingItems().get(0).getItemKey());
+        assertEquals(1, result.getModifiedItemsCount());
+        assertEquals("22:tcp", result.getModifiedItems().get(0).getItemKey());
+    }
+
+    @Test
+    void processLoadChangesAreNotModifications() {
+        BaselineDiffEngine.ItemIndex baseline = engine.index(List.of(
+                item("100:sshd", "sshd|100", "process"),
+                // snapshots taken before cpu and memory left the value still carry them
+                item("200:nginx", "nginx|200|3.5|1.25", "process")));
+        List<Map<String, Object>> current = List.of(
+                engine.processItem(100, "sshd", 40.0, 12.0),
+                engine.processItem(200, "nginx", 0.1, 1.3));
+
+        BaselineCompareResult result = engine.diff("PROCESS", baseline, current, anomalyType -> "LOW");
+
+        assertEquals(0, result.getNewItemsCount());
+        assertEquals(0, result.getMissingItemsCount());
+        assertEquals(0, result.getModifiedItemsCount());
+    }
+
+    private static BaselineItem item(String key, String value, String type) {
+        BaselineItem item = new BaselineItem();
+        item.setItemKey(key);
+        item.setItemValue(value);
+        item.setItemType(type);
+        return item;
+    }
+}
@@ -0,0 +1,143 @@
+package com.monitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitor.config.NotificationProperties;
+import com.monitor.entity.SecurityAlert;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherTest {
+
+    @TempDir
+    Path spillDir;
+
+    private HttpServer server;
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void deliversBatchToWebhook() throws Exception {
+        LinkedBlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+        startServer(200, bodies, new CountDownLatch(0));
+        dispatcher = startDispatcher(1000);
+
+        dispatcher.dispatch(alert("Unexpected listener on 4444"));
+
+        String body = bodies.poll(5, TimeUnit.SECONDS);
+        assertNotNull(body, "webhook was not called");
+        assertTrue(body.contains("Unexpected listener on 4444"));
+        Map<String, Object> stats = awaitStats(s -> Long.valueOf(1).equals(s.get("sent")));
+        assertEquals(0, stats.get("inFlight"));
+    }
+
+    @Test
+    void shutdownSpillsBatchesWaitingForRetry() throws Exception {
+        CountDownLatch firstAttempt = new CountDownLatch(1);
+        startServer(503, new LinkedBlockingQueue<>(), firstAttempt);
+        // the retry backoff outlasts the test, so the batch is parked in the scheduler at shutdown
+        dispatcher = startDispatcher(60000);
+
+        dispatcher.dispatch(alert("Unexpected listener on 5555"));
+        assertTrue(firstAttempt.await(5, TimeUnit.SECONDS), "webhook was not called");
+        awaitStats(s -> Long.valueOf(1).equals(s.get("failedAttempts")));
+
+        dispatcher.shutdown();
+
+        Map<String, Object> stats = dispatcher.getStats().get("hook");
+        assertEquals(1L, stats.get("spilled"));
+        assertEquals(0, stats.get("inFlight"));
+        String spilled = readSpillFiles();
+        assertTrue(spilled.contains("Unexpected listener on 5555"));
+        dispatcher = null;
+    }
+
+    private void startServer(int status, LinkedBlockingQueue<String> bodies, CountDownLatch requests) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            requests.countDown();
+        });
+        server.start();
+    }
+
+    private NotificationDispatcher startDispatcher(long initialBackoffMs) throws IOException {
+        NotificationProperties.Target target = new NotificationProperties.Target();
+        target.setName("hook");
+        target.setType(NotificationDispatcher.WEBHOOK);
+        target.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+        target.setMinLevel("HIGH");
+        target.setLingerMs(50);
+        target.setInitialBackoffMs(initialBackoffMs);
+        target.setMaxBackoffMs(initialBackoffMs);
+        NotificationProperties properties = new NotificationProperties();
+        properties.setSpillDir(spillDir.toString());
+        properties.setTargets(List.of(target));
+        NotificationDispatcher d = new NotificationDispatcher(properties, new ObjectMapper().findAndRegisterModules());
+        d.start();
+        return d;
+    }
+
+    private Map<String, Object> awaitStats(Predicate<Map<String, Object>> condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> stats = dispatcher.getStats().get("hook");
+            if (condition.test(stats)) {
+                return stats;
+            }
+            Thread.sleep(50);
+        }
+        return fail("target stats never reached the expected state: " + dispatcher.getStats().get("hook"));
+    }
+
+    private String readSpillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.map(file -> {
+                try {
+                    return Files.readString(file);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }).collect(Collectors.joining("\n"));
+        }
+    }
+
+    private static SecurityAlert alert(String title) {
+        SecurityAlert alert = new SecurityAlert();
+        alert.setId(1L);
+        alert.setAgentId("agent-1");
+        alert.setAlertType("PORT");
+        alert.setAlertLevel("HIGH");
+        alert.setAlertTitle(title);
+        alert.setCreatedAt(LocalDateTime.now());
+        return alert;
+    }
+}
@@ -18,6 +18,11 @@ export const alertApi = {
     return api.get('/alerts/stats')
   },
 
+  // params: agentId, status, level, type, from, to, cursor, limit; returns { items, nextCursor, hasMore }
+  search(params = {}) {
+    return api.get('/alerts/search', { params })
+  },
+
   getRecent(hours = 24) {
     return api.get('/alerts/recent', { params: { hours } })
   },
@@ -46,6 +51,11 @@ export const alertApi = {
     return api.post(`/alerts/${id}/ignore`, { ignoredBy, reason })
   },
 
+  // action: acknowledge | resolve | ignore; target: { ids: [...] } or { filter: { status, level, ... } }
+  bulk(action, target, actor = 'admin', note = '') {
+    return api.post(`/alerts/bulk/${action}`, { ...target, actor, note })
+  },
+
   getAllRules() {
     return api.get('/alerts/rules')
   },
@@ -62,6 +72,10 @@ export const alertApi = {
     return api.post('/alerts/rules', ruleData)
   },
 
+  validateRule(ruleCondition) {
+    return api.post('/alerts/rules/validate', { ruleCondition })
+  },
+
   toggleRule(id, enabled) {
     return api.put(`/alerts/rules/${id}/toggle`, { enabled })
   },
@@ -0,0 +1,20 @@
+// Server push for alerts and agent status. EventSource reconnects on its own and sends
+// Last-Event-ID, so the server replays whatever was missed while disconnected.
+export function subscribeEvents(filters = {}, handlers = {}) {
+  const params = new URLSearchParams()
+  Object.entries(filters).forEach(([key, value]) => {
+    if (value === undefined || value === null || value === '') return
+    const values = Array.isArray(value) ? value : [value]
+    values.forEach(v => params.append(key, v))
+  })
+  const query = params.toString()
+  const source = new EventSource(`/api/events/stream${query ? `?${query}` : ''}`)
+
+  Object.entries(handlers).forEach(([name, handler]) => {
+    source.addEventListener(name, (e) => {
+      handler(e.data ? JSON.parse(e.data) : null)
+    })
+  })
+
+  return () => source.close()
+}
@@ -0,0 +1,26 @@
+import axios from 'axios'
+
+const api = axios.create({
+  baseURL: '/api',
+  timeout: 30000
+})
+
+export const incidentApi = {
+  getIncidents(status, limit = 50) {
+    return api.get('/incidents', { params: { status, limit } })
+  },
+
+  getById(id) {
+    return api.get(`/incidents/${id}`)
+  },
+
+  getAlerts(id, cursor, limit = 50) {
+    return api.get(`/incidents/${id}/alerts`, { params: { cursor, limit } })
+  },
+
+  close(id) {
+    return api.post(`/incidents/${id}/close`)
+  }
+}
+
+export default api
@@ -1,6 +1,8 @@
 import axios from 'axios'
 import { baselineApi } from './baseline'
 import { alertApi } from './alert'
+import { incidentApi } from './incident'
+import { subscribeEvents } from './events'
 
 const API_BASE = '/api'
 
@@ -14,6 +16,12 @@ export const agentApi = {
     return api.get('/agents')
   },
 
+  // params: status, platform, name (prefix), ip (address or IPv4 CIDR), lastSeenFrom, lastSeenTo,
+  // sort (name|lastSeen|createdAt), order (asc|desc), cursor, limit; returns { items, nextCursor, hasMore, total }
+  searchAgents(params = {}) {
+    return api.get('/agents/search', { params })
+  },
+
   getAgent(id) {
     return api.get(`/agents/${id}`)
   },
@@ -22,6 +30,11 @@ export const agentApi = {
     return api.get('/agents/status')
   },
 
+  // fields: optional list of sections, e.g. ['agent', 'ports']; omitted means all
+  getAgentOverview(id, fields) {
+    return api.get(`/agents/${id}/overview`, { params: fields ? { fields: fields.join(',') } : {} })
+  },
+
   getAgentProcesses(id) {
     return api.get(`/agents/${id}/processes`)
   },
@@ -55,12 +68,19 @@ export const agentApi = {
   }
 }
 
+// Shared server-side summary; cheap to poll no matter how many dashboards are open
+export const dashboardApi = {
+  getSummary() {
+    return api.get('/dashboard/summary')
+  }
+}
+
 export const healthApi = {
   check() {
     return api.get('/health')
   }
 }
 
-export { baselineApi, alertApi }
+export { baselineApi, alertApi, incidentApi, subscribeEvents }
 
 export default api